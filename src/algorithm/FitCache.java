@@ -0,0 +1,314 @@
+package algorithm;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import common.Dataset;
+import common.RandomStream;
+
+/**
+ * A bounded cache of fitted weight vectors in least recently used order. A
+ * fit is keyed by the identifier of the dataset, the fingerprint of the
+ * subset (see SubsetHistory) and the fingerprint of the fitter configuration,
+ * so a repeated subset is looked up instead of refitted. Datasets are not
+ * referenced, hence a cache outliving them does not keep them in memory, and
+ * their fits age out. The cache may be shared by regressors on different
+ * threads. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 27, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class FitCache {
+
+	/**
+	 * The default capacity.
+	 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/**
+	 * The fits in access order.
+	 */
+	LinkedHashMap<Key, double[]> fits;
+
+	/**
+	 * The number of fits found.
+	 */
+	long numHits;
+
+	/**
+	 * The number of fits not found.
+	 */
+	long numMisses;
+
+	/**
+	 ******************
+	 * The first constructor.
+	 ******************
+	 */
+	public FitCache() {
+		this(DEFAULT_CAPACITY);
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * The second constructor.
+	 *
+	 * @param paraCapacity
+	 *            The maximal number of fits kept.
+	 ******************
+	 */
+	public FitCache(final int paraCapacity) {
+		if (paraCapacity < 1) {
+			throw new IllegalArgumentException("The capacity must be positive: "
+					+ paraCapacity);
+		} // Of if
+
+		fits = new LinkedHashMap<Key, double[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Key, double[]> paraEldest) {
+				return size() > paraCapacity;
+			}// Of removeEldestEntry
+		};
+	}// Of the second constructor
+
+	/**
+	 ******************
+	 * The fingerprint of a fitter configuration.
+	 *
+	 * @param paraFitter
+	 *            The name of the fitter, e.g., "least squares".
+	 * @param paraParameters
+	 *            The parameters affecting the fit.
+	 * @return The fingerprint.
+	 ******************
+	 */
+	public static long config(String paraFitter, double... paraParameters) {
+		long resultFingerprint = RandomStream.mix64(paraFitter.hashCode());
+		for (int i = 0; i < paraParameters.length; i++) {
+			resultFingerprint = RandomStream.mix64(resultFingerprint
+					^ Double.doubleToLongBits(paraParameters[i]));
+		} // Of for i
+
+		return resultFingerprint;
+	}// Of config
+
+	/**
+	 ******************
+	 * Look up a fit.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraSubset
+	 *            The fingerprint of the subset.
+	 * @param paraConfig
+	 *            The fingerprint of the configuration.
+	 * @return A copy of the weights. Null if not found.
+	 ******************
+	 */
+	public synchronized double[] get(Dataset paraData, long paraSubset, long paraConfig) {
+		double[] tempWeights = fits.get(new Key(paraData.getId(), paraSubset,
+				paraConfig));
+		if (tempWeights == null) {
+			numMisses++;
+			return null;
+		} // Of if
+
+		numHits++;
+		return Arrays.copyOf(tempWeights, tempWeights.length);
+	}// Of get
+
+	/**
+	 ******************
+	 * Keep a fit. The least recently used one is dropped if the cache is full.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraSubset
+	 *            The fingerprint of the subset.
+	 * @param paraConfig
+	 *            The fingerprint of the configuration.
+	 * @param paraWeights
+	 *            The weights, copied.
+	 ******************
+	 */
+	public synchronized void put(Dataset paraData, long paraSubset, long paraConfig,
+			double[] paraWeights) {
+		fits.put(new Key(paraData.getId(), paraSubset, paraConfig),
+				Arrays.copyOf(paraWeights, paraWeights.length));
+	}// Of put
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of fits found.
+	 ******************
+	 */
+	public synchronized long getNumHits() {
+		return numHits;
+	}// Of getNumHits
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of fits not found.
+	 ******************
+	 */
+	public synchronized long getNumMisses() {
+		return numMisses;
+	}// Of getNumMisses
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of fits kept.
+	 ******************
+	 */
+	public synchronized int size() {
+		return fits.size();
+	}// Of size
+
+	/**
+	 ******************
+	 * Drop all fits and reset the counters.
+	 ******************
+	 */
+	public synchronized void clear() {
+		fits.clear();
+		numHits = 0;
+		numMisses = 0;
+	}// Of clear
+
+	/**
+	 ******************
+	 * For display.
+	 ******************
+	 */
+	public synchronized String toString() {
+		return "Fit cache: " + fits.size() + " fits, " + numHits + " hits, "
+				+ numMisses + " misses.";
+	}// Of toString
+
+	/**
+	 * The key of a fit.
+	 */
+	static class Key {
+		/**
+		 * The identifier of the dataset.
+		 */
+		long dataId;
+
+		/**
+		 * The fingerprint of the subset.
+		 */
+		long subset;
+
+		/**
+		 * The fingerprint of the configuration.
+		 */
+		long config;
+
+		/**
+		 ******************
+		 * The first constructor.
+		 *
+		 * @param paraDataId
+		 *            The identifier of the dataset.
+		 * @param paraSubset
+		 *            The fingerprint of the subset.
+		 * @param paraConfig
+		 *            The fingerprint of the configuration.
+		 ******************
+		 */
+		Key(long paraDataId, long paraSubset, long paraConfig) {
+			dataId = paraDataId;
+			subset = paraSubset;
+			config = paraConfig;
+		}// Of the first constructor
+
+		/**
+		 ******************
+		 * Combine the fields.
+		 ******************
+		 */
+		public int hashCode() {
+			long tempHash = RandomStream.mix64(subset ^ (config * 31)
+					^ RandomStream.mix64(dataId));
+			return (int) (tempHash ^ (tempHash >>> 32));
+		}// Of hashCode
+
+		/**
+		 ******************
+		 * Compare the fields.
+		 ******************
+		 */
+		public boolean equals(Object paraObject) {
+			if (!(paraObject instanceof Key)) {
+				return false;
+			} // Of if
+			Key tempKey = (Key) paraObject;
+			return (dataId == tempKey.dataId) && (subset == tempKey.subset)
+					&& (config == tempKey.config);
+		}// Of equals
+	}// Of class Key
+
+	/**
+	 ******************
+	 * Datasets with the same contents have their own fits, copies are
+	 * returned, and the least recently used fit is dropped first.
+	 *
+	 * @return True if passed.
+	 ******************
+	 */
+	public static boolean testKeys() {
+		Dataset tempFirst = LeastSquaresSolver.randomDataset(10, 3, new RandomStream(3));
+		Dataset tempSecond = LeastSquaresSolver.randomDataset(10, 3, new RandomStream(3));
+		long tempConfig = config("least squares", LeastSquaresSolver.CHOLESKY);
+		double[] tempWeights = { 1, 2, 3 };
+
+		FitCache tempCache = new FitCache(2);
+		tempCache.put(tempFirst, 5, tempConfig, tempWeights);
+		tempWeights[0] = -1;
+		double[] tempFound = tempCache.get(tempFirst, 5, tempConfig);
+		boolean resultPassed = (tempFound != null) && (tempFound[0] == 1);
+		tempFound[1] = -1;
+		resultPassed &= (tempCache.get(tempFirst, 5, tempConfig)[1] == 2);
+		resultPassed &= (tempCache.get(tempSecond, 5, tempConfig) == null)
+				&& (tempCache.get(tempFirst, 6, tempConfig) == null)
+				&& (tempCache.get(tempFirst, 5,
+						config("incremental normal equation")) == null);
+
+		// The fit of the first dataset is used last, so the second one goes.
+		tempCache.put(tempSecond, 5, tempConfig, tempWeights);
+		tempCache.get(tempFirst, 5, tempConfig);
+		tempCache.put(tempFirst, 6, tempConfig, tempWeights);
+		resultPassed &= (tempCache.size() == 2)
+				&& (tempCache.get(tempSecond, 5, tempConfig) == null)
+				&& (tempCache.get(tempFirst, 5, tempConfig) != null);
+
+		System.out.println(tempCache);
+		System.out.println("Fit cache keys, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testKeys
+
+	/**
+	 ******************
+	 * For unit test.
+	 *
+	 * @param args
+	 *            Not used now.
+	 ******************
+	 */
+	public static void main(String args[]) {
+		testKeys();
+	}// Of main
+}// Of class FitCache
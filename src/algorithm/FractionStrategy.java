@@ -0,0 +1,85 @@
+package algorithm;
+
+/**
+ * Top-k selection: the given fraction of the instances with the smallest
+ * residuals. The threshold is read from the sorted residuals, hence the pace
+ * does not depend on the scale of the outputs, which suits big data where a
+ * good threshold is unknown. Instances tied with the last one are also
+ * selected. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 27, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class FractionStrategy implements SelectionStrategy {
+
+	/**
+	 ******************
+	 * Select the fraction of instances with the smallest residuals.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraPace
+	 *            The fraction. Values above 1 select all.
+	 * @param paraPositions
+	 *            The buffer of the selected positions.
+	 * @param paraRowWeights
+	 *            Not used.
+	 * @return The number of selected positions.
+	 ******************
+	 */
+	public int select(ResidualIndex paraIndex, double paraPace, int[] paraPositions,
+			double[] paraRowWeights) {
+		return paraIndex.selectWithin(paraIndex.thresholdForFraction(Math.min(paraPace, 1)),
+				paraPositions);
+	}// Of select
+
+	/**
+	 ******************
+	 * Count by binary search on the sorted residuals.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraPace
+	 *            The fraction.
+	 * @return The number of instances.
+	 ******************
+	 */
+	public int count(ResidualIndex paraIndex, double paraPace) {
+		return paraIndex.countWithin(paraIndex.thresholdForFraction(Math.min(paraPace, 1)));
+	}// Of count
+
+	/**
+	 ******************
+	 * The fraction of the given number of instances. It is half an instance
+	 * below the count, so that rounding up in select() gives the count.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraCount
+	 *            The number of instances.
+	 * @param paraSampleSize
+	 *            Not used, since the selection sorts the residuals anyway.
+	 * @return The fraction.
+	 ******************
+	 */
+	public double paceForCount(ResidualIndex paraIndex, int paraCount,
+			int paraSampleSize) {
+		return (paraCount - 0.5) / paraIndex.size();
+	}// Of paceForCount
+
+	/**
+	 ******************
+	 * Are the row weights used?
+	 *
+	 * @return False.
+	 ******************
+	 */
+	public boolean isWeighted() {
+		return false;
+	}// Of isWeighted
+}// Of class FractionStrategy
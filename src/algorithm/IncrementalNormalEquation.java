@@ -0,0 +1,253 @@
+package algorithm;
+
+import common.Dataset;
+import common.IndexView;
+
+/**
+ * The normal equation X^T X w = X^T y maintained incrementally. Consecutive
+ * self-paced selections usually differ by a few instances, hence only the
+ * entering instances are added and the leaving ones are subtracted. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 16, 2020.<br>
+ *         Last modified: August 16, 2020.
+ * @version 1.0
+ */
+public class IncrementalNormalEquation {
+
+	/**
+	 * The dataset.
+	 */
+	Dataset data;
+
+	/**
+	 * The candidate instances. Subsets are given by positions in this view.
+	 */
+	IndexView candidates;
+
+	/**
+	 * The number of columns of the input data.
+	 */
+	int numColumns;
+
+	/**
+	 * X^T X of the current subset. Only the upper triangle is maintained.
+	 */
+	double[][] gram;
+
+	/**
+	 * X^T y of the current subset.
+	 */
+	double[] moment;
+
+	/**
+	 * Is the instance in the current subset?
+	 */
+	boolean[] memberships;
+
+	/**
+	 * The membership of the subset under construction. Kept to avoid
+	 * allocation in each update.
+	 */
+	boolean[] newMemberships;
+
+	/**
+	 * The number of instances in the current subset.
+	 */
+	int numMembers;
+
+	/**
+	 * The number of instances added or removed since the last rebuilding.
+	 * Subtraction accumulates rounding errors, so the sums are rebuilt from
+	 * time to time.
+	 */
+	int numChangesSinceRebuild;
+
+	/**
+	 * The number of full rebuildings. For statistics.
+	 */
+	int numRebuilds;
+
+	/**
+	 * The number of incremental updates. For statistics.
+	 */
+	int numIncrementalUpdates;
+
+	/**
+	 ******************
+	 * The first constructor. The subset is empty.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraCandidates
+	 *            The candidate instances.
+	 ******************
+	 */
+	public IncrementalNormalEquation(Dataset paraData, IndexView paraCandidates) {
+		data = paraData;
+		candidates = paraCandidates;
+		numColumns = paraData.getNumColumns();
+
+		gram = new double[numColumns][numColumns];
+		moment = new double[numColumns];
+		memberships = new boolean[paraCandidates.size()];
+		newMemberships = new boolean[paraCandidates.size()];
+		numMembers = 0;
+		numChangesSinceRebuild = 0;
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * Change the subset to the given one. Only the difference with the current
+	 * subset is processed unless it is too large.
+	 *
+	 * @param paraIndices
+	 *            The positions of the new subset in the candidates.
+	 ******************
+	 */
+	public void update(int[] paraIndices) {
+		update(paraIndices, paraIndices.length);
+	}// Of update
+
+	/**
+	 ******************
+	 * Change the subset to the given one, stored at the front of a buffer.
+	 *
+	 * @param paraIndices
+	 *            The positions of the new subset in the candidates.
+	 * @param paraNumIndices
+	 *            The number of valid positions.
+	 ******************
+	 */
+	public void update(int[] paraIndices, int paraNumIndices) {
+		// Step 1. Mark the new subset and count entering instances.
+		int tempNumChanges = 0;
+		for (int i = 0; i < paraNumIndices; i++) {
+			newMemberships[paraIndices[i]] = true;
+			if (!memberships[paraIndices[i]]) {
+				tempNumChanges++;
+			} // Of if
+		} // Of for i
+
+		// Step 2. Count leaving instances.
+		int tempNumLeaving = numMembers - (paraNumIndices - tempNumChanges);
+		tempNumChanges += tempNumLeaving;
+
+		// Step 3. Rebuild if the difference is not small or too many
+		// subtractions have been done.
+		if ((tempNumChanges >= paraNumIndices)
+				|| (numChangesSinceRebuild + tempNumChanges > memberships.length)) {
+			rebuild(paraIndices, paraNumIndices);
+		} else {
+			for (int i = 0; i < memberships.length; i++) {
+				if (newMemberships[i] && !memberships[i]) {
+					accumulate(i, 1);
+				} else if (!newMemberships[i] && memberships[i]) {
+					accumulate(i, -1);
+				} // Of if
+			} // Of for i
+			numChangesSinceRebuild += tempNumChanges;
+			numIncrementalUpdates++;
+		} // Of if
+
+		// Step 4. Swap the membership arrays.
+		boolean[] tempMemberships = memberships;
+		memberships = newMemberships;
+		newMemberships = tempMemberships;
+		for (int i = 0; i < paraNumIndices; i++) {
+			newMemberships[paraIndices[i]] = false;
+		} // Of for i
+		if (tempNumLeaving > 0) {
+			for (int i = 0; i < newMemberships.length; i++) {
+				newMemberships[i] = false;
+			} // Of for i
+		} // Of if
+		numMembers = paraNumIndices;
+	}// Of update
+
+	/**
+	 ******************
+	 * Compute the sums from scratch.
+	 *
+	 * @param paraIndices
+	 *            The positions of the subset in the candidates.
+	 * @param paraNumIndices
+	 *            The number of valid positions.
+	 ******************
+	 */
+	void rebuild(int[] paraIndices, int paraNumIndices) {
+		for (int i = 0; i < numColumns; i++) {
+			moment[i] = 0;
+			for (int j = i; j < numColumns; j++) {
+				gram[i][j] = 0;
+			} // Of for j
+		} // Of for i
+
+		for (int i = 0; i < paraNumIndices; i++) {
+			accumulate(paraIndices[i], 1);
+		} // Of for i
+
+		numChangesSinceRebuild = 0;
+		numRebuilds++;
+	}// Of rebuild
+
+	/**
+	 ******************
+	 * Add or subtract an instance.
+	 *
+	 * @param paraIndex
+	 *            The position of the instance in the candidates.
+	 * @param paraSign
+	 *            1 for adding and -1 for subtracting.
+	 ******************
+	 */
+	void accumulate(int paraIndex, double paraSign) {
+		double[] tempInputs = data.getInputs();
+		int tempInstance = candidates.get(paraIndex);
+		int tempOffset = tempInstance * numColumns;
+		double tempOutput = paraSign * data.getOutput(tempInstance);
+		for (int i = 0; i < numColumns; i++) {
+			double tempValue = paraSign * tempInputs[tempOffset + i];
+			moment[i] += tempInputs[tempOffset + i] * tempOutput;
+			for (int j = i; j < numColumns; j++) {
+				gram[i][j] += tempValue * tempInputs[tempOffset + j];
+			} // Of for j
+		} // Of for i
+	}// Of accumulate
+
+	/**
+	 ******************
+	 * Solve the normal equation of the current subset.
+	 *
+	 * @return The weight vector.
+	 ******************
+	 */
+	public double[] solve() {
+		return LeastSquaresSolver.solveGram(gram, moment);
+	}// Of solve
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of instances in the current subset.
+	 ******************
+	 */
+	public int getNumMembers() {
+		return numMembers;
+	}// Of getNumMembers
+
+	/**
+	 ******************
+	 * Show statistics.
+	 ******************
+	 */
+	public String toString() {
+		return "Incremental normal equation with " + numMembers
+				+ " instances, " + numIncrementalUpdates
+				+ " incremental updates and " + numRebuilds + " rebuildings.";
+	}// Of toString
+}// Of class IncrementalNormalEquation
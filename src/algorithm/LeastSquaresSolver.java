@@ -0,0 +1,684 @@
+package algorithm;
+
+import java.util.Arrays;
+
+import common.Dataset;
+import common.IndexView;
+import common.RandomStream;
+
+/**
+ * Least squares solvers without explicit inverses. Cholesky works on the
+ * d * d Gram matrix, while Householder QR and pivoted QR work on the data
+ * directly and are more stable. Columns that are (nearly) linear dependent
+ * on former ones, e.g., a feature that becomes constant on the selected
+ * subset, get zero weights instead of blowing up the solution. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 16, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class LeastSquaresSolver {
+
+	/**
+	 * Cholesky decomposition of X^T X.
+	 */
+	public static final int CHOLESKY = 0;
+
+	/**
+	 * Householder QR decomposition of X.
+	 */
+	public static final int HOUSEHOLDER_QR = 1;
+
+	/**
+	 * Householder QR decomposition of X with column pivoting.
+	 */
+	public static final int PIVOTED_QR = 2;
+
+	/**
+	 * Relative tolerance for determining linear dependent columns.
+	 */
+	public static final double RANK_TOLERANCE = 1e-10;
+
+	/**
+	 ******************
+	 * Solve the least squares problem min ||X w - y||.
+	 *
+	 * @param paraX
+	 *            The input data.
+	 * @param paraY
+	 *            The output data.
+	 * @param paraSolver
+	 *            The solver, CHOLESKY, HOUSEHOLDER_QR or PIVOTED_QR.
+	 * @return The weight vector.
+	 ******************
+	 */
+	public static double[] solve(double[][] paraX, double[][] paraY,
+			int paraSolver) {
+		return solveWeighted(paraX, paraY, null, paraSolver);
+	}// Of solve
+
+	/**
+	 ******************
+	 * Solve the weighted least squares problem min ||A (X w - y)||, where A is
+	 * the diagonal matrix of instance weights. A is never formed: the weights
+	 * are streamed into the Gram matrix for Cholesky, and scale the copied rows
+	 * for QR.
+	 *
+	 * @param paraX
+	 *            The input data.
+	 * @param paraY
+	 *            The output data.
+	 * @param paraInstanceWeights
+	 *            The instance weights. Null for all 1.
+	 * @param paraSolver
+	 *            The solver, CHOLESKY, HOUSEHOLDER_QR or PIVOTED_QR.
+	 * @return The weight vector.
+	 ******************
+	 */
+	public static double[] solveWeighted(double[][] paraX, double[][] paraY,
+			double[] paraInstanceWeights, int paraSolver) {
+		return solve(new Dataset(paraX, paraY), IndexView.range(paraX.length),
+				paraInstanceWeights, paraSolver);
+	}// Of solveWeighted
+
+	/**
+	 ******************
+	 * Solve the weighted least squares problem on a subset of a dataset.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances in the subset.
+	 * @param paraInstanceWeights
+	 *            The instance weights, indexed by positions in the view. Null
+	 *            for all 1.
+	 * @param paraSolver
+	 *            The solver, CHOLESKY, HOUSEHOLDER_QR or PIVOTED_QR.
+	 * @return The weight vector.
+	 ******************
+	 */
+	public static double[] solve(Dataset paraData, IndexView paraView,
+			double[] paraInstanceWeights, int paraSolver) {
+		switch (paraSolver) {
+		case CHOLESKY:
+			int tempNumColumns = paraData.getNumColumns();
+			double[] tempDiagonal = null;
+			if (paraInstanceWeights != null) {
+				tempDiagonal = new double[paraView.size()];
+				for (int i = 0; i < tempDiagonal.length; i++) {
+					tempDiagonal[i] = paraInstanceWeights[i]
+							* paraInstanceWeights[i];
+				} // Of for i
+			} // Of if
+			double[][] tempGram = new double[tempNumColumns][tempNumColumns];
+			double[] tempMoment = new double[tempNumColumns];
+			accumulateNormalEquation(paraData, paraView, tempDiagonal, null,
+					tempGram, tempMoment);
+			return solveGram(tempGram, tempMoment);
+		case HOUSEHOLDER_QR:
+			return householderQr(paraData, paraView, paraInstanceWeights,
+					false);
+		case PIVOTED_QR:
+			return householderQr(paraData, paraView, paraInstanceWeights,
+					true);
+		default:
+			throw new IllegalArgumentException("Unsupported solver: "
+					+ paraSolver);
+		}// Of switch
+	}// Of solve
+
+	/**
+	 ******************
+	 * Accumulate the weighted normal equation X^T D X w = X^T D t on a subset,
+	 * where D is diagonal. Only the upper triangle of the Gram matrix is
+	 * filled. Both the linear fit and the IRLS steps of logistic regression
+	 * use it.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances in the subset.
+	 * @param paraDiagonal
+	 *            The diagonal of D, indexed by positions in the view. Null
+	 *            for all 1.
+	 * @param paraTargets
+	 *            The targets t, indexed by positions in the view. Null for the
+	 *            outputs of the dataset.
+	 * @param paraGram
+	 *            The Gram matrix to add to.
+	 * @param paraMoment
+	 *            The moment vector to add to.
+	 ******************
+	 */
+	public static void accumulateNormalEquation(Dataset paraData,
+			IndexView paraView, double[] paraDiagonal, double[] paraTargets,
+			double[][] paraGram, double[] paraMoment) {
+		int tempNumColumns = paraData.getNumColumns();
+		double[] tempInputs = paraData.getInputs();
+		double[] tempOutputs = paraData.getOutputs();
+		for (int i = 0; i < paraView.size(); i++) {
+			double tempWeight = 1;
+			if (paraDiagonal != null) {
+				tempWeight = paraDiagonal[i];
+				if (tempWeight == 0) {
+					continue;
+				} // Of if
+			} // Of if
+			int tempInstance = paraView.get(i);
+			int tempOffset = tempInstance * tempNumColumns;
+			double tempTarget = (paraTargets == null) ? tempOutputs[tempInstance]
+					: paraTargets[i];
+			double tempOutput = tempWeight * tempTarget;
+			for (int j = 0; j < tempNumColumns; j++) {
+				double tempValue = tempWeight * tempInputs[tempOffset + j];
+				paraMoment[j] += tempInputs[tempOffset + j] * tempOutput;
+				for (int k = j; k < tempNumColumns; k++) {
+					paraGram[j][k] += tempValue * tempInputs[tempOffset + k];
+				} // Of for k
+			} // Of for j
+		} // Of for i
+	}// Of accumulateNormalEquation
+
+	/**
+	 ******************
+	 * Solve the normal equation G w = b through Cholesky decomposition G = L
+	 * L^T. Only the upper triangle of G is read, and G is not changed. A
+	 * column whose pivot vanishes is linear dependent on former ones, and its
+	 * weight is set to 0.
+	 *
+	 * @param paraGram
+	 *            The Gram matrix X^T X.
+	 * @param paraMoment
+	 *            The vector X^T y.
+	 * @return The weight vector.
+	 ******************
+	 */
+	public static double[] solveGram(double[][] paraGram, double[] paraMoment) {
+		int tempSize = paraMoment.length;
+		// L is stored as its transpose, i.e., upper triangle by rows.
+		double[][] tempFactor = new double[tempSize][tempSize];
+		boolean[] tempDependent = new boolean[tempSize];
+
+		// Step 1. Decompose.
+		for (int j = 0; j < tempSize; j++) {
+			double tempPivot = paraGram[j][j];
+			for (int k = 0; k < j; k++) {
+				tempPivot -= tempFactor[k][j] * tempFactor[k][j];
+			} // Of for k
+
+			if (tempPivot <= RANK_TOLERANCE * Math.abs(paraGram[j][j])
+					|| tempPivot <= 0) {
+				tempDependent[j] = true;
+				continue;
+			} // Of if
+
+			tempPivot = Math.sqrt(tempPivot);
+			tempFactor[j][j] = tempPivot;
+			for (int i = j + 1; i < tempSize; i++) {
+				double tempValue = paraGram[j][i];
+				for (int k = 0; k < j; k++) {
+					tempValue -= tempFactor[k][j] * tempFactor[k][i];
+				} // Of for k
+				tempFactor[j][i] = tempValue / tempPivot;
+			} // Of for i
+		} // Of for j
+
+		// Step 2. Forward substitution L z = b.
+		double[] tempZ = new double[tempSize];
+		for (int i = 0; i < tempSize; i++) {
+			if (tempDependent[i]) {
+				continue;
+			} // Of if
+			double tempValue = paraMoment[i];
+			for (int k = 0; k < i; k++) {
+				tempValue -= tempFactor[k][i] * tempZ[k];
+			} // Of for k
+			tempZ[i] = tempValue / tempFactor[i][i];
+		} // Of for i
+
+		// Step 3. Backward substitution L^T w = z.
+		double[] resultWeights = new double[tempSize];
+		for (int i = tempSize - 1; i >= 0; i--) {
+			if (tempDependent[i]) {
+				continue;
+			} // Of if
+			double tempValue = tempZ[i];
+			for (int k = i + 1; k < tempSize; k++) {
+				tempValue -= tempFactor[i][k] * resultWeights[k];
+			} // Of for k
+			resultWeights[i] = tempValue / tempFactor[i][i];
+		} // Of for i
+
+		return resultWeights;
+	}// Of solveGram
+
+	/**
+	 ******************
+	 * Solve through Householder QR decomposition. With column pivoting, the
+	 * column with the largest remaining norm is processed first, and the
+	 * decomposition stops at the numerical rank. The input data is not
+	 * changed.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances in the subset.
+	 * @param paraInstanceWeights
+	 *            The instance weights. Null for all 1.
+	 * @param paraPivoting
+	 *            Is column pivoting used?
+	 * @return The weight vector.
+	 ******************
+	 */
+	static double[] householderQr(Dataset paraData, IndexView paraView,
+			double[] paraInstanceWeights, boolean paraPivoting) {
+		int tempNumRows = paraView.size();
+		int tempNumColumns = paraData.getNumColumns();
+		double[] tempInputs = paraData.getInputs();
+		double[] tempOutputs = paraData.getOutputs();
+
+		// Step 1. Copy by columns so that reflections are applied to
+		// contiguous arrays. Rows are scaled by instance weights.
+		double[][] tempColumns = new double[tempNumColumns][tempNumRows];
+		double[] tempB = new double[tempNumRows];
+		for (int i = 0; i < tempNumRows; i++) {
+			double tempWeight = 1;
+			if (paraInstanceWeights != null) {
+				tempWeight = paraInstanceWeights[i];
+			} // Of if
+			int tempInstance = paraView.get(i);
+			int tempOffset = tempInstance * tempNumColumns;
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempColumns[j][i] = tempWeight * tempInputs[tempOffset + j];
+			} // Of for j
+			tempB[i] = tempWeight * tempOutputs[tempInstance];
+		} // Of for i
+
+		int[] tempPermutation = new int[tempNumColumns];
+		double[] tempNorms = new double[tempNumColumns];
+		double tempMaxNorm = 0;
+		for (int j = 0; j < tempNumColumns; j++) {
+			tempPermutation[j] = j;
+			for (int i = 0; i < tempNumRows; i++) {
+				tempNorms[j] += tempColumns[j][i] * tempColumns[j][i];
+			} // Of for i
+			tempMaxNorm = Math.max(tempMaxNorm, tempNorms[j]);
+		} // Of for j
+		double tempTolerance = RANK_TOLERANCE * Math.sqrt(tempMaxNorm);
+
+		// Step 2. Householder reflections. R is kept in the upper part of
+		// the columns. A negligible column does not consume a row, so the
+		// pivot row of column k may be less than k.
+		int[] tempPivotRows = new int[tempNumColumns];
+		double[] tempDiagonal = new double[tempNumColumns];
+		int tempRow = 0;
+		int tempRank = tempNumColumns;
+		for (int k = 0; k < tempNumColumns; k++) {
+			tempPivotRows[k] = -1;
+			if (tempRow >= tempNumRows) {
+				continue;
+			} // Of if
+
+			// Step 2.1 Pivoting.
+			if (paraPivoting) {
+				int tempBest = k;
+				for (int j = k + 1; j < tempNumColumns; j++) {
+					if (tempNorms[j] > tempNorms[tempBest]) {
+						tempBest = j;
+					} // Of if
+				} // Of for j
+				if (tempBest != k) {
+					double[] tempColumn = tempColumns[k];
+					tempColumns[k] = tempColumns[tempBest];
+					tempColumns[tempBest] = tempColumn;
+					double tempValue = tempNorms[k];
+					tempNorms[k] = tempNorms[tempBest];
+					tempNorms[tempBest] = tempValue;
+					int tempIndex = tempPermutation[k];
+					tempPermutation[k] = tempPermutation[tempBest];
+					tempPermutation[tempBest] = tempIndex;
+				} // Of if
+			} // Of if
+
+			// Step 2.2 The reflection vector for the current column.
+			double[] tempV = tempColumns[k];
+			double tempNorm = 0;
+			for (int i = tempRow; i < tempNumRows; i++) {
+				tempNorm += tempV[i] * tempV[i];
+			} // Of for i
+			tempNorm = Math.sqrt(tempNorm);
+
+			if (tempNorm <= tempTolerance) {
+				if (paraPivoting) {
+					// All remaining columns are negligible.
+					tempRank = k;
+					break;
+				} // Of if
+				// Linear dependent on former columns.
+				continue;
+			} // Of if
+
+			if (tempV[tempRow] > 0) {
+				tempNorm = -tempNorm;
+			} // Of if
+			for (int i = tempRow; i < tempNumRows; i++) {
+				tempV[i] /= -tempNorm;
+			} // Of for i
+			tempV[tempRow] += 1;
+
+			// Step 2.3 Apply to the remaining columns and the output.
+			for (int j = k + 1; j < tempNumColumns; j++) {
+				applyReflection(tempV, tempRow, tempColumns[j]);
+				if (paraPivoting) {
+					tempNorms[j] -= tempColumns[j][tempRow]
+							* tempColumns[j][tempRow];
+				} // Of if
+			} // Of for j
+			applyReflection(tempV, tempRow, tempB);
+			tempDiagonal[k] = tempNorm;
+			tempPivotRows[k] = tempRow;
+			tempRow++;
+		} // Of for k
+
+		// Step 3. Back substitution on R. Dependent columns get 0.
+		double[] tempSolution = new double[tempNumColumns];
+		for (int k = tempRank - 1; k >= 0; k--) {
+			int tempPivotRow = tempPivotRows[k];
+			if (tempPivotRow < 0) {
+				continue;
+			} // Of if
+			double tempValue = tempB[tempPivotRow];
+			for (int j = k + 1; j < tempRank; j++) {
+				tempValue -= tempColumns[j][tempPivotRow] * tempSolution[j];
+			} // Of for j
+			tempSolution[k] = tempValue / tempDiagonal[k];
+		} // Of for k
+
+		// Step 4. Undo the permutation.
+		double[] resultWeights = new double[tempNumColumns];
+		for (int j = 0; j < tempNumColumns; j++) {
+			resultWeights[tempPermutation[j]] = tempSolution[j];
+		} // Of for j
+
+		return resultWeights;
+	}// Of householderQr
+
+	/**
+	 ******************
+	 * Apply the reflection I - v v^T / v_k to a column, starting from row k.
+	 *
+	 * @param paraV
+	 *            The reflection vector.
+	 * @param paraK
+	 *            The first row k.
+	 * @param paraColumn
+	 *            The column to change.
+	 ******************
+	 */
+	static void applyReflection(double[] paraV, int paraK, double[] paraColumn) {
+		double tempSum = 0;
+		for (int i = paraK; i < paraColumn.length; i++) {
+			tempSum += paraV[i] * paraColumn[i];
+		} // Of for i
+		tempSum = -tempSum / paraV[paraK];
+		for (int i = paraK; i < paraColumn.length; i++) {
+			paraColumn[i] += tempSum * paraV[i];
+		} // Of for i
+	}// Of applyReflection
+
+	/**
+	 ******************
+	 * The name of a solver.
+	 *
+	 * @param paraSolver
+	 *            The solver.
+	 * @return The name.
+	 ******************
+	 */
+	public static String solverToString(int paraSolver) {
+		switch (paraSolver) {
+		case CHOLESKY:
+			return "Cholesky";
+		case HOUSEHOLDER_QR:
+			return "Householder QR";
+		case PIVOTED_QR:
+			return "pivoted QR";
+		default:
+			return "unknown";
+		}// Of switch
+	}// Of solverToString
+
+	/**
+	 ******************
+	 * Generate a random dataset y = X w + noise, where the first column is 1.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @param paraNumColumns
+	 *            The number of columns, including the bias column.
+	 * @param paraStream
+	 *            The random stream.
+	 * @return The dataset.
+	 ******************
+	 */
+	static Dataset randomDataset(int paraNumInstances, int paraNumColumns,
+			RandomStream paraStream) {
+		double[][] tempX = new double[paraNumInstances][paraNumColumns];
+		double[][] tempY = new double[paraNumInstances][1];
+		for (int i = 0; i < paraNumInstances; i++) {
+			tempX[i][0] = 1;
+			for (int j = 1; j < paraNumColumns; j++) {
+				tempX[i][j] = paraStream.nextDouble() * 2 - 1;
+			} // Of for j
+			for (int j = 0; j < paraNumColumns; j++) {
+				tempY[i][0] += (j + 1) * tempX[i][j];
+			} // Of for j
+			tempY[i][0] += (paraStream.nextDouble() - 0.5) * 0.1;
+		} // Of for i
+
+		return new Dataset(tempX, tempY);
+	}// Of randomDataset
+
+	/**
+	 ******************
+	 * The maximal absolute difference of two arrays.
+	 *
+	 * @param paraFirstArray
+	 *            The first array.
+	 * @param paraSecondArray
+	 *            The second array.
+	 * @return The difference, infinity if not finite.
+	 ******************
+	 */
+	static double maxDifference(double[] paraFirstArray, double[] paraSecondArray) {
+		double resultDifference = 0;
+		for (int i = 0; i < paraFirstArray.length; i++) {
+			double tempDifference = Math.abs(paraFirstArray[i] - paraSecondArray[i]);
+			if (Double.isNaN(tempDifference)) {
+				return Double.POSITIVE_INFINITY;
+			} // Of if
+			resultDifference = Math.max(resultDifference, tempDifference);
+		} // Of for i
+
+		return resultDifference;
+	}// Of maxDifference
+
+	/**
+	 ******************
+	 * The fitted values of the weights on all instances.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraWeights
+	 *            The weights.
+	 * @return The fitted values.
+	 ******************
+	 */
+	static double[] fittedValues(Dataset paraData, double[] paraWeights) {
+		double[] resultValues = new double[paraData.getNumInstances()];
+		for (int i = 0; i < resultValues.length; i++) {
+			resultValues[i] = paraData.predict(paraWeights, i);
+		} // Of for i
+
+		return resultValues;
+	}// Of fittedValues
+
+	/**
+	 ******************
+	 * The three solvers should agree on full rank data.
+	 *
+	 * @return Passed?
+	 ******************
+	 */
+	public static boolean testSolversAgree() {
+		Dataset tempData = randomDataset(200, 6, new RandomStream(1));
+		IndexView tempView = IndexView.range(200);
+		double[] tempCholesky = solve(tempData, tempView, null, CHOLESKY);
+		double[] tempQr = solve(tempData, tempView, null, HOUSEHOLDER_QR);
+		double[] tempPivoted = solve(tempData, tempView, null, PIVOTED_QR);
+		double tempDifference = Math.max(maxDifference(tempCholesky, tempQr),
+				maxDifference(tempCholesky, tempPivoted));
+
+		boolean resultPassed = tempDifference < 1e-8;
+		System.out.println("Cholesky: " + Arrays.toString(tempCholesky));
+		System.out.println("Full rank, maximal difference among solvers: "
+				+ tempDifference + ", passed: " + resultPassed);
+		return resultPassed;
+	}// Of testSolversAgree
+
+	/**
+	 ******************
+	 * With a duplicated column, the weights are not unique, but the fitted
+	 * values are, and dependent columns get 0 weights.
+	 *
+	 * @return Passed?
+	 ******************
+	 */
+	public static boolean testRankDeficient() {
+		Dataset tempFullData = randomDataset(100, 5, new RandomStream(2));
+		double[][] tempX = new double[100][6];
+		double[][] tempY = new double[100][1];
+		for (int i = 0; i < 100; i++) {
+			for (int j = 0; j < 5; j++) {
+				tempX[i][j] = tempFullData.getValue(i, j);
+			} // Of for j
+			tempX[i][5] = tempX[i][2];
+			tempY[i][0] = tempFullData.getOutput(i);
+		} // Of for i
+		Dataset tempData = new Dataset(tempX, tempY);
+		IndexView tempView = IndexView.range(100);
+
+		double[] tempExpected = fittedValues(tempFullData,
+				solve(tempFullData, tempView, null, CHOLESKY));
+		boolean resultPassed = true;
+		for (int tempSolver = CHOLESKY; tempSolver <= PIVOTED_QR; tempSolver++) {
+			double[] tempWeights = solve(tempData, tempView, null, tempSolver);
+			double tempDifference = maxDifference(tempExpected,
+					fittedValues(tempData, tempWeights));
+			boolean tempZero = (tempWeights[2] == 0) || (tempWeights[5] == 0);
+			resultPassed &= (tempDifference < 1e-8) && tempZero;
+			System.out.println("Rank deficient, " + solverToString(tempSolver)
+					+ ": " + Arrays.toString(tempWeights)
+					+ ", fitted value difference: " + tempDifference);
+		} // Of for tempSolver
+
+		System.out.println("Rank deficient, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testRankDeficient
+
+	/**
+	 ******************
+	 * An instance weight of sqrt(2) is the same as a duplicated instance.
+	 *
+	 * @return Passed?
+	 ******************
+	 */
+	public static boolean testWeighted() {
+		Dataset tempData = randomDataset(60, 4, new RandomStream(3));
+		double[] tempInstanceWeights = new double[60];
+		int[] tempDuplicated = new int[90];
+		for (int i = 0; i < 60; i++) {
+			tempInstanceWeights[i] = 1;
+			tempDuplicated[i] = i;
+		} // Of for i
+		for (int i = 0; i < 30; i++) {
+			tempInstanceWeights[2 * i] = Math.sqrt(2);
+			tempDuplicated[60 + i] = 2 * i;
+		} // Of for i
+
+		boolean resultPassed = true;
+		for (int tempSolver = CHOLESKY; tempSolver <= PIVOTED_QR; tempSolver++) {
+			double[] tempWeighted = solve(tempData, IndexView.range(60),
+					tempInstanceWeights, tempSolver);
+			double[] tempExpected = solve(tempData, new IndexView(tempDuplicated),
+					null, tempSolver);
+			double tempDifference = maxDifference(tempWeighted, tempExpected);
+			resultPassed &= tempDifference < 1e-8;
+			System.out.println("Weighted, " + solverToString(tempSolver)
+					+ ", difference with duplicated instances: " + tempDifference);
+		} // Of for tempSolver
+
+		System.out.println("Weighted, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testWeighted
+
+	/**
+	 ******************
+	 * The incremental normal equation should solve each subset of a random
+	 * sequence as a fresh fit does.
+	 *
+	 * @return Passed?
+	 ******************
+	 */
+	public static boolean testIncremental() {
+		RandomStream tempStream = new RandomStream(4);
+		Dataset tempData = randomDataset(300, 5, tempStream);
+		IndexView tempCandidates = IndexView.range(300);
+		IncrementalNormalEquation tempEquation = new IncrementalNormalEquation(
+				tempData, tempCandidates);
+		int[] tempPositions = new int[300];
+		double tempMaxDifference = 0;
+		for (int tempRound = 0; tempRound < 50; tempRound++) {
+			// Subsets of 50% to 100% of the candidates.
+			double tempFraction = 0.5 + tempStream.nextDouble() * 0.5;
+			int tempNumSelected = 0;
+			for (int i = 0; i < 300; i++) {
+				if (tempStream.nextDouble() < tempFraction) {
+					tempPositions[tempNumSelected] = i;
+					tempNumSelected++;
+				} // Of if
+			} // Of for i
+
+			tempEquation.update(tempPositions, tempNumSelected);
+			double[] tempExpected = solve(tempData, new IndexView(tempPositions,
+					0, tempNumSelected), null, HOUSEHOLDER_QR);
+			tempMaxDifference = Math.max(tempMaxDifference,
+					maxDifference(tempEquation.solve(), tempExpected));
+		} // Of for tempRound
+
+		boolean resultPassed = tempMaxDifference < 1e-8;
+		System.out.println("Incremental, maximal difference in 50 rounds: "
+				+ tempMaxDifference + ", passed: " + resultPassed);
+		return resultPassed;
+	}// Of testIncremental
+
+	/**
+	 ******************
+	 * For unit test.
+	 *
+	 * @param args
+	 *            Not used now.
+	 ******************
+	 */
+	public static void main(String args[]) {
+		boolean tempPassed = testSolversAgree();
+		tempPassed &= testRankDeficient();
+		tempPassed &= testWeighted();
+		tempPassed &= testIncremental();
+		System.out.println("All passed: " + tempPassed);
+	}// Of main
+}// Of class LeastSquaresSolver
@@ -0,0 +1,1229 @@
+package algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import common.Dataset;
+import common.IndexView;
+import common.RandomStream;
+
+/**
+ * Logistic regression on the contiguous dataset, by batch gradient ascent, by
+ * Newton's method (IRLS), by L-BFGS, or by Hogwild stochastic gradient
+ * ascent. For gradient ascent, each cycle is one pass over the instances: the
+ * margin, the sigmoid, the error and the gradient contribution of an instance
+ * are computed together, and the only buffer is the gradient allocated once.
+ * The summation orders are the same as those of the matrix form w += alpha
+ * X^T (y - sigmoid(X w)), hence so are the weights. Each Newton step solves a
+ * weighted least squares problem through the Cholesky path of
+ * LeastSquaresSolver, and typically a few steps suffice. A step is halved
+ * until the log-likelihood does not decrease, since full steps diverge on
+ * (nearly) separable data. L-BFGS keeps only the last m steps and gradient
+ * changes, i.e., O(m d) memory, and suits thousands of columns where a d x d
+ * Newton system does not. Hogwild workers sample instances and update the
+ * shared weights without locks, which suits millions of rows. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 20, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class LogisticTrainer {
+
+	/**
+	 * Batch gradient ascent with a fixed learning rate.
+	 */
+	public static final int GRADIENT_ASCENT = 0;
+
+	/**
+	 * Newton's method, i.e., iteratively reweighted least squares.
+	 */
+	public static final int NEWTON = 1;
+
+	/**
+	 * Limited-memory BFGS with a backtracking line search.
+	 */
+	public static final int LBFGS = 2;
+
+	/**
+	 * Stochastic gradient ascent with lock-free parallel updates (Hogwild).
+	 */
+	public static final int HOGWILD = 3;
+
+	/**
+	 * The default tolerance of Newton's method on the largest weight change.
+	 */
+	public static final double DEFAULT_TOLERANCE = 1e-8;
+
+	/**
+	 * The default maximal number of Newton steps.
+	 */
+	public static final int DEFAULT_MAX_NEWTON_STEPS = 50;
+
+	/**
+	 * The default number of L-BFGS corrections.
+	 */
+	public static final int DEFAULT_HISTORY_SIZE = 10;
+
+	/**
+	 * The default tolerance of L-BFGS on the gradient norm.
+	 */
+	public static final double DEFAULT_GRADIENT_TOLERANCE = 1e-6;
+
+	/**
+	 * The default maximal number of L-BFGS iterations.
+	 */
+	public static final int DEFAULT_MAX_LBFGS_ITERATIONS = 500;
+
+	/**
+	 * The default number of Hogwild epochs.
+	 */
+	public static final int DEFAULT_EPOCHS = 10;
+
+	/**
+	 * The default initial step size of Hogwild.
+	 */
+	public static final double DEFAULT_STEP_SIZE = 0.05;
+
+	/**
+	 * The default step decay of Hogwild.
+	 */
+	public static final double DEFAULT_STEP_DECAY = 1;
+
+	/**
+	 * The sufficient decrease constant of the Armijo condition.
+	 */
+	static final double ARMIJO = 1e-4;
+
+	/**
+	 * The smallest IRLS weight p(1 - p). It keeps the working response finite
+	 * when the sigmoid saturates.
+	 */
+	static final double MIN_CURVATURE = 1e-10;
+
+	/**
+	 * The maximal number of step halvings in one Newton step.
+	 */
+	static final int MAX_HALVINGS = 30;
+
+	/**
+	 * The training method, GRADIENT_ASCENT, NEWTON, LBFGS or HOGWILD.
+	 */
+	int method = GRADIENT_ASCENT;
+
+	/**
+	 * The default learning rate.
+	 */
+	public static final double DEFAULT_ALPHA = 0.001;
+
+	/**
+	 * The default number of cycles.
+	 */
+	public static final int DEFAULT_MAX_CYCLES = 1000;
+
+	/**
+	 * The learning rate.
+	 */
+	double alpha = DEFAULT_ALPHA;
+
+	/**
+	 * The number of cycles.
+	 */
+	int maxCycles = DEFAULT_MAX_CYCLES;
+
+	/**
+	 * Gradient ascent stops when no weight changes more than this in a cycle.
+	 * 0 for always running all cycles.
+	 */
+	double ascentTolerance = 0;
+
+	/**
+	 * The tolerance of Newton's method.
+	 */
+	double tolerance = DEFAULT_TOLERANCE;
+
+	/**
+	 * The maximal number of Newton steps.
+	 */
+	int maxNewtonSteps = DEFAULT_MAX_NEWTON_STEPS;
+
+	/**
+	 * The number of L-BFGS corrections.
+	 */
+	int historySize = DEFAULT_HISTORY_SIZE;
+
+	/**
+	 * The tolerance of L-BFGS.
+	 */
+	double gradientTolerance = DEFAULT_GRADIENT_TOLERANCE;
+
+	/**
+	 * The maximal number of L-BFGS iterations.
+	 */
+	int maxLbfgsIterations = DEFAULT_MAX_LBFGS_ITERATIONS;
+
+	/**
+	 * The number of Hogwild epochs. An epoch draws as many instances as the
+	 * training set has.
+	 */
+	int epochs = DEFAULT_EPOCHS;
+
+	/**
+	 * The initial step size of Hogwild.
+	 */
+	double stepSize = DEFAULT_STEP_SIZE;
+
+	/**
+	 * The step size of epoch e is stepSize / (1 + stepDecay e).
+	 */
+	double stepDecay = DEFAULT_STEP_DECAY;
+
+	/**
+	 * The number of Hogwild threads. 1 for a deterministic run on the calling
+	 * thread.
+	 */
+	int numThreads = 1;
+
+	/**
+	 * The Hogwild workers, created by the first multi-threaded run and kept
+	 * until close(). Their threads are daemons, so an unclosed trainer does not
+	 * keep the virtual machine alive.
+	 */
+	ExecutorService pool;
+
+	/**
+	 * The seed of the Hogwild samples.
+	 */
+	long seed = 0;
+
+	/**
+	 * The number of cycles, Newton steps or L-BFGS iterations of the last
+	 * training.
+	 */
+	int numIterations;
+
+	/**
+	 * The gradient buffer, reused by all cycles and calls.
+	 */
+	double[] gradient;
+
+	/**
+	 * The last L-BFGS steps, one row per correction.
+	 */
+	double[][] stepHistory;
+
+	/**
+	 * The last L-BFGS gradient changes, one row per correction.
+	 */
+	double[][] gradientChangeHistory;
+
+	/**
+	 * The IRLS weights of the instances, reused by all Newton steps.
+	 */
+	double[] curvatures;
+
+	/**
+	 * The working responses of the instances, reused by all Newton steps.
+	 */
+	double[] workingResponses;
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraMethod
+	 *            GRADIENT_ASCENT, NEWTON, LBFGS or HOGWILD.
+	 ******************
+	 */
+	public void setMethod(int paraMethod) {
+		if ((paraMethod != GRADIENT_ASCENT) && (paraMethod != NEWTON)
+				&& (paraMethod != LBFGS) && (paraMethod != HOGWILD)) {
+			throw new IllegalArgumentException("Unknown training method: "
+					+ paraMethod);
+		} // Of if
+		method = paraMethod;
+	}// Of setMethod
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraTolerance
+	 *            Newton's method stops when no weight changes more than this.
+	 * @param paraMaxNewtonSteps
+	 *            The maximal number of Newton steps.
+	 ******************
+	 */
+	public void setNewton(double paraTolerance, int paraMaxNewtonSteps) {
+		tolerance = paraTolerance;
+		maxNewtonSteps = paraMaxNewtonSteps;
+	}// Of setNewton
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraHistorySize
+	 *            The number of corrections m.
+	 * @param paraGradientTolerance
+	 *            L-BFGS stops when the Euclidean norm of the gradient is below
+	 *            this.
+	 * @param paraMaxIterations
+	 *            The maximal number of iterations.
+	 ******************
+	 */
+	public void setLbfgs(int paraHistorySize, double paraGradientTolerance,
+			int paraMaxIterations) {
+		historySize = paraHistorySize;
+		gradientTolerance = paraGradientTolerance;
+		maxLbfgsIterations = paraMaxIterations;
+	}// Of setLbfgs
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraEpochs
+	 *            The number of epochs.
+	 * @param paraStepSize
+	 *            The initial step size.
+	 * @param paraStepDecay
+	 *            The step size of epoch e is paraStepSize / (1 + paraStepDecay
+	 *            e).
+	 ******************
+	 */
+	public void setHogwild(int paraEpochs, double paraStepSize,
+			double paraStepDecay) {
+		epochs = paraEpochs;
+		stepSize = paraStepSize;
+		stepDecay = paraStepDecay;
+	}// Of setHogwild
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraNumThreads
+	 *            The number of Hogwild threads. 1 for a deterministic run on
+	 *            the calling thread.
+	 ******************
+	 */
+	public void setNumThreads(int paraNumThreads) {
+		if (paraNumThreads != numThreads) {
+			close();
+		} // Of if
+		numThreads = paraNumThreads;
+	}// Of setNumThreads
+
+	/**
+	 ******************
+	 * Release the Hogwild workers. The trainer stays usable, and the next
+	 * multi-threaded run creates them again.
+	 ******************
+	 */
+	public void close() {
+		if (pool != null) {
+			pool.shutdownNow();
+			pool = null;
+		} // Of if
+	}// Of close
+
+	/**
+	 ******************
+	 * The Hogwild workers, created on first use.
+	 *
+	 * @return The pool with numThreads threads.
+	 ******************
+	 */
+	ExecutorService getPool() {
+		if (pool == null) {
+			pool = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+				public Thread newThread(Runnable paraRunnable) {
+					Thread resultThread = new Thread(paraRunnable, "Hogwild worker");
+					resultThread.setDaemon(true);
+					return resultThread;
+				}// Of newThread
+			});
+		} // Of if
+		return pool;
+	}// Of getPool
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraSeed
+	 *            The seed of the Hogwild samples.
+	 ******************
+	 */
+	public void setSeed(long paraSeed) {
+		seed = paraSeed;
+	}// Of setSeed
+
+	/**
+	 ******************
+	 * The fingerprint of the configuration, for caching fits (see FitCache).
+	 *
+	 * @return The fingerprint of the method and its parameters.
+	 ******************
+	 */
+	public long getConfigFingerprint() {
+		switch (method) {
+		case NEWTON:
+			return FitCache.config("logistic", method, tolerance, maxNewtonSteps);
+		case LBFGS:
+			return FitCache.config("logistic", method, historySize,
+					gradientTolerance, maxLbfgsIterations);
+		case HOGWILD:
+			return FitCache.config("logistic", method, epochs, stepSize,
+					stepDecay, numThreads, seed);
+		default:
+			return FitCache.config("logistic", method, alpha, maxCycles,
+					ascentTolerance);
+		}// Of switch
+	}// Of getConfigFingerprint
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of cycles, Newton steps or L-BFGS iterations of the
+	 *         last training.
+	 ******************
+	 */
+	public int getNumIterations() {
+		return numIterations;
+	}// Of getNumIterations
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraAlpha
+	 *            The learning rate.
+	 * @param paraMaxCycles
+	 *            The number of cycles.
+	 ******************
+	 */
+	public void setGradientAscent(double paraAlpha, int paraMaxCycles) {
+		alpha = paraAlpha;
+		maxCycles = paraMaxCycles;
+	}// Of setGradientAscent
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraAlpha
+	 *            The learning rate.
+	 * @param paraMaxCycles
+	 *            The maximal number of cycles.
+	 * @param paraTolerance
+	 *            Stop when no weight changes more than this in a cycle. Useful
+	 *            with warm starts.
+	 ******************
+	 */
+	public void setGradientAscent(double paraAlpha, int paraMaxCycles,
+			double paraTolerance) {
+		setGradientAscent(paraAlpha, paraMaxCycles);
+		ascentTolerance = paraTolerance;
+	}// Of setGradientAscent
+
+	/**
+	 ******************
+	 * Train on the given instances.
+	 *
+	 * @param paraData
+	 *            The dataset. Positive outputs are class 1, and others are
+	 *            class 0.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraInitialWeights
+	 *            The initial weights, which are not changed. Null for all
+	 *            ones with gradient ascent, and all zeros otherwise.
+	 * @return The weights.
+	 ******************
+	 */
+	public double[] train(Dataset paraData, IndexView paraView,
+			double[] paraInitialWeights) {
+		int tempNumColumns = paraData.getNumColumns();
+		double[] resultWeights = new double[tempNumColumns];
+		if (paraInitialWeights == null) {
+			if (method == GRADIENT_ASCENT) {
+				for (int j = 0; j < tempNumColumns; j++) {
+					resultWeights[j] = 1;
+				} // Of for j
+			} // Of if
+		} else {
+			System.arraycopy(paraInitialWeights, 0, resultWeights, 0,
+					tempNumColumns);
+		} // Of if
+
+		if (method == NEWTON) {
+			newton(paraData, paraView, resultWeights);
+			return resultWeights;
+		} else if (method == LBFGS) {
+			lbfgs(paraData, paraView, resultWeights);
+			return resultWeights;
+		} else if (method == HOGWILD) {
+			hogwild(paraData, paraView, resultWeights);
+			return resultWeights;
+		} // Of if
+
+		if ((gradient == null) || (gradient.length != tempNumColumns)) {
+			gradient = new double[tempNumColumns];
+		} // Of if
+
+		for (numIterations = 0; numIterations < maxCycles;) {
+			double tempMaxChange = ascend(paraData, paraView, resultWeights);
+			numIterations++;
+			if (tempMaxChange < ascentTolerance) {
+				break;
+			} // Of if
+		} // Of for numIterations
+
+		return resultWeights;
+	}// Of train
+
+	/**
+	 ******************
+	 * One cycle of gradient ascent.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The weights, updated in place.
+	 * @return The largest absolute change of a weight.
+	 ******************
+	 */
+	double ascend(Dataset paraData, IndexView paraView, double[] paraWeights) {
+		int tempNumColumns = paraData.getNumColumns();
+		double[] tempInputs = paraData.getInputs();
+		double[] tempOutputs = paraData.getOutputs();
+
+		// Step 1. The gradient X^T (y - sigmoid(X w)). Four rows are fused so
+		// that each weight and each gradient entry is loaded once for them.
+		// The gradient still receives the rows in order.
+		for (int j = 0; j < tempNumColumns; j++) {
+			gradient[j] = 0;
+		} // Of for j
+		int tempSize = paraView.size();
+		int i = 0;
+		for (; i + 3 < tempSize; i += 4) {
+			int tempInstance0 = paraView.get(i);
+			int tempInstance1 = paraView.get(i + 1);
+			int tempInstance2 = paraView.get(i + 2);
+			int tempInstance3 = paraView.get(i + 3);
+			int tempOffset0 = tempInstance0 * tempNumColumns;
+			int tempOffset1 = tempInstance1 * tempNumColumns;
+			int tempOffset2 = tempInstance2 * tempNumColumns;
+			int tempOffset3 = tempInstance3 * tempNumColumns;
+			double tempMargin0 = 0;
+			double tempMargin1 = 0;
+			double tempMargin2 = 0;
+			double tempMargin3 = 0;
+			for (int j = 0; j < tempNumColumns; j++) {
+				double tempWeight = paraWeights[j];
+				tempMargin0 += tempInputs[tempOffset0 + j] * tempWeight;
+				tempMargin1 += tempInputs[tempOffset1 + j] * tempWeight;
+				tempMargin2 += tempInputs[tempOffset2 + j] * tempWeight;
+				tempMargin3 += tempInputs[tempOffset3 + j] * tempWeight;
+			} // Of for j
+
+			double tempError0 = toLabel(tempOutputs[tempInstance0])
+					- sigmoid(tempMargin0);
+			double tempError1 = toLabel(tempOutputs[tempInstance1])
+					- sigmoid(tempMargin1);
+			double tempError2 = toLabel(tempOutputs[tempInstance2])
+					- sigmoid(tempMargin2);
+			double tempError3 = toLabel(tempOutputs[tempInstance3])
+					- sigmoid(tempMargin3);
+			for (int j = 0; j < tempNumColumns; j++) {
+				gradient[j] = gradient[j] + tempInputs[tempOffset0 + j]
+						* tempError0 + tempInputs[tempOffset1 + j] * tempError1
+						+ tempInputs[tempOffset2 + j] * tempError2
+						+ tempInputs[tempOffset3 + j] * tempError3;
+			} // Of for j
+		} // Of for i
+
+		for (; i < tempSize; i++) {
+			int tempInstance = paraView.get(i);
+			int tempOffset = tempInstance * tempNumColumns;
+			double tempMargin = 0;
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempMargin += tempInputs[tempOffset + j] * paraWeights[j];
+			} // Of for j
+
+			double tempError = toLabel(tempOutputs[tempInstance])
+					- sigmoid(tempMargin);
+			for (int j = 0; j < tempNumColumns; j++) {
+				gradient[j] += tempInputs[tempOffset + j] * tempError;
+			} // Of for j
+		} // Of for i
+
+		// Step 2. Update.
+		double resultMaxChange = 0;
+		for (int j = 0; j < tempNumColumns; j++) {
+			double tempChange = gradient[j] * alpha;
+			paraWeights[j] += tempChange;
+			resultMaxChange = Math.max(resultMaxChange, Math.abs(tempChange));
+		} // Of for j
+
+		return resultMaxChange;
+	}// Of ascend
+
+	/**
+	 ******************
+	 * Newton's method. Each step solves (X^T D X) w' = X^T D z with
+	 * D = diag(p (1 - p)) and the working response z = X w + (y - p) / (p (1 -
+	 * p)), i.e., w' = w + H^-1 g, and then halves w' - w until the
+	 * log-likelihood does not decrease. Non-positive outputs are taken as 0.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The weights, updated in place.
+	 ******************
+	 */
+	void newton(Dataset paraData, IndexView paraView, double[] paraWeights) {
+		int tempNumColumns = paraData.getNumColumns();
+		int tempSize = paraView.size();
+		double[] tempInputs = paraData.getInputs();
+		double[] tempOutputs = paraData.getOutputs();
+		if ((curvatures == null) || (curvatures.length < tempSize)) {
+			curvatures = new double[tempSize];
+			workingResponses = new double[tempSize];
+		} // Of if
+		double[][] tempGram = new double[tempNumColumns][tempNumColumns];
+		double[] tempMoment = new double[tempNumColumns];
+		double[] tempStep = new double[tempNumColumns];
+		double[] tempTrial = new double[tempNumColumns];
+
+		for (numIterations = 0; numIterations < maxNewtonSteps;) {
+			// Step 1. The IRLS weights, the working responses and the
+			// log-likelihood.
+			double tempLikelihood = 0;
+			for (int i = 0; i < tempSize; i++) {
+				int tempInstance = paraView.get(i);
+				int tempOffset = tempInstance * tempNumColumns;
+				double tempMargin = 0;
+				for (int j = 0; j < tempNumColumns; j++) {
+					tempMargin += tempInputs[tempOffset + j] * paraWeights[j];
+				} // Of for j
+
+				double tempProbability = sigmoid(tempMargin);
+				double tempCurvature = Math.max(tempProbability
+						* (1 - tempProbability), MIN_CURVATURE);
+				curvatures[i] = tempCurvature;
+				double tempLabel = toLabel(tempOutputs[tempInstance]);
+				workingResponses[i] = tempMargin + (tempLabel - tempProbability)
+						/ tempCurvature;
+				tempLikelihood += logLikelihood(tempMargin, tempLabel);
+			} // Of for i
+
+			// Step 2. Solve the weighted normal equation.
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempMoment[j] = 0;
+				for (int k = j; k < tempNumColumns; k++) {
+					tempGram[j][k] = 0;
+				} // Of for k
+			} // Of for j
+			LeastSquaresSolver.accumulateNormalEquation(paraData, paraView,
+					curvatures, workingResponses, tempGram, tempMoment);
+			double[] tempNewWeights = LeastSquaresSolver.solveGram(tempGram,
+					tempMoment);
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempStep[j] = tempNewWeights[j] - paraWeights[j];
+			} // Of for j
+			numIterations++;
+
+			// Step 3. Halve the step until the log-likelihood does not
+			// decrease.
+			double tempScale = 1;
+			for (int h = 0; h <= MAX_HALVINGS; h++) {
+				for (int j = 0; j < tempNumColumns; j++) {
+					tempTrial[j] = paraWeights[j] + tempScale * tempStep[j];
+				} // Of for j
+				if (logLikelihood(paraData, paraView, tempTrial) >= tempLikelihood) {
+					break;
+				} // Of if
+				tempScale *= 0.5;
+			} // Of for h
+
+			// Step 4. Converged?
+			double tempMaxChange = 0;
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempMaxChange = Math.max(tempMaxChange,
+						Math.abs(tempTrial[j] - paraWeights[j]));
+				paraWeights[j] = tempTrial[j];
+			} // Of for j
+			if (tempMaxChange < tolerance) {
+				break;
+			} // Of if
+		} // Of for numIterations
+	}// Of newton
+
+	/**
+	 ******************
+	 * L-BFGS on the negative log-likelihood. The direction comes from the
+	 * two-loop recursion over the last m corrections, and the step is halved
+	 * until the Armijo condition holds. Non-positive outputs are taken as 0.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The weights, updated in place.
+	 ******************
+	 */
+	void lbfgs(Dataset paraData, IndexView paraView, double[] paraWeights) {
+		int tempNumColumns = paraData.getNumColumns();
+		if ((stepHistory == null) || (stepHistory.length != historySize)
+				|| (stepHistory[0].length != tempNumColumns)) {
+			stepHistory = new double[historySize][tempNumColumns];
+			gradientChangeHistory = new double[historySize][tempNumColumns];
+		} // Of if
+		if ((gradient == null) || (gradient.length != tempNumColumns)) {
+			gradient = new double[tempNumColumns];
+		} // Of if
+		double[] tempNewGradient = new double[tempNumColumns];
+		double[] tempDirection = new double[tempNumColumns];
+		double[] tempTrial = new double[tempNumColumns];
+		double[] tempStep = new double[tempNumColumns];
+		double[] tempChange = new double[tempNumColumns];
+		double[] tempRhos = new double[historySize];
+		double[] tempAlphas = new double[historySize];
+		int tempNumCorrections = 0;
+		int tempNewest = -1;
+
+		double tempLoss = negativeLogLikelihood(paraData, paraView,
+				paraWeights, gradient);
+		for (numIterations = 0; numIterations < maxLbfgsIterations;) {
+			if (Math.sqrt(dot(gradient, gradient)) < gradientTolerance) {
+				break;
+			} // Of if
+
+			// Step 1. The two-loop recursion, direction = -H g.
+			System.arraycopy(gradient, 0, tempDirection, 0, tempNumColumns);
+			for (int i = 0; i < tempNumCorrections; i++) {
+				int tempSlot = (tempNewest - i + historySize) % historySize;
+				tempAlphas[tempSlot] = tempRhos[tempSlot]
+						* dot(stepHistory[tempSlot], tempDirection);
+				axpy(-tempAlphas[tempSlot], gradientChangeHistory[tempSlot],
+						tempDirection);
+			} // Of for i
+			if (tempNumCorrections > 0) {
+				double[] tempNewestChange = gradientChangeHistory[tempNewest];
+				double tempScale = 1 / (tempRhos[tempNewest]
+						* dot(tempNewestChange, tempNewestChange));
+				for (int j = 0; j < tempNumColumns; j++) {
+					tempDirection[j] *= tempScale;
+				} // Of for j
+			} // Of if
+			for (int i = tempNumCorrections - 1; i >= 0; i--) {
+				int tempSlot = (tempNewest - i + historySize) % historySize;
+				double tempBeta = tempRhos[tempSlot]
+						* dot(gradientChangeHistory[tempSlot], tempDirection);
+				axpy(tempAlphas[tempSlot] - tempBeta, stepHistory[tempSlot],
+						tempDirection);
+			} // Of for i
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempDirection[j] = -tempDirection[j];
+			} // Of for j
+
+			// Not a descent direction, restart from steepest descent.
+			double tempSlope = dot(gradient, tempDirection);
+			if (tempSlope >= 0) {
+				tempNumCorrections = 0;
+				for (int j = 0; j < tempNumColumns; j++) {
+					tempDirection[j] = -gradient[j];
+				} // Of for j
+				tempSlope = -dot(gradient, gradient);
+			} // Of if
+
+			// Step 2. Backtracking line search. The first step has no
+			// curvature information, hence a unit length.
+			double tempStepSize = 1;
+			if (tempNumCorrections == 0) {
+				tempStepSize = Math.min(1, 1 / Math.sqrt(-tempSlope));
+			} // Of if
+			double tempNewLoss = 0;
+			boolean tempAccepted = false;
+			for (int h = 0; h <= MAX_HALVINGS; h++) {
+				for (int j = 0; j < tempNumColumns; j++) {
+					tempTrial[j] = paraWeights[j] + tempStepSize
+							* tempDirection[j];
+				} // Of for j
+				tempNewLoss = negativeLogLikelihood(paraData, paraView,
+						tempTrial, tempNewGradient);
+				if (tempNewLoss <= tempLoss + ARMIJO * tempStepSize
+						* tempSlope) {
+					tempAccepted = true;
+					break;
+				} // Of if
+				tempStepSize *= 0.5;
+			} // Of for h
+			if (!tempAccepted) {
+				break;
+			} // Of if
+
+			// Step 3. Store the correction if the curvature is positive. It
+			// is computed aside since the slot may hold the oldest correction
+			// in use, which must survive a rejection.
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempStep[j] = tempTrial[j] - paraWeights[j];
+				tempChange[j] = tempNewGradient[j] - gradient[j];
+			} // Of for j
+			double tempCurvature = dot(tempStep, tempChange);
+			if (tempCurvature > 1e-10 * dot(tempChange, tempChange)) {
+				int tempSlot = (tempNewest + 1) % historySize;
+				System.arraycopy(tempStep, 0, stepHistory[tempSlot], 0,
+						tempNumColumns);
+				System.arraycopy(tempChange, 0, gradientChangeHistory[tempSlot],
+						0, tempNumColumns);
+				tempRhos[tempSlot] = 1 / tempCurvature;
+				tempNewest = tempSlot;
+				tempNumCorrections = Math.min(tempNumCorrections + 1,
+						historySize);
+			} // Of if
+
+			// Step 4. Move. At the rounding floor of the loss, steps are
+			// accepted without decreasing it, and the gradient tolerance may
+			// never be reached.
+			System.arraycopy(tempTrial, 0, paraWeights, 0, tempNumColumns);
+			System.arraycopy(tempNewGradient, 0, gradient, 0, tempNumColumns);
+			boolean tempStalled = !(tempNewLoss < tempLoss);
+			tempLoss = tempNewLoss;
+			numIterations++;
+			if (tempStalled) {
+				break;
+			} // Of if
+		} // Of for numIterations
+	}// Of lbfgs
+
+	/**
+	 ******************
+	 * Hogwild stochastic gradient ascent. In each epoch, every worker draws
+	 * its share of instances with replacement and updates the shared weights
+	 * without locks. Lost updates are rare when the gradients are sparse or
+	 * the rows are many, and they do not prevent convergence. The workers'
+	 * streams are split from the seed in a fixed order, hence one thread gives
+	 * the same weights on every run. Non-positive outputs are taken as 0.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The shared weights, updated in place.
+	 ******************
+	 */
+	void hogwild(final Dataset paraData, final IndexView paraView,
+			final double[] paraWeights) {
+		RandomStream tempStream = new RandomStream(seed);
+		int tempSize = paraView.size();
+		if (numThreads <= 1) {
+			for (numIterations = 0; numIterations < epochs; numIterations++) {
+				sgdPass(paraData, paraView, paraWeights, tempStream.split(),
+						tempSize, stepSize / (1 + stepDecay * numIterations));
+			} // Of for numIterations
+			return;
+		} // Of if
+
+		ExecutorService tempPool = getPool();
+		List<Future<?>> tempFutures = new ArrayList<Future<?>>(numThreads);
+		try {
+			for (numIterations = 0; numIterations < epochs; numIterations++) {
+				final double tempStepSize = stepSize
+						/ (1 + stepDecay * numIterations);
+				tempFutures.clear();
+				for (int t = 0; t < numThreads; t++) {
+					final RandomStream tempWorkerStream = tempStream.split();
+					final int tempNumSamples = tempSize / numThreads
+							+ ((t < tempSize % numThreads) ? 1 : 0);
+					tempFutures.add(tempPool.submit(new Runnable() {
+						public void run() {
+							sgdPass(paraData, paraView, paraWeights,
+									tempWorkerStream, tempNumSamples,
+									tempStepSize);
+						}// Of run
+					}));
+				} // Of for t
+
+				for (int t = 0; t < numThreads; t++) {
+					tempFutures.get(t).get();
+				} // Of for t
+			} // Of for numIterations
+		} catch (InterruptedException ee) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while training.", ee);
+		} catch (ExecutionException ee) {
+			throw new RuntimeException("A worker failed.", ee.getCause());
+		} // Of try
+	}// Of hogwild
+
+	/**
+	 ******************
+	 * Stochastic gradient ascent on sampled instances, w += step (y - p) x.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The weights, updated in place.
+	 * @param paraStream
+	 *            The random stream for sampling.
+	 * @param paraNumSamples
+	 *            The number of samples.
+	 * @param paraStepSize
+	 *            The step size.
+	 ******************
+	 */
+	static void sgdPass(Dataset paraData, IndexView paraView,
+			double[] paraWeights, RandomStream paraStream, int paraNumSamples,
+			double paraStepSize) {
+		int tempNumColumns = paraData.getNumColumns();
+		double[] tempInputs = paraData.getInputs();
+		double[] tempOutputs = paraData.getOutputs();
+		int tempSize = paraView.size();
+		for (int i = 0; i < paraNumSamples; i++) {
+			int tempInstance = paraView.get(paraStream.nextInt(tempSize));
+			int tempOffset = tempInstance * tempNumColumns;
+			double tempMargin = 0;
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempMargin += tempInputs[tempOffset + j] * paraWeights[j];
+			} // Of for j
+
+			double tempStep = paraStepSize
+					* (toLabel(tempOutputs[tempInstance]) - sigmoid(tempMargin));
+			for (int j = 0; j < tempNumColumns; j++) {
+				paraWeights[j] += tempStep * tempInputs[tempOffset + j];
+			} // Of for j
+		} // Of for i
+	}// Of sgdPass
+
+	/**
+	 ******************
+	 * The negative log-likelihood and its gradient X^T (p - y) in one pass.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The weights.
+	 * @param paraGradient
+	 *            The gradient, overwritten.
+	 * @return The negative log-likelihood.
+	 ******************
+	 */
+	double negativeLogLikelihood(Dataset paraData, IndexView paraView,
+			double[] paraWeights, double[] paraGradient) {
+		int tempNumColumns = paraData.getNumColumns();
+		double[] tempInputs = paraData.getInputs();
+		double[] tempOutputs = paraData.getOutputs();
+		for (int j = 0; j < tempNumColumns; j++) {
+			paraGradient[j] = 0;
+		} // Of for j
+
+		double resultLoss = 0;
+		for (int i = 0; i < paraView.size(); i++) {
+			int tempInstance = paraView.get(i);
+			int tempOffset = tempInstance * tempNumColumns;
+			double tempMargin = 0;
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempMargin += tempInputs[tempOffset + j] * paraWeights[j];
+			} // Of for j
+
+			double tempLabel = toLabel(tempOutputs[tempInstance]);
+			resultLoss -= logLikelihood(tempMargin, tempLabel);
+			double tempError = sigmoid(tempMargin) - tempLabel;
+			for (int j = 0; j < tempNumColumns; j++) {
+				paraGradient[j] += tempInputs[tempOffset + j] * tempError;
+			} // Of for j
+		} // Of for i
+
+		return resultLoss;
+	}// Of negativeLogLikelihood
+
+	/**
+	 ******************
+	 * The inner product of two vectors.
+	 *
+	 * @param paraFirst
+	 *            The first vector.
+	 * @param paraSecond
+	 *            The second vector.
+	 * @return The inner product.
+	 ******************
+	 */
+	static double dot(double[] paraFirst, double[] paraSecond) {
+		double resultSum = 0;
+		for (int j = 0; j < paraFirst.length; j++) {
+			resultSum += paraFirst[j] * paraSecond[j];
+		} // Of for j
+
+		return resultSum;
+	}// Of dot
+
+	/**
+	 ******************
+	 * y += a x.
+	 *
+	 * @param paraScale
+	 *            The scale a.
+	 * @param paraX
+	 *            The vector x.
+	 * @param paraY
+	 *            The vector y, updated in place.
+	 ******************
+	 */
+	static void axpy(double paraScale, double[] paraX, double[] paraY) {
+		for (int j = 0; j < paraX.length; j++) {
+			paraY[j] += paraScale * paraX[j];
+		} // Of for j
+	}// Of axpy
+
+	/**
+	 ******************
+	 * The log-likelihood of the given instances.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The weights.
+	 * @return The log-likelihood.
+	 ******************
+	 */
+	double logLikelihood(Dataset paraData, IndexView paraView,
+			double[] paraWeights) {
+		int tempNumColumns = paraData.getNumColumns();
+		double[] tempInputs = paraData.getInputs();
+		double[] tempOutputs = paraData.getOutputs();
+		double resultLikelihood = 0;
+		for (int i = 0; i < paraView.size(); i++) {
+			int tempInstance = paraView.get(i);
+			int tempOffset = tempInstance * tempNumColumns;
+			double tempMargin = 0;
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempMargin += tempInputs[tempOffset + j] * paraWeights[j];
+			} // Of for j
+			resultLikelihood += logLikelihood(tempMargin,
+					toLabel(tempOutputs[tempInstance]));
+		} // Of for i
+
+		return resultLikelihood;
+	}// Of logLikelihood
+
+	/**
+	 ******************
+	 * The sigmoid function.
+	 *
+	 * @param paraMargin
+	 *            The margin.
+	 * @return 1 / (1 + e^-m).
+	 ******************
+	 */
+	public static double sigmoid(double paraMargin) {
+		return 1.0 / (1 + Math.exp(-paraMargin));
+	}// Of sigmoid
+
+	/**
+	 ******************
+	 * The sigmoid of an array, written to another (or the same) array.
+	 *
+	 * @param paraMargins
+	 *            The margins.
+	 * @param paraResults
+	 *            The results.
+	 * @param paraLength
+	 *            The number of values.
+	 ******************
+	 */
+	public static void sigmoid(double[] paraMargins, double[] paraResults,
+			int paraLength) {
+		for (int i = 0; i < paraLength; i++) {
+			paraResults[i] = 1.0 / (1 + Math.exp(-paraMargins[i]));
+		} // Of for i
+	}// Of sigmoid
+
+	/**
+	 ******************
+	 * The 0/1 label of an output. All methods and the self-paced regressor
+	 * use it, so that -1/1 outputs, e.g., of wdbc_norm_ex.csv, mean the same
+	 * as 0/1 outputs, e.g., of wdbc_norm_ex.arff.
+	 *
+	 * @param paraOutput
+	 *            The output.
+	 * @return 1 for positive outputs, 0 otherwise.
+	 ******************
+	 */
+	static double toLabel(double paraOutput) {
+		return (paraOutput > 0) ? 1 : 0;
+	}// Of toLabel
+
+	/**
+	 ******************
+	 * The log-likelihood of one instance, y m - log(1 + e^m), computed without
+	 * overflow.
+	 *
+	 * @param paraMargin
+	 *            The margin m.
+	 * @param paraOutput
+	 *            The 0/1 output y.
+	 * @return The log-likelihood.
+	 ******************
+	 */
+	static double logLikelihood(double paraMargin, double paraOutput) {
+		return paraOutput * paraMargin - Math.max(paraMargin, 0)
+				- Math.log1p(Math.exp(-Math.abs(paraMargin)));
+	}// Of logLikelihood
+
+	/**
+	 ******************
+	 * Generate a non-separable dataset whose labels are drawn from the
+	 * sigmoid of a known hyperplane.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @param paraNumColumns
+	 *            The number of columns, including the bias column.
+	 * @param paraStream
+	 *            The random stream.
+	 * @return The dataset with 0/1 outputs.
+	 ******************
+	 */
+	static Dataset randomDataset(int paraNumInstances, int paraNumColumns,
+			RandomStream paraStream) {
+		double[][] tempX = new double[paraNumInstances][paraNumColumns];
+		double[][] tempY = new double[paraNumInstances][1];
+		for (int i = 0; i < paraNumInstances; i++) {
+			tempX[i][0] = 1;
+			double tempMargin = 0.5;
+			for (int j = 1; j < paraNumColumns; j++) {
+				tempX[i][j] = paraStream.nextDouble() * 2 - 1;
+				tempMargin += ((j % 2 == 0) ? j : -j) * tempX[i][j];
+			} // Of for j
+			tempY[i][0] = (paraStream.nextDouble() < sigmoid(tempMargin)) ? 1 : 0;
+		} // Of for i
+
+		return new Dataset(tempX, tempY);
+	}// Of randomDataset
+
+	/**
+	 ******************
+	 * Newton and L-BFGS should reach the same maximum of the likelihood.
+	 * Small histories wrap their rings many times.
+	 *
+	 * @return Passed?
+	 ******************
+	 */
+	public static boolean testMethodsAgree() {
+		Dataset tempData = randomDataset(2000, 8, new RandomStream(7));
+		IndexView tempView = IndexView.range(2000);
+
+		LogisticTrainer tempNewton = new LogisticTrainer();
+		tempNewton.setMethod(NEWTON);
+		double[] tempExpected = tempNewton.train(tempData, tempView, null);
+		System.out.println("Newton: " + Arrays.toString(tempExpected)
+				+ " in " + tempNewton.getNumIterations() + " steps.");
+
+		boolean resultPassed = true;
+		int[] tempHistorySizes = { 1, 2, 3, 10 };
+		for (int i = 0; i < tempHistorySizes.length; i++) {
+			LogisticTrainer tempLbfgs = new LogisticTrainer();
+			tempLbfgs.setMethod(LBFGS);
+			tempLbfgs.setLbfgs(tempHistorySizes[i], 1e-8, 1000);
+			double[] tempWeights = tempLbfgs.train(tempData, tempView, null);
+			double tempDifference = 0;
+			for (int j = 0; j < tempWeights.length; j++) {
+				tempDifference = Math.max(tempDifference,
+						Math.abs(tempWeights[j] - tempExpected[j]));
+			} // Of for j
+			boolean tempPassed = tempDifference < 1e-5;
+			resultPassed &= tempPassed;
+			System.out.println("L-BFGS with history " + tempHistorySizes[i] + ": "
+					+ tempLbfgs.getNumIterations() + " iterations, difference "
+					+ tempDifference + ", passed: " + tempPassed);
+		} // Of for i
+
+		System.out.println("Methods agree, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testMethodsAgree
+
+	/**
+	 ******************
+	 * Check that multi-threaded Hogwild runs share one pool until close(),
+	 * and that the weights are close to those of Newton.
+	 *
+	 * @return True if passed.
+	 ******************
+	 */
+	public static boolean testHogwildPool() {
+		Dataset tempData = randomDataset(2000, 8, new RandomStream(7));
+		IndexView tempView = IndexView.range(2000);
+
+		LogisticTrainer tempNewton = new LogisticTrainer();
+		tempNewton.setMethod(NEWTON);
+		double[] tempExpected = tempNewton.train(tempData, tempView, null);
+
+		LogisticTrainer tempTrainer = new LogisticTrainer();
+		tempTrainer.setMethod(HOGWILD);
+		tempTrainer.setHogwild(100, 0.05, 0.1);
+		tempTrainer.setNumThreads(4);
+		double[] tempWeights = tempTrainer.train(tempData, tempView, null);
+		ExecutorService tempFirstPool = tempTrainer.pool;
+		tempWeights = tempTrainer.train(tempData, tempView, tempWeights);
+		boolean resultPassed = (tempFirstPool != null)
+				&& (tempTrainer.pool == tempFirstPool);
+
+		double tempDifference = 0;
+		for (int j = 0; j < tempWeights.length; j++) {
+			tempDifference = Math.max(tempDifference,
+					Math.abs(tempWeights[j] - tempExpected[j]));
+		} // Of for j
+		resultPassed &= tempDifference < 0.5;
+
+		tempTrainer.close();
+		resultPassed &= tempFirstPool.isShutdown() && (tempTrainer.pool == null);
+		tempTrainer.train(tempData, tempView, null);
+		resultPassed &= (tempTrainer.pool != null);
+		tempTrainer.setNumThreads(2);
+		resultPassed &= (tempTrainer.pool == null);
+		tempTrainer.close();
+
+		System.out.println("Hogwild difference " + tempDifference
+				+ ", pool kept, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testHogwildPool
+
+	/**
+	 ******************
+	 * For unit test.
+	 *
+	 * @param args
+	 *            Not used now.
+	 ******************
+	 */
+	public static void main(String args[]) {
+		testMethodsAgree();
+		testHogwildPool();
+	}// Of main
+}// Of class LogisticTrainer
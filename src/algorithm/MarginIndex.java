@@ -0,0 +1,397 @@
+package algorithm;
+
+import java.util.Arrays;
+
+import common.Dataset;
+import common.IndexSorter;
+import common.IndexView;
+import common.RandomStream;
+
+/**
+ * Distances |x w - y| of the training instances for a given hyperplane, with
+ * removed instances kept in a bitset. The index is rebuilt only when the
+ * hyperplane changes, so rounds with the same weights, e.g., warm started
+ * rounds which have converged, do not rescan the data. With sorting on, the
+ * distances are also sorted in ascending order, and instances beyond a
+ * threshold form a suffix, hence a narrow selection is a binary search plus a
+ * walk over the selected (and removed) entries. With sorting off, e.g., for
+ * cold starts where the hyperplane changes every round, a selection is one
+ * filtering scan over the distances. Removals survive rebuilds. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 24, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class MarginIndex {
+
+	/**
+	 * The distance of each instance, indexed by its position in the view.
+	 */
+	double[] distances;
+
+	/**
+	 * Instance positions in ascending order of their distances.
+	 */
+	int[] sortedIndices;
+
+	/**
+	 * The distances in ascending order.
+	 */
+	double[] sortedDistances;
+
+	/**
+	 * Buffer for sorting.
+	 */
+	int[] sortBuffer;
+
+	/**
+	 * Are the distances sorted on each build?
+	 */
+	boolean sorting;
+
+	/**
+	 * Are the distances of the current weights sorted?
+	 */
+	boolean sorted;
+
+	/**
+	 * The weights of the current index. Null if not built.
+	 */
+	double[] indexedWeights;
+
+	/**
+	 * The removed positions, 64 per word.
+	 */
+	long[] removedWords;
+
+	/**
+	 * The number of removed positions.
+	 */
+	int numRemoved;
+
+	/**
+	 * The number of builds, for monitoring.
+	 */
+	int numBuilds;
+
+	/**
+	 ******************
+	 * The first constructor.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 ******************
+	 */
+	public MarginIndex(int paraNumInstances) {
+		distances = new double[paraNumInstances];
+		sortedIndices = new int[paraNumInstances];
+		sortedDistances = new double[paraNumInstances];
+		sortBuffer = new int[paraNumInstances];
+		removedWords = new long[(paraNumInstances + 63) >>> 6];
+		indexedWeights = null;
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * Setter. Sorting pays off when the same weights answer several
+	 * selections, i.e., when later rounds are warm started.
+	 *
+	 * @param paraSorting
+	 *            Are the distances sorted on each build?
+	 ******************
+	 */
+	public void setSorting(boolean paraSorting) {
+		sorting = paraSorting;
+		if (sorting && !sorted) {
+			// Sort on the next build.
+			indexedWeights = null;
+		} // Of if
+	}// Of setSorting
+
+	/**
+	 ******************
+	 * Build the index for the given weights. Nothing is done if the index is
+	 * already built for the same weights.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances, as many as given to the constructor.
+	 * @param paraWeights
+	 *            The hyperplane.
+	 ******************
+	 */
+	public void build(Dataset paraData, IndexView paraView, double[] paraWeights) {
+		if (isBuiltFor(paraWeights)) {
+			return;
+		} // Of if
+
+		// Step 1. Compute distances in parallel.
+		ParallelSelector.computeResiduals(paraData, paraView, paraWeights, distances);
+		indexedWeights = null;
+		sorted = false;
+
+		// Step 2. Sort if needed.
+		if (sorting) {
+			for (int i = 0; i < sortedIndices.length; i++) {
+				sortedIndices[i] = i;
+			} // Of for i
+			IndexSorter.sortByKeys(distances, sortedIndices, 0, distances.length,
+					sortBuffer);
+			for (int i = 0; i < sortedIndices.length; i++) {
+				sortedDistances[i] = distances[sortedIndices[i]];
+			} // Of for i
+			sorted = true;
+		} // Of if
+
+		indexedWeights = Arrays.copyOf(paraWeights, paraWeights.length);
+		numBuilds++;
+	}// Of build
+
+	/**
+	 ******************
+	 * Is the index built for the given weights?
+	 *
+	 * @param paraWeights
+	 *            The hyperplane.
+	 * @return True if built.
+	 ******************
+	 */
+	public boolean isBuiltFor(double[] paraWeights) {
+		return (indexedWeights != null) && Arrays.equals(indexedWeights, paraWeights);
+	}// Of isBuiltFor
+
+	/**
+	 ******************
+	 * Remove an instance from all later selections.
+	 *
+	 * @param paraIndex
+	 *            The position of the instance in the view.
+	 ******************
+	 */
+	public void remove(int paraIndex) {
+		long tempMask = 1L << paraIndex;
+		int tempWord = paraIndex >>> 6;
+		if ((removedWords[tempWord] & tempMask) == 0) {
+			removedWords[tempWord] |= tempMask;
+			numRemoved++;
+		} // Of if
+	}// Of remove
+
+	/**
+	 ******************
+	 * Is the instance removed?
+	 *
+	 * @param paraIndex
+	 *            The position of the instance in the view.
+	 * @return True if removed.
+	 ******************
+	 */
+	public boolean isRemoved(int paraIndex) {
+		return (removedWords[paraIndex >>> 6] & (1L << paraIndex)) != 0;
+	}// Of isRemoved
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of removed instances.
+	 ******************
+	 */
+	public int getNumRemoved() {
+		return numRemoved;
+	}// Of getNumRemoved
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of builds so far.
+	 ******************
+	 */
+	public int getNumBuilds() {
+		return numBuilds;
+	}// Of getNumBuilds
+
+	/**
+	 ******************
+	 * The first sorted position whose distance is greater than the value.
+	 *
+	 * @param paraValue
+	 *            The value.
+	 * @return The position.
+	 ******************
+	 */
+	int upperBound(double paraValue) {
+		int tempLow = 0;
+		int tempHigh = sortedDistances.length;
+		while (tempLow < tempHigh) {
+			int tempMiddle = (tempLow + tempHigh) >>> 1;
+			if (sortedDistances[tempMiddle] <= paraValue) {
+				tempLow = tempMiddle + 1;
+			} else {
+				tempHigh = tempMiddle;
+			} // Of if
+		} // Of while
+
+		return tempLow;
+	}// Of upperBound
+
+	/**
+	 ******************
+	 * Select live instances whose distances are in (paraLow, paraHigh] into a
+	 * given buffer.
+	 *
+	 * @param paraLow
+	 *            The exclusive lower bound.
+	 * @param paraHigh
+	 *            The inclusive upper bound.
+	 * @param paraPositions
+	 *            The buffer, no shorter than the number of instances.
+	 * @return The number of selected positions, stored at the front of the
+	 *         buffer in ascending order.
+	 ******************
+	 */
+	public int selectBetween(double paraLow, double paraHigh, int[] paraPositions) {
+		int resultCount = 0;
+
+		// Walk over a narrow range of the sorted distances, and sort the few
+		// positions.
+		if (sorted) {
+			int tempFrom = upperBound(paraLow);
+			int tempTo = (paraHigh == Double.POSITIVE_INFINITY) ? sortedDistances.length
+					: upperBound(paraHigh);
+			if (tempTo - tempFrom <= (distances.length >>> 3)) {
+				for (int i = tempFrom; i < tempTo; i++) {
+					int tempIndex = sortedIndices[i];
+					if (!isRemoved(tempIndex)) {
+						paraPositions[resultCount] = tempIndex;
+						resultCount++;
+					} // Of if
+				} // Of for i
+				Arrays.sort(paraPositions, 0, resultCount);
+
+				return resultCount;
+			} // Of if
+		} // Of if
+
+		// Otherwise one filtering scan gives the positions in ascending order.
+		for (int i = 0; i < distances.length; i++) {
+			double tempDistance = distances[i];
+			if ((tempDistance > paraLow) && (tempDistance <= paraHigh)
+					&& !isRemoved(i)) {
+				paraPositions[resultCount] = i;
+				resultCount++;
+			} // Of if
+		} // Of for i
+
+		return resultCount;
+	}// Of selectBetween
+
+	/**
+	 ******************
+	 * Select live instances whose distances are greater than the threshold
+	 * into a given buffer.
+	 *
+	 * @param paraThreshold
+	 *            The threshold.
+	 * @param paraPositions
+	 *            The buffer, no shorter than the number of instances.
+	 * @return The number of selected positions, stored at the front of the
+	 *         buffer in ascending order.
+	 ******************
+	 */
+	public int selectBeyond(double paraThreshold, int[] paraPositions) {
+		return selectBetween(paraThreshold, Double.POSITIVE_INFINITY, paraPositions);
+	}// Of selectBeyond
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @param paraIndex
+	 *            The position of the instance in the view.
+	 * @return The distance of the instance.
+	 ******************
+	 */
+	public double getDistance(int paraIndex) {
+		return distances[paraIndex];
+	}// Of getDistance
+
+	/**
+	 ******************
+	 * Selections with and without sorting should match the parallel scan
+	 * exactly, before and after removals.
+	 *
+	 * @return True if passed.
+	 ******************
+	 */
+	public static boolean testAgainstScan() {
+		RandomStream tempStream = new RandomStream(11);
+		// Several chunks of the parallel scan.
+		Dataset tempData = LeastSquaresSolver.randomDataset(20000, 5, tempStream);
+		IndexView tempView = IndexView.range(20000);
+		double[] tempWeights = { 1.2, 1.7, 3.1, 3.9, 5.2 };
+		boolean[] tempRemovalArray = new boolean[20000];
+		MarginIndex tempUnsorted = new MarginIndex(20000);
+		MarginIndex tempSorted = new MarginIndex(20000);
+		tempSorted.setSorting(true);
+		int[] tempExpected = new int[20000];
+		int[] tempActual = new int[20000];
+
+		boolean resultPassed = true;
+		double[] tempThresholds = { 0, 0.1, 0.3, 0.5, 1, 1.6, 100 };
+		for (int tempRound = 0; tempRound < 2; tempRound++) {
+			// The second round removes some instances and changes the weights.
+			if (tempRound == 1) {
+				for (int i = 0; i < 20000; i += 3) {
+					tempRemovalArray[i] = true;
+					tempUnsorted.remove(i);
+					tempSorted.remove(i);
+				} // Of for i
+				tempWeights[0] += 0.1;
+			} // Of if
+			tempUnsorted.build(tempData, tempView, tempWeights);
+			tempSorted.build(tempData, tempView, tempWeights);
+
+			for (int i = 0; i < tempThresholds.length; i++) {
+				int tempNumExpected = ParallelSelector.select(tempData, tempView,
+						tempWeights, tempThresholds[i], false, tempRemovalArray,
+						tempExpected);
+				int[] tempExpectedCopy = Arrays.copyOf(tempExpected, tempNumExpected);
+				int tempNumUnsorted = tempUnsorted.selectBeyond(tempThresholds[i],
+						tempActual);
+				boolean tempSame = Arrays.equals(tempExpectedCopy,
+						Arrays.copyOf(tempActual, tempNumUnsorted));
+				int tempNumSorted = tempSorted.selectBeyond(tempThresholds[i],
+						tempActual);
+				tempSame &= Arrays.equals(tempExpectedCopy,
+						Arrays.copyOf(tempActual, tempNumSorted));
+				resultPassed &= tempSame;
+				System.out.println("Round " + tempRound + ", threshold "
+						+ tempThresholds[i] + ": " + tempNumExpected
+						+ " instances, same as the scan: " + tempSame);
+			} // Of for i
+		} // Of for tempRound
+
+		resultPassed &= !tempUnsorted.sorted && tempSorted.sorted;
+		System.out.println("Margin index, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testAgainstScan
+
+	/**
+	 ******************
+	 * For unit test.
+	 *
+	 * @param args
+	 *            Not used now.
+	 ******************
+	 */
+	public static void main(String args[]) {
+		testAgainstScan();
+	}// Of main
+}// Of class MarginIndex
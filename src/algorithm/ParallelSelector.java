@@ -0,0 +1,341 @@
+package algorithm;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import common.Dataset;
+import common.IndexView;
+
+/**
+ * Residual computation and threshold selection on the fork/join pool. The
+ * instances are split into chunks. Each chunk computes its residuals and
+ * compacts its selected indices in its own region of a buffer, then the
+ * regions are moved to offsets given by the prefix sum of the chunk counts.
+ * Hence the result is in ascending order, the same as a sequential scan.
+ * Small data are processed in the calling thread. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 17, 2020.<br>
+ *         Last modified: August 17, 2020.
+ * @version 1.0
+ */
+public class ParallelSelector {
+
+	/**
+	 * The minimal number of instances of a chunk.
+	 */
+	public static final int MIN_CHUNK_SIZE = 4096;
+
+	/**
+	 * The pool shared by all selections.
+	 */
+	static final ForkJoinPool pool = new ForkJoinPool();
+
+	/**
+	 ******************
+	 * Compute residuals |x w - y| of the instances in the view.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The hyperplane.
+	 * @param paraResiduals
+	 *            The residuals to fill, indexed by positions in the view.
+	 ******************
+	 */
+	public static void computeResiduals(Dataset paraData, IndexView paraView,
+			double[] paraWeights, double[] paraResiduals) {
+		SelectionTask tempTask = new SelectionTask(paraData, paraView,
+				paraWeights, 0, false, null, paraResiduals, null, null, 0,
+				numChunks(paraView.size()), chunkSize(paraView.size()));
+		run(tempTask);
+	}// Of computeResiduals
+
+	/**
+	 ******************
+	 * Select instances by their residuals.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The hyperplane.
+	 * @param paraDistance
+	 *            The distance threshold.
+	 * @param paraClose
+	 *            True for selecting residuals less than the distance, false
+	 *            for greater than the distance.
+	 * @param paraRemovalArray
+	 *            Instances to be ignored, indexed by positions in the view.
+	 *            Null for none.
+	 * @return The positions in the view in ascending order.
+	 ******************
+	 */
+	public static int[] select(Dataset paraData, IndexView paraView,
+			double[] paraWeights, double paraDistance, boolean paraClose,
+			boolean[] paraRemovalArray) {
+		int[] tempPositions = new int[paraView.size()];
+		int tempNumSelection = select(paraData, paraView, paraWeights,
+				paraDistance, paraClose, paraRemovalArray, tempPositions);
+
+		int[] resultSelections = new int[tempNumSelection];
+		System.arraycopy(tempPositions, 0, resultSelections, 0,
+				tempNumSelection);
+		return resultSelections;
+	}// Of select
+
+	/**
+	 ******************
+	 * Select instances by their residuals into a given buffer. Each chunk
+	 * compacts its selections in its own region of the buffer, and the regions
+	 * are then moved to the front. Nothing proportional to the data size is
+	 * allocated.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The hyperplane.
+	 * @param paraDistance
+	 *            The distance threshold.
+	 * @param paraClose
+	 *            True for selecting residuals less than the distance, false
+	 *            for greater than the distance.
+	 * @param paraRemovalArray
+	 *            Instances to be ignored, indexed by positions in the view.
+	 *            Null for none.
+	 * @param paraPositions
+	 *            The buffer for the selected positions, no shorter than the
+	 *            view.
+	 * @return The number of selected positions, stored at the front of the
+	 *         buffer in ascending order.
+	 ******************
+	 */
+	public static int select(Dataset paraData, IndexView paraView,
+			double[] paraWeights, double paraDistance, boolean paraClose,
+			boolean[] paraRemovalArray, int[] paraPositions) {
+		int tempNumChunks = numChunks(paraView.size());
+		int tempChunkSize = chunkSize(paraView.size());
+		int[] tempCounts = new int[tempNumChunks];
+
+		// Step 1. Select and compact in each chunk.
+		run(new SelectionTask(paraData, paraView, paraWeights, paraDistance,
+				paraClose, paraRemovalArray, null, paraPositions, tempCounts,
+				0, tempNumChunks, tempChunkSize));
+
+		// Step 2. Move the regions to their prefix sum offsets. An offset is
+		// never behind the region start, so no unprocessed region is
+		// overwritten.
+		int tempOffset = tempCounts[0];
+		for (int i = 1; i < tempNumChunks; i++) {
+			System.arraycopy(paraPositions, i * tempChunkSize, paraPositions,
+					tempOffset, tempCounts[i]);
+			tempOffset += tempCounts[i];
+		} // Of for i
+
+		return tempOffset;
+	}// Of select
+
+	/**
+	 ******************
+	 * Run the task in the pool, or directly for a single chunk.
+	 *
+	 * @param paraTask
+	 *            The task.
+	 ******************
+	 */
+	static void run(SelectionTask paraTask) {
+		if (paraTask.toChunk - paraTask.fromChunk <= 1) {
+			paraTask.compute();
+		} else {
+			pool.invoke(paraTask);
+		} // Of if
+	}// Of run
+
+	/**
+	 ******************
+	 * The number of chunks.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @return The number of chunks.
+	 ******************
+	 */
+	static int numChunks(int paraNumInstances) {
+		int tempChunkSize = chunkSize(paraNumInstances);
+		return Math.max(1, (paraNumInstances + tempChunkSize - 1)
+				/ tempChunkSize);
+	}// Of numChunks
+
+	/**
+	 ******************
+	 * The chunk size. There are about four chunks for each thread.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @return The chunk size.
+	 ******************
+	 */
+	static int chunkSize(int paraNumInstances) {
+		return Math.max(MIN_CHUNK_SIZE,
+				paraNumInstances / (pool.getParallelism() * 4) + 1);
+	}// Of chunkSize
+
+	/**
+	 * Selection on a range of chunks. Ranges are split in halves until single
+	 * chunks.
+	 */
+	static class SelectionTask extends RecursiveAction {
+		/**
+		 * For serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The dataset.
+		 */
+		Dataset data;
+
+		/**
+		 * The instances.
+		 */
+		IndexView view;
+
+		/**
+		 * The hyperplane.
+		 */
+		double[] weights;
+
+		/**
+		 * The distance threshold.
+		 */
+		double distance;
+
+		/**
+		 * Select residuals less than the distance?
+		 */
+		boolean close;
+
+		/**
+		 * Instances to be ignored. May be null.
+		 */
+		boolean[] removalArray;
+
+		/**
+		 * The residuals to fill. May be null.
+		 */
+		double[] residuals;
+
+		/**
+		 * Selected indices, compacted in the region of each chunk. May be
+		 * null.
+		 */
+		int[] buffer;
+
+		/**
+		 * The number of selected instances of each chunk.
+		 */
+		int[] counts;
+
+		/**
+		 * The first chunk (inclusive).
+		 */
+		int fromChunk;
+
+		/**
+		 * The last chunk (exclusive).
+		 */
+		int toChunk;
+
+		/**
+		 * The chunk size.
+		 */
+		int chunkSize;
+
+		/**
+		 ******************
+		 * The first constructor.
+		 ******************
+		 */
+		SelectionTask(Dataset paraData, IndexView paraView,
+				double[] paraWeights, double paraDistance, boolean paraClose,
+				boolean[] paraRemovalArray, double[] paraResiduals,
+				int[] paraBuffer, int[] paraCounts, int paraFromChunk,
+				int paraToChunk, int paraChunkSize) {
+			data = paraData;
+			view = paraView;
+			weights = paraWeights;
+			distance = paraDistance;
+			close = paraClose;
+			removalArray = paraRemovalArray;
+			residuals = paraResiduals;
+			buffer = paraBuffer;
+			counts = paraCounts;
+			fromChunk = paraFromChunk;
+			toChunk = paraToChunk;
+			chunkSize = paraChunkSize;
+		}// Of the first constructor
+
+		/**
+		 ******************
+		 * Split or compute.
+		 ******************
+		 */
+		protected void compute() {
+			if (toChunk - fromChunk > 1) {
+				int tempMiddle = (fromChunk + toChunk) >>> 1;
+				invokeAll(new SelectionTask(data, view, weights, distance,
+						close, removalArray, residuals, buffer, counts,
+						fromChunk, tempMiddle, chunkSize), new SelectionTask(
+						data, view, weights, distance, close, removalArray,
+						residuals, buffer, counts, tempMiddle, toChunk,
+						chunkSize));
+				return;
+			} // Of if
+
+			int tempStart = fromChunk * chunkSize;
+			int tempEnd = Math.min(tempStart + chunkSize, view.size());
+			int tempNumColumns = data.getNumColumns();
+			double[] tempInputs = data.getInputs();
+			double[] tempOutputs = data.getOutputs();
+			int tempNumSelection = 0;
+			for (int i = tempStart; i < tempEnd; i++) {
+				if ((removalArray != null) && removalArray[i]) {
+					continue;
+				} // Of if
+
+				int tempInstance = view.get(i);
+				int tempOffset = tempInstance * tempNumColumns;
+				double tempPrediction = 0;
+				for (int j = 0; j < tempNumColumns; j++) {
+					tempPrediction += weights[j] * tempInputs[tempOffset + j];
+				} // Of for j
+				double tempDistance = Math.abs(tempPrediction
+						- tempOutputs[tempInstance]);
+
+				if (residuals != null) {
+					residuals[i] = tempDistance;
+				} // Of if
+
+				if (buffer != null) {
+					if (close ? (tempDistance < distance)
+							: (tempDistance > distance)) {
+						buffer[tempStart + tempNumSelection] = i;
+						tempNumSelection++;
+					} // Of if
+				} // Of if
+			} // Of for i
+
+			if (counts != null) {
+				counts[fromChunk] = tempNumSelection;
+			} // Of if
+		}// Of compute
+	}// Of class SelectionTask
+}// Of class ParallelSelector
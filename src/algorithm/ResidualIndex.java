@@ -0,0 +1,409 @@
+package algorithm;
+
+import java.util.Arrays;
+
+import common.Dataset;
+import common.IndexSorter;
+import common.IndexView;
+import common.RandomStream;
+
+/**
+ * Residuals |x w - y| of all instances sorted in ascending order for a given
+ * weight vector. Instances within a threshold form a prefix, hence queries
+ * for different thresholds are answered by binary search instead of
+ * rescanning the data. The residuals are sorted on the first query which
+ * needs the order. They are also the buffer shared by selection strategies.
+ * Quantiles of big data may be estimated from a sample instead of sorting.
+ * <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 16, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class ResidualIndex {
+
+	/**
+	 * The residual of each instance, indexed by its position in the view.
+	 */
+	double[] residuals;
+
+	/**
+	 * Instance positions in ascending order of their residuals.
+	 */
+	int[] sortedIndices;
+
+	/**
+	 * The residuals in ascending order.
+	 */
+	double[] sortedResiduals;
+
+	/**
+	 * Buffer for sorting.
+	 */
+	int[] sortBuffer;
+
+	/**
+	 * The weights of the current index. Null if not built.
+	 */
+	double[] indexedWeights;
+
+	/**
+	 * The instances of the current index.
+	 */
+	IndexView indexedView;
+
+	/**
+	 * Are the residuals of the current weights sorted?
+	 */
+	boolean sorted;
+
+	/**
+	 * The sample for estimating quantiles. Null if not used.
+	 */
+	double[] sampleBuffer;
+
+	/**
+	 ******************
+	 * The first constructor.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 ******************
+	 */
+	public ResidualIndex(int paraNumInstances) {
+		residuals = new double[paraNumInstances];
+		sortedIndices = new int[paraNumInstances];
+		sortedResiduals = new double[paraNumInstances];
+		sortBuffer = new int[paraNumInstances];
+		indexedWeights = null;
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * Build the index for the given weights. Nothing is done if the index is
+	 * already built for the same weights.
+	 *
+	 * @param paraData
+	 *            The dataset.
+	 * @param paraView
+	 *            The instances, as many as given to the constructor.
+	 * @param paraWeights
+	 *            The hyperplane.
+	 ******************
+	 */
+	public void build(Dataset paraData, IndexView paraView, double[] paraWeights) {
+		if (isBuiltFor(paraWeights)) {
+			return;
+		} // Of if
+
+		// Compute residuals in parallel. They are sorted when needed.
+		ParallelSelector.computeResiduals(paraData, paraView, paraWeights, residuals);
+		indexedWeights = Arrays.copyOf(paraWeights, paraWeights.length);
+		indexedView = paraView;
+		sorted = false;
+	}// Of build
+
+	/**
+	 ******************
+	 * Sort the residuals if not yet sorted.
+	 ******************
+	 */
+	void ensureSorted() {
+		if (sorted) {
+			return;
+		} // Of if
+
+		for (int i = 0; i < sortedIndices.length; i++) {
+			sortedIndices[i] = i;
+		} // Of for i
+		IndexSorter.sortByKeys(residuals, sortedIndices, 0, residuals.length, sortBuffer);
+		for (int i = 0; i < sortedIndices.length; i++) {
+			sortedResiduals[i] = residuals[sortedIndices[i]];
+		} // Of for i
+		sorted = true;
+	}// Of ensureSorted
+
+	/**
+	 ******************
+	 * Is the index built for the given weights?
+	 *
+	 * @param paraWeights
+	 *            The hyperplane.
+	 * @return True if built.
+	 ******************
+	 */
+	public boolean isBuiltFor(double[] paraWeights) {
+		return (indexedWeights != null) && Arrays.equals(indexedWeights, paraWeights);
+	}// Of isBuiltFor
+
+	/**
+	 ******************
+	 * Count instances whose residuals are less than the threshold.
+	 *
+	 * @param paraThreshold
+	 *            The threshold.
+	 * @return The number of instances.
+	 ******************
+	 */
+	public int countWithin(double paraThreshold) {
+		ensureSorted();
+
+		// The first position whose residual is not less than the threshold.
+		int tempLow = 0;
+		int tempHigh = sortedResiduals.length;
+		while (tempLow < tempHigh) {
+			int tempMiddle = (tempLow + tempHigh) >>> 1;
+			if (sortedResiduals[tempMiddle] < paraThreshold) {
+				tempLow = tempMiddle + 1;
+			} else {
+				tempHigh = tempMiddle;
+			} // Of if
+		} // Of while
+
+		return tempLow;
+	}// Of countWithin
+
+	/**
+	 ******************
+	 * Select instances whose residuals are less than the threshold.
+	 *
+	 * @param paraThreshold
+	 *            The threshold.
+	 * @return The instance positions in ascending order.
+	 ******************
+	 */
+	public int[] selectWithin(double paraThreshold) {
+		int[] resultSelections = new int[countWithin(paraThreshold)];
+		selectWithin(paraThreshold, resultSelections);
+
+		return resultSelections;
+	}// Of selectWithin
+
+	/**
+	 ******************
+	 * Select instances whose residuals are less than the threshold into a
+	 * given buffer.
+	 *
+	 * @param paraThreshold
+	 *            The threshold.
+	 * @param paraPositions
+	 *            The buffer, no shorter than the number of instances.
+	 * @return The number of selected positions, stored at the front of the
+	 *         buffer in ascending order.
+	 ******************
+	 */
+	public int selectWithin(double paraThreshold, int[] paraPositions) {
+		int tempCount = countWithin(paraThreshold);
+		System.arraycopy(sortedIndices, 0, paraPositions, 0, tempCount);
+		Arrays.sort(paraPositions, 0, tempCount);
+
+		return tempCount;
+	}// Of selectWithin
+
+	/**
+	 ******************
+	 * The smallest threshold within which the given fraction of instances are.
+	 *
+	 * @param paraFraction
+	 *            The fraction in (0, 1].
+	 * @return The threshold.
+	 ******************
+	 */
+	public double thresholdForFraction(double paraFraction) {
+		return thresholdForCount((int) Math.ceil(paraFraction * residuals.length));
+	}// Of thresholdForFraction
+
+	/**
+	 ******************
+	 * The smallest threshold within which the given number of instances are.
+	 * Ties may bring more.
+	 *
+	 * @param paraCount
+	 *            The number of instances.
+	 * @return The threshold.
+	 ******************
+	 */
+	public double thresholdForCount(int paraCount) {
+		if (paraCount <= 0) {
+			return 0;
+		} // Of if
+		ensureSorted();
+		if (paraCount > sortedResiduals.length) {
+			paraCount = sortedResiduals.length;
+		} // Of if
+
+		// Residuals are compared with "less than".
+		return Math.nextUp(sortedResiduals[paraCount - 1]);
+	}// Of thresholdForCount
+
+	/**
+	 ******************
+	 * Estimate the threshold within which the given number of instances are
+	 * from an evenly strided sample of the residuals. Only the sample is
+	 * sorted, hence big data are not sorted for a quantile. The view is
+	 * expected to be in random order, e.g., a randomized training set, so
+	 * that the sample is random.
+	 *
+	 * @param paraCount
+	 *            The number of instances.
+	 * @param paraSampleSize
+	 *            The sample size. The exact threshold is computed if the
+	 *            sample is not smaller than the data.
+	 * @return The threshold.
+	 ******************
+	 */
+	public double estimateThresholdForCount(int paraCount, int paraSampleSize) {
+		int tempNumInstances = residuals.length;
+		if ((paraSampleSize >= tempNumInstances) || sorted) {
+			return thresholdForCount(paraCount);
+		} // Of if
+		if (paraCount <= 0) {
+			return 0;
+		} // Of if
+
+		// Step 1. The sample, reused for the same size.
+		if ((sampleBuffer == null) || (sampleBuffer.length != paraSampleSize)) {
+			sampleBuffer = new double[paraSampleSize];
+		} // Of if
+		double tempStride = (double) tempNumInstances / paraSampleSize;
+		for (int i = 0; i < paraSampleSize; i++) {
+			sampleBuffer[i] = residuals[(int) (i * tempStride)];
+		} // Of for i
+		Arrays.sort(sampleBuffer);
+
+		// Step 2. The same rank in the sample.
+		int tempRank = (int) Math.ceil((double) paraCount * paraSampleSize / tempNumInstances);
+		if (tempRank < 1) {
+			tempRank = 1;
+		} else if (tempRank > paraSampleSize) {
+			tempRank = paraSampleSize;
+		} // Of if
+
+		return Math.nextUp(sampleBuffer[tempRank - 1]);
+	}// Of estimateThresholdForCount
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @param paraIndex
+	 *            The position of the instance in the view.
+	 * @return The residual of the instance.
+	 ******************
+	 */
+	public double getResidual(int paraIndex) {
+		return residuals[paraIndex];
+	}// Of getResidual
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The residuals indexed by positions in the view. The array is
+	 *         shared and overwritten by the next build.
+	 ******************
+	 */
+	public double[] getResiduals() {
+		return residuals;
+	}// Of getResiduals
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of instances.
+	 ******************
+	 */
+	public int size() {
+		return residuals.length;
+	}// Of size
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The instances of the current index.
+	 ******************
+	 */
+	public IndexView getView() {
+		return indexedView;
+	}// Of getView
+
+	/**
+	 ******************
+	 * Selections and counts should match the parallel scan, and quantile
+	 * thresholds should cover the requested numbers of instances.
+	 *
+	 * @return Passed?
+	 ******************
+	 */
+	public static boolean testAgainstScan() {
+		RandomStream tempStream = new RandomStream(5);
+		// Several chunks of the parallel scan.
+		Dataset tempData = LeastSquaresSolver.randomDataset(20000, 5, tempStream);
+		IndexView tempView = IndexView.range(20000);
+		double[] tempWeights = { 1.2, 1.7, 3.1, 3.9, 5.2 };
+		ResidualIndex tempIndex = new ResidualIndex(20000);
+		tempIndex.build(tempData, tempView, tempWeights);
+		int[] tempExpected = new int[20000];
+		int[] tempActual = new int[20000];
+
+		boolean resultPassed = true;
+		double[] tempThresholds = { 0, 0.01, 0.1, 0.3, 0.5, 1, 100 };
+		for (int i = 0; i < tempThresholds.length; i++) {
+			int tempNumExpected = ParallelSelector.select(tempData, tempView,
+					tempWeights, tempThresholds[i], true, null, tempExpected);
+			int tempNumActual = tempIndex.selectWithin(tempThresholds[i], tempActual);
+			boolean tempSame = (tempNumExpected == tempNumActual)
+					&& (tempNumExpected == tempIndex.countWithin(tempThresholds[i]))
+					&& Arrays.equals(Arrays.copyOf(tempExpected, tempNumExpected),
+							Arrays.copyOf(tempActual, tempNumActual));
+			resultPassed &= tempSame;
+			System.out.println("Threshold " + tempThresholds[i] + ": "
+					+ tempNumActual + " instances, same as the scan: " + tempSame);
+		} // Of for i
+
+		int[] tempCounts = { 1, 10, 100, 1000, 10000, 19999, 20000 };
+		for (int i = 0; i < tempCounts.length; i++) {
+			double tempThreshold = tempIndex.thresholdForCount(tempCounts[i]);
+			int tempCovered = tempIndex.countWithin(tempThreshold);
+			int tempBelow = tempIndex.countWithin(Math.nextAfter(tempThreshold,
+					Double.NEGATIVE_INFINITY));
+			boolean tempExact = (tempCovered >= tempCounts[i])
+					&& (tempBelow < tempCounts[i]);
+
+			ResidualIndex tempUnsorted = new ResidualIndex(20000);
+			tempUnsorted.build(tempData, tempView, tempWeights);
+			int tempEstimated = tempIndex.countWithin(tempUnsorted
+					.estimateThresholdForCount(tempCounts[i], 4096));
+			// Three standard deviations of the sampled quantile in instances,
+			// plus the rounding of the sample rank.
+			double tempTolerance = 3 * Math.sqrt((double) tempCounts[i]
+					* (20000 - tempCounts[i]) / 4096) + 20000.0 / 4096;
+			boolean tempClose = Math.abs(tempEstimated - tempCounts[i]) <= tempTolerance;
+			resultPassed &= tempExact && tempClose;
+			System.out.println("Count " + tempCounts[i] + ": exact threshold covers "
+					+ tempCovered + ", sampled threshold covers " + tempEstimated
+					+ " within " + tempTolerance + ", passed: " + (tempExact && tempClose));
+		} // Of for i
+
+		System.out.println("Residual index, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testAgainstScan
+
+	/**
+	 ******************
+	 * For unit test.
+	 *
+	 * @param args
+	 *            Not used now.
+	 ******************
+	 */
+	public static void main(String args[]) {
+		testAgainstScan();
+	}// Of main
+}// Of class ResidualIndex
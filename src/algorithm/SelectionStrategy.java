@@ -0,0 +1,91 @@
+package algorithm;
+
+/**
+ * A rule of self-paced selection on the residuals of the training instances.
+ * The residuals are those of a ResidualIndex, a buffer shared by all
+ * strategies, and the selections are written to buffers given by the
+ * regressor, hence a round allocates no arrays. The pace grows from round to
+ * round, and its meaning depends on the strategy, e.g., a threshold or a
+ * fraction. A schedule of coverage levels is turned into paces by the
+ * strategy itself. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 27, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public interface SelectionStrategy {
+
+	/**
+	 ******************
+	 * Select instances.
+	 *
+	 * @param paraIndex
+	 *            The residuals of the training instances for the current
+	 *            weights.
+	 * @param paraPace
+	 *            The pace of this round.
+	 * @param paraPositions
+	 *            The buffer of the selected positions, no shorter than the
+	 *            index.
+	 * @param paraRowWeights
+	 *            The buffer of the row weights of the selected positions, in
+	 *            the same order, for weighted strategies. A row weight is the
+	 *            square root of the importance of the instance, since the
+	 *            least squares solver squares it.
+	 * @return The number of selected positions, stored at the front of the
+	 *         buffer in ascending order.
+	 ******************
+	 */
+	int select(ResidualIndex paraIndex, double paraPace, int[] paraPositions,
+			double[] paraRowWeights);
+
+	/**
+	 ******************
+	 * Count the instances which would be selected, if it is cheap.
+	 *
+	 * @param paraIndex
+	 *            The residuals of the training instances.
+	 * @param paraPace
+	 *            The pace.
+	 * @return The number of instances, or -1 if unknown. Selections of
+	 *         strategies with known counts grow with the pace, hence an equal
+	 *         count means the same selection.
+	 ******************
+	 */
+	int count(ResidualIndex paraIndex, double paraPace);
+
+	/**
+	 ******************
+	 * The pace selecting the given number of instances, for schedules of
+	 * coverage levels.
+	 *
+	 * @param paraIndex
+	 *            The residuals of the training instances for the current
+	 *            weights.
+	 * @param paraCount
+	 *            The number of instances, at most the size of the index.
+	 * @param paraSampleSize
+	 *            Residual quantiles of indices larger than this may be
+	 *            estimated from a sample of this size. Non-positive for
+	 *            always exact.
+	 * @return The pace. Ties may bring more instances, and estimates may be
+	 *         off by a few.
+	 * @throws UnsupportedOperationException
+	 *             If the pace is not a coverage level.
+	 ******************
+	 */
+	double paceForCount(ResidualIndex paraIndex, int paraCount, int paraSampleSize);
+
+	/**
+	 ******************
+	 * Are the row weights used?
+	 *
+	 * @return True if the selected instances are weighted.
+	 ******************
+	 */
+	boolean isWeighted();
+}// Of interface SelectionStrategy
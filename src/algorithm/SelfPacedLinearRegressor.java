@@ -1,10 +1,11 @@
 package algorithm;
 
-import java.io.FileReader;
-import weka.core.Instances;
-
-import Jama.*;
+import java.util.Arrays;
 
+import common.Dataset;
+import common.DatasetCache;
+import common.IndexView;
+import common.RandomStream;
 import common.SimpleTools;
 
 /**
@@ -15,41 +16,38 @@ import common.SimpleTools;
  *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
  *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
  *         Data Created: July 26, 2020.<br>
- *         Last modified: August 15, 2020.
+ *         Last modified: August 27, 2020.
  * @version 1.0
  */
 
 public class SelfPacedLinearRegressor {
 
 	/**
-	 * The whole input data. The first column is always 1.
-	 */
-	double[][] wholeX;
-
-	/**
-	 * The whole output data.
+	 * The distance threshold grows by a fixed increment in each round.
 	 */
-	double[][] wholeY;
+	public static final int INCREMENT_SCHEDULE = 0;
 
 	/**
-	 * The training data input.
+	 * Each round covers a target fraction of the data under the current
+	 * weights. The selection strategy turns the fraction into its pace, e.g.,
+	 * a residual quantile for thresholds.
 	 */
-	double[][] trainingX;
+	public static final int QUANTILE_SCHEDULE = 1;
 
 	/**
-	 * The training data output.
+	 * The whole data stored contiguously. The first input column is always 1.
 	 */
-	double[][] trainingY;
+	Dataset dataset;
 
 	/**
-	 * The testing data input.
+	 * The training instances.
 	 */
-	double[][] testingX;
+	IndexView trainingView;
 
 	/**
-	 * The testing data output.
+	 * The testing instances.
 	 */
-	double[][] testingY;
+	IndexView testingView;
 
 	/**
 	 * The weights for the training hyper-space.
@@ -71,6 +69,90 @@ public class SelfPacedLinearRegressor {
 	 */
 	double neighborFractionThreshold = 0.9;
 
+	/**
+	 * The threshold schedule, INCREMENT_SCHEDULE or QUANTILE_SCHEDULE.
+	 */
+	int thresholdSchedule = INCREMENT_SCHEDULE;
+
+	/**
+	 * The fraction covered by the first round of the quantile schedule.
+	 */
+	double coverageFractionInitial = 0.5;
+
+	/**
+	 * The fraction increment of the quantile schedule.
+	 */
+	double coverageFractionIncrement = 0.2;
+
+	/**
+	 * Quantiles of training sets larger than this are estimated from a sample
+	 * of this size. Non-positive for always exact.
+	 */
+	int quantileSampleSize = 65536;
+
+	/**
+	 * The maximal number of refits of a round.
+	 */
+	int maxInnerIterations = 100;
+
+	/**
+	 * The number of rounds of the last training, for monitoring.
+	 */
+	int numRounds;
+
+	/**
+	 * The number of instances selected by the last round, for monitoring.
+	 */
+	int numSelectedInstances;
+
+	/**
+	 * The number of thresholds skipped by the last training, for monitoring.
+	 */
+	int numSkippedThresholds;
+
+	/**
+	 * The fingerprints of the subsets fitted in the current round.
+	 */
+	SubsetHistory subsetHistory = new SubsetHistory(8);
+
+	/**
+	 * The fits of subsets seen before, possibly shared with other regressors.
+	 * Null for not caching.
+	 */
+	FitCache fitCache;
+
+	/**
+	 * The least squares solver.
+	 */
+	int solver = LeastSquaresSolver.CHOLESKY;
+
+	/**
+	 * Sorted residuals of the training data for the current weights.
+	 */
+	ResidualIndex residualIndex;
+
+	/**
+	 * The positions of the selected training instances, reused by all rounds.
+	 */
+	int[] selectionBuffer;
+
+	/**
+	 * The row weights of the selected training instances for weighted
+	 * strategies, reused by all rounds.
+	 */
+	double[] rowWeightBuffer;
+
+	/**
+	 * The selected training instances for weighted strategies. Its index
+	 * array is reused by all rounds.
+	 */
+	IndexView selectedView;
+
+	/**
+	 * The selection strategy. The distance thresholds are its paces.
+	 */
+	SelectionStrategy strategy = new ThresholdStrategy();
+
 	/**
 	 ****************** 
 	 * The first constructor.
@@ -80,39 +162,31 @@ public class SelfPacedLinearRegressor {
 	 ****************** 
 	 */
 	public SelfPacedLinearRegressor(String paraTrainingFilename) {
-		Instances data = null;
-		// Step 1. Read training set.
+		// Step 1. Read training set. The binary cache next to the file is
+		// used if it is up to date, otherwise Weka parses the file.
 		try {
-			FileReader tempFileReader = new FileReader(paraTrainingFilename);
-			data = new Instances(tempFileReader);
-			tempFileReader.close();
+			dataset = DatasetCache.load(paraTrainingFilename);
 		} catch (Exception ee) {
-			System.out.println("Cannot read the file: " + paraTrainingFilename
-					+ "\r\n" + ee);
+			System.out.println("Cannot read the file: " + paraTrainingFilename + "\r\n" + ee);
 			System.exit(0);
 		} // Of try
 
-		int tempNumInstances = data.numInstances();
-		int tempNumAttributes = data.numAttributes();
-
-		wholeX = new double[tempNumInstances][tempNumAttributes];
-		wholeY = new double[tempNumInstances][1];
-
-		for (int i = 0; i < tempNumInstances; i++) {
-			// The first element is always set to 1.
-			wholeX[i][0] = 1;
-			wholeY[i][0] = data.instance(i).value(tempNumAttributes - 1);
-			for (int j = 0; j < tempNumAttributes - 1; j++) {
-				wholeX[i][j + 1] = data.instance(i).value(j);
-			} // Of for j
-		} // Of for i
-
-		// System.out.println("The input space is: " +
-		// Arrays.deepToString(wholeX));
-		// System.out.println("The output space is: " +
-		// Arrays.toString(wholeY));
+		// System.out.println("The data are: " + dataset);
 	}// Of the first constructor
 
+	/**
+	 ****************** 
+	 * The second constructor. Regressors may share the dataset since it is
+	 * not changed.
+	 * 
+	 * @param paraDataset
+	 *            The dataset.
+	 ****************** 
+	 */
+	public SelfPacedLinearRegressor(Dataset paraDataset) {
+		dataset = paraDataset;
+	}// Of the second constructor
+
 	/**
 	 ****************** 
 	 * Setter.
@@ -128,6 +202,117 @@ public class SelfPacedLinearRegressor {
 		distanceThresholdIncrement = paraIncrement;
 	}// Of setDistanceThresholds
 
+	/**
+	 ****************** 
+	 * Use the quantile schedule. The rounds cover the fractions initial,
+	 * initial + increment, ..., up to the neighbor fraction threshold, which
+	 * ends the training, regardless of the scale of the outputs. The
+	 * selection strategy should support coverage levels, which SpldStrategy
+	 * does not.
+	 * 
+	 * @param paraInitial
+	 *            The fraction covered by the first round.
+	 * @param paraIncrement
+	 *            The fraction increment.
+	 ****************** 
+	 */
+	public void setQuantileSchedule(double paraInitial, double paraIncrement) {
+		if ((paraInitial <= 0) || (paraIncrement <= 0)) {
+			throw new IllegalArgumentException("Coverage fractions must be positive: "
+					+ paraInitial + ", " + paraIncrement);
+		} // Of if
+		thresholdSchedule = QUANTILE_SCHEDULE;
+		coverageFractionInitial = paraInitial;
+		coverageFractionIncrement = paraIncrement;
+	}// Of setQuantileSchedule
+
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraSchedule
+	 *            INCREMENT_SCHEDULE or QUANTILE_SCHEDULE.
+	 ****************** 
+	 */
+	public void setThresholdSchedule(int paraSchedule) {
+		if ((paraSchedule != INCREMENT_SCHEDULE) && (paraSchedule != QUANTILE_SCHEDULE)) {
+			throw new IllegalArgumentException("Unknown threshold schedule: " + paraSchedule);
+		} // Of if
+		thresholdSchedule = paraSchedule;
+	}// Of setThresholdSchedule
+
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraSampleSize
+	 *            Quantiles of training sets larger than this are estimated
+	 *            from a sample of this size. Non-positive for always exact.
+	 ****************** 
+	 */
+	public void setQuantileSampleSize(int paraSampleSize) {
+		quantileSampleSize = paraSampleSize;
+	}// Of setQuantileSampleSize
+
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraMaxInnerIterations
+	 *            The maximal number of refits of a round. A round stops
+	 *            earlier when the subset repeats.
+	 ****************** 
+	 */
+	public void setMaxInnerIterations(int paraMaxInnerIterations) {
+		if (paraMaxInnerIterations < 1) {
+			throw new IllegalArgumentException(
+					"The maximal number of inner iterations must be positive: "
+							+ paraMaxInnerIterations);
+		} // Of if
+		maxInnerIterations = paraMaxInnerIterations;
+	}// Of setMaxInnerIterations
+
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraFitCache
+	 *            The cache consulted before each fit. Null for not caching.
+	 ****************** 
+	 */
+	public void setFitCache(FitCache paraFitCache) {
+		fitCache = paraFitCache;
+	}// Of setFitCache
+
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraSolver
+	 *            The least squares solver, e.g.,
+	 *            LeastSquaresSolver.PIVOTED_QR for subsets that may be rank
+	 *            deficient. With CHOLESKY, hard selections are fitted through
+	 *            the incremental normal equation, and the other solvers fit
+	 *            each selected subset from the data.
+	 ****************** 
+	 */
+	public void setSolver(int paraSolver) {
+		solver = paraSolver;
+	}// Of setSolver
+
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraStrategy
+	 *            The selection strategy, e.g., a FractionStrategy for big
+	 *            data.
+	 ****************** 
+	 */
+	public void setSelectionStrategy(SelectionStrategy paraStrategy) {
+		strategy = paraStrategy;
+	}// Of setSelectionStrategy
+
 	/**
 	 ****************** 
 	 * Randomize the training and testing sets.
@@ -137,36 +322,38 @@ public class SelfPacedLinearRegressor {
 	 ****************** 
 	 */
 	public void randomizeTrainingTesting(double paraTrainingFraction) {
-		// Step 1. Randomize a sequence.
-		int[] tempSequence = SimpleTools.getRandomOrder(wholeY.length);
-
-		// Step 2. Copy the training set.
-		int tempTrainingSize = (int) (wholeY.length * paraTrainingFraction);
-		// For X, only space for references.
-		trainingX = new double[tempTrainingSize][];
-		trainingY = new double[tempTrainingSize][];
-		for (int i = 0; i < tempTrainingSize; i++) {
-			trainingX[i] = wholeX[tempSequence[i]];
-			trainingY[i] = wholeY[tempSequence[i]];
-		} // Of for i
-
-		// Step 3. Copy the testing set.
-		int tempTestingSize = wholeY.length - tempTrainingSize;
-		testingX = new double[tempTestingSize][];
-		testingY = new double[tempTestingSize][];
-		for (int i = 0; i < tempTestingSize; i++) {
-			testingX[i] = wholeX[tempSequence[tempTrainingSize + i]];
-			testingY[i] = wholeY[tempSequence[tempTrainingSize + i]];
-		} // Of for i
+		// Only the seed is drawn from the shared random object.
+		randomizeTrainingTesting(paraTrainingFraction, new RandomStream(
+				SimpleTools.random.nextLong()));
+	}// Of randomizeTrainingTesting
 
-		// System.out.println("The training X is: " +
-		// Arrays.deepToString(trainingX));
-		// System.out.println("The training Y is: " +
-		// Arrays.deepToString(trainingY));
-		// System.out.println("The testing X is: " +
-		// Arrays.deepToString(testingX));
-		// System.out.println("The testing Y is: " +
-		// Arrays.deepToString(testingY));
+	/**
+	 ****************** 
+	 * Randomize the training and testing sets with the given stream.
+	 * 
+	 * @param paraTrainingFraction
+	 *            The fraction of the training set.
+	 * @param paraStream
+	 *            The random stream of this split.
+	 ****************** 
+	 */
+	public void randomizeTrainingTesting(double paraTrainingFraction,
+			RandomStream paraStream) {
+		// Step 1. Randomize a sequence.
+		int tempNumInstances = dataset.getNumInstances();
+		int[] tempSequence = SimpleTools.getRandomOrder(tempNumInstances,
+				paraStream);
+
+		// Step 2. The training and testing sets are views on the sequence,
+		// and no data are copied.
+		int tempTrainingSize = (int) (tempNumInstances * paraTrainingFraction);
+		trainingView = new IndexView(tempSequence, 0, tempTrainingSize);
+		testingView = new IndexView(tempSequence, tempTrainingSize,
+				tempNumInstances - tempTrainingSize);
+		residualIndex = new ResidualIndex(tempTrainingSize);
+		selectionBuffer = new int[tempTrainingSize];
+		rowWeightBuffer = new double[tempTrainingSize];
+		selectedView = new IndexView(new int[tempTrainingSize], 0, 0);
 	}// Of randomizeTrainingTesting
 
 	/**
@@ -177,8 +364,18 @@ public class SelfPacedLinearRegressor {
 	public double[] train() {
 		// Step 1. Build the original hyperplane.
 		SimpleTools.processTrackingOutput("Training ... the training set has "
-				+ trainingX.length + " instances.");
-		weights = train(trainingX, trainingY);
+				+ trainingView.size() + " instances.");
+		// The normal equation is maintained incrementally since consecutive
+		// subsets are similar.
+		IncrementalNormalEquation tempEquation = new IncrementalNormalEquation(
+				dataset, trainingView);
+		for (int i = 0; i < selectionBuffer.length; i++) {
+			selectionBuffer[i] = i;
+		} // Of for i
+		long tempFittedFingerprint = SubsetHistory.fingerprint(trainingView,
+				selectionBuffer, selectionBuffer.length, null);
+		weights = fit(tempEquation, selectionBuffer.length, false,
+				tempFittedFingerprint);
 		// System.out.println("All data, the weights are: " +
 		// Arrays.toString(weights));
 		double tempMae = computeTestingMae();
@@ -192,61 +389,181 @@ public class SelfPacedLinearRegressor {
 
 		// Step 2. Increase distance gradually.
 		double tempDistanceThreshold = distanceThresholdInitial;
+		double tempCoverageFraction = coverageFractionInitial;
 		double tempNumNeighbors = 0;
+		numSkippedThresholds = 0;
 		for (int i = 0; i < 10; i++) {
-			// Step 2.1 Iterate until converge
+			// Step 2.0 The pace covering the target fraction under the
+			// current weights.
+			numRounds = i + 1;
+			if (thresholdSchedule == QUANTILE_SCHEDULE) {
+				tempDistanceThreshold = quantilePace(weights, tempCoverageFraction);
+			} // Of if
+
+			// Step 2.1 Iterate until converge. The fit is determined by the
+			// subset, hence the loop stops when the subset repeats: the last
+			// one means convergence, and an earlier one means a cycle.
 			double[] tempOldWeights = weights;
-			while (true) {
-				// Step 2.1.1 Select a subset.
-				int[] tempIndices = select(weights, tempDistanceThreshold);
-				tempNumNeighbors = tempIndices.length;
-
-				double[][] tempX = new double[tempIndices.length][];
-				double[][] tempY = new double[tempIndices.length][];
-				// System.out.println("TrainingY: " +
-				// Arrays.deepToString(trainingY));
-				// Copy data
-				for (int j = 0; j < tempX.length; j++) {
-					// System.out.print(", " + tempIndices[j] + ": " +
-					// trainingY[tempIndices[j]][0]);
-					tempX[j] = trainingX[tempIndices[j]];
-					tempY[j] = trainingY[tempIndices[j]];
-				} // Of for j
-
-				// Step 2.1.2 Update the weights
-				weights = train(tempX, tempY);
+			subsetHistory.clear();
+			subsetHistory.record(tempFittedFingerprint);
+			// Otherwise the budget has run out right after a refit.
+			boolean tempStopped = false;
+			for (int j = 0; j < maxInnerIterations; j++) {
+				// Step 2.1.1 Select a subset into the reused buffer.
+				int tempNumSelected = select(weights, tempDistanceThreshold,
+						selectionBuffer);
+				tempNumNeighbors = tempNumSelected;
+
+				// Step 2.1.2 Compare subsets.
+				long tempFingerprint = SubsetHistory.fingerprint(trainingView,
+						selectionBuffer, tempNumSelected,
+						strategy.isWeighted() ? rowWeightBuffer : null);
+				int tempLastSeen = subsetHistory.lastSeen(tempFingerprint);
+				if (tempLastSeen == 1) {
+					SimpleTools.processTrackingOutput("Inner loop done!");
+					tempStopped = true;
+					break;
+				} else if (tempLastSeen > 1) {
+					SimpleTools.processTrackingOutput("Inner loop cycles with length "
+							+ tempLastSeen + ".");
+					tempStopped = true;
+					break;
+				} // Of if
+				subsetHistory.record(tempFingerprint);
+				tempFittedFingerprint = tempFingerprint;
+
+				// Step 2.1.3 Update the weights.
+				weights = fit(tempEquation, tempNumSelected,
+						strategy.isWeighted(), tempFingerprint);
 
 				SimpleTools.variableTrackingOutput("tempOldWeights = "
 						+ Arrays.toString(tempOldWeights));
 				SimpleTools.variableTrackingOutput("weights = "
 						+ Arrays.toString(weights));
-				// Step 2.1.3 Compare weights
+				// Step 2.1.4 Compare weights
 				if (SimpleTools.doubleArraysEqual(weights, tempOldWeights)) {
 					SimpleTools.processTrackingOutput("Inner loop done!");
+					tempStopped = true;
 					break;
 				}// Of if
 
 				SimpleTools.processTrackingOutput("Adjusting...");
 				tempOldWeights = weights;
-			}// Of while
+			}// Of for j
 
 			// Step 2.3 Not all data are useful
-			if (tempNumNeighbors > trainingX.length * neighborFractionThreshold) {
+			if (tempNumNeighbors > trainingView.size() * neighborFractionThreshold) {
 				// Enough training data are used.
 				break;
 			} // Of if
 
-			// Step 2.4 Increase the distance threshold
+			// Step 2.4 Increase the target fraction. The threshold follows
+			// the residuals, hence no round is wasted.
+			if (thresholdSchedule == QUANTILE_SCHEDULE) {
+				tempCoverageFraction += coverageFractionIncrement;
+				continue;
+			} // Of if
+
+			// Step 2.5 Increase the distance threshold. Thresholds bringing no
+			// new instances under the converged weights are skipped since the
+			// refit would not change the weights. If the budget has run out,
+			// the residuals are those before the last refit, and nothing is
+			// skipped.
 			tempDistanceThreshold += distanceThresholdIncrement;
+			while (tempStopped && (i < 9)
+					&& (strategy.count(residualIndex, tempDistanceThreshold) == tempNumNeighbors)) {
+				i++;
+				numSkippedThresholds++;
+				tempDistanceThreshold += distanceThresholdIncrement;
+			} // Of while
 		} // Of for i
 
+		numSelectedInstances = (int) tempNumNeighbors;
 		SimpleTools.variableTrackingOutput("Finally, the threshold is "
 				+ tempDistanceThreshold + " with " + tempNumNeighbors
 				+ " neighbors.");
+		SimpleTools.variableTrackingOutput(tempEquation.toString());
 		// System.out.println("The weights are: " + Arrays.toString(weights));
 		return weights;
 	}// Of train
 
+	/**
+	 ****************** 
+	 * Fit the selection in the buffer, or look it up in the fit cache.
+	 * 
+	 * @param paraEquation
+	 *            The normal equation of the last hard selection fitted with
+	 *            Cholesky. Only instances entering or leaving the subset are
+	 *            processed, and it may lag behind after cache hits.
+	 * @param paraNumSelected
+	 *            The number of selected positions.
+	 * @param paraWeighted
+	 *            Are the row weights in the buffer used?
+	 * @param paraFingerprint
+	 *            The fingerprint of the selection.
+	 * @return The weights.
+	 ****************** 
+	 */
+	double[] fit(IncrementalNormalEquation paraEquation, int paraNumSelected,
+			boolean paraWeighted, long paraFingerprint) {
+		// The key names the path producing the weights. The incremental
+		// normal equation does not depend on the solver.
+		boolean tempBySolver = paraWeighted
+				|| (solver != LeastSquaresSolver.CHOLESKY);
+		long tempConfig = tempBySolver ? FitCache.config("least squares", solver)
+				: FitCache.config("incremental normal equation");
+		if (fitCache != null) {
+			double[] tempWeights = fitCache.get(dataset, paraFingerprint, tempConfig);
+			if (tempWeights != null) {
+				return tempWeights;
+			} // Of if
+		} // Of if
+
+		double[] resultWeights;
+		if (tempBySolver) {
+			selectedView.selectFrom(trainingView, selectionBuffer, paraNumSelected);
+			resultWeights = LeastSquaresSolver.solve(dataset, selectedView,
+					paraWeighted ? rowWeightBuffer : null, solver);
+		} else {
+			paraEquation.update(selectionBuffer, paraNumSelected);
+			resultWeights = paraEquation.solve();
+		} // Of if
+
+		if (fitCache != null) {
+			fitCache.put(dataset, paraFingerprint, tempConfig, resultWeights);
+		} // Of if
+
+		return resultWeights;
+	}// Of fit
+
+	/**
+	 ****************** 
+	 * The pace of the strategy within which the given fraction of the
+	 * training data are under the given weights. Fractions reaching the
+	 * neighbor fraction threshold cover just more than it, so that the round
+	 * may end the training.
+	 * 
+	 * @param paraWeights
+	 *            The hyperplane.
+	 * @param paraFraction
+	 *            The target fraction.
+	 * @return The pace.
+	 ****************** 
+	 */
+	double quantilePace(double[] paraWeights, double paraFraction) {
+		int tempNumInstances = trainingView.size();
+		// The tolerance absorbs the rounding of accumulated fractions, e.g.,
+		// 0.3 + 0.2 + 0.2 + 0.2 < 0.9.
+		int tempCount = (int) (Math.min(paraFraction, neighborFractionThreshold)
+				* tempNumInstances + 1e-6) + 1;
+		if (tempCount > tempNumInstances) {
+			tempCount = tempNumInstances;
+		} // Of if
+
+		residualIndex.build(dataset, trainingView, paraWeights);
+		return strategy.paceForCount(residualIndex, tempCount, quantileSampleSize);
+	}// Of quantilePace
+
 	/**
 	 ****************** 
 	 * Train with the given data matrices.
@@ -262,15 +579,9 @@ public class SelfPacedLinearRegressor {
 		// System.out.println("paraX: " + Arrays.deepToString(paraX));
 		// System.out.println("paraY: " + Arrays.deepToString(paraY));
 
-		// Step 1. Construct a matrix object.
-		Matrix tempX = new Matrix(paraX);
-		Matrix tempY = new Matrix(paraY);
-
-		// Step 2. Regression directly.
-		// (X T X)-1 XT y
-		Matrix tempMatrix = (tempX.transpose().times(tempX)).inverse()
-				.times(tempX.transpose()).times(tempY);
-		double[] resultWeights = tempMatrix.transpose().getArray()[0];
+		// Solve without the explicit inverse (X^T X)^-1 X^T y.
+		double[] resultWeights = LeastSquaresSolver.solve(paraX, paraY,
+				solver);
 
 		// System.out.println("The new weights are: " +
 		// Arrays.toString(resultWeights));
@@ -278,6 +589,19 @@ public class SelfPacedLinearRegressor {
 		return resultWeights;
 	}// Of train
 
+	/**
+	 ****************** 
+	 * Train with the given instances of the dataset.
+	 * 
+	 * @param paraView
+	 *            The instances.
+	 * @return The weight vector.
+	 ****************** 
+	 */
+	public double[] train(IndexView paraView) {
+		return LeastSquaresSolver.solve(dataset, paraView, null, solver);
+	}// Of train
+
 	/**
 	 ****************** 
 	 * Train with an instance weight array.
@@ -293,20 +617,11 @@ public class SelfPacedLinearRegressor {
 	 */
 	public double[] trainWithInstanceWeights(double[][] paraX,
 			double[][] paraY, double[] paraInstanceWeights) {
-		// Step 1. Construct matrix objects.
-		Matrix tempX = new Matrix(paraX);
-		Matrix tempY = new Matrix(paraY);
-		double[][] tempInstanceWeightMatrix = new double[paraInstanceWeights.length][paraInstanceWeights.length];
-		for (int i = 0; i < tempInstanceWeightMatrix.length; i++) {
-			tempInstanceWeightMatrix[i][i] = paraInstanceWeights[i];
-		}//Of for i
-		Matrix tempInstanceWeights = new Matrix(tempInstanceWeightMatrix);
-
-		// Step 2. Regression directly.
-		// W = (X^T A^T A X)-1 X^T A^T A Y, where A is the alpha matrix
-		Matrix tempMatrix = (tempX.transpose().times(tempInstanceWeights.transpose()).times(tempInstanceWeights).times(tempX)).inverse()
-				.times(tempX.transpose()).times(tempInstanceWeights.transpose()).times(tempInstanceWeights).times(tempY);
-		double[] resultWeights = tempMatrix.transpose().getArray()[0];
+		// W = (X^T A^T A X)-1 X^T A^T A Y, where A is the diagonal alpha
+		// matrix. A is not formed, and the weights are streamed into X^T A^T A
+		// X directly.
+		double[] resultWeights = LeastSquaresSolver.solveWeighted(paraX, paraY,
+				paraInstanceWeights, solver);
 
 		// System.out.println("The new weights are: " +
 		// Arrays.toString(resultWeights));
@@ -326,32 +641,37 @@ public class SelfPacedLinearRegressor {
 	 ****************** 
 	 */
 	public int[] select(double[] paraWeights, double paraDistance) {
-		int[] tempSelectionArray = new int[trainingX.length];
-		double tempDistance = 0;
-		int tempNumSelection = 0;
-		for (int i = 0; i < trainingX.length; i++) {
-			double tempPrediction = 0;
-			for (int j = 0; j < trainingX[0].length; j++) {
-				tempPrediction += paraWeights[j] * trainingX[i][j];
-			} // Of for j
-			tempDistance = Math.abs(tempPrediction - trainingY[i][0]);
-
-			if (tempDistance < paraDistance) {
-				tempSelectionArray[tempNumSelection] = i;
-				tempNumSelection++;
-			} // Of if
-		} // Of for i
+		int[] tempPositions = new int[trainingView.size()];
+		int tempNumSelected = select(paraWeights, paraDistance, tempPositions);
 
-		System.out.println("" + tempNumSelection
-				+ " instances are close to the hyperplane.");
+		return Arrays.copyOf(tempPositions, tempNumSelected);
+	}// Of select
 
-		// Compress
-		int[] resultSelections = new int[tempNumSelection];
-		for (int i = 0; i < resultSelections.length; i++) {
-			resultSelections[i] = tempSelectionArray[i];
-		} // Of for i
+	/**
+	 ****************** 
+	 * Select data close to the hyperplane into a given buffer.
+	 * 
+	 * @param paraWeights
+	 *            The hyperplane.
+	 * @param paraDistance
+	 *            The distance.
+	 * @param paraPositions
+	 *            The buffer, no shorter than the training set.
+	 * @return The number of selected data, stored at the front of the buffer.
+	 ****************** 
+	 */
+	public int select(double[] paraWeights, double paraDistance,
+			int[] paraPositions) {
+		// The residuals are computed only once for each weight vector, and
+		// the strategy selects on them.
+		residualIndex.build(dataset, trainingView, paraWeights);
+		int resultNumSelected = strategy.select(residualIndex, paraDistance,
+				paraPositions, rowWeightBuffer);
+
+		System.out.println("" + resultNumSelected
+				+ " instances are close to the hyperplane.");
 
-		return resultSelections;
+		return resultNumSelected;
 	}// Of select
 
 	/**
@@ -384,16 +704,14 @@ public class SelfPacedLinearRegressor {
 	public double computeTestingMae() {
 		double tempErrorSum = 0;
 
-		for (int i = 0; i < testingX.length; i++) {
-			double tempPredict = 0;
-			for (int j = 0; j < testingX[0].length; j++) {
-				tempPredict += testingX[i][j] * weights[j];
-			}// Of for j
+		for (int i = 0; i < testingView.size(); i++) {
+			int tempInstance = testingView.get(i);
+			double tempPredict = dataset.predict(weights, tempInstance);
 
-			tempErrorSum += Math.abs(tempPredict - testingY[i][0]);
+			tempErrorSum += Math.abs(tempPredict - dataset.getOutput(tempInstance));
 		} // Of for i
 
-		return tempErrorSum / testingX.length;
+		return tempErrorSum / testingView.size();
 	}// Of computeTestingMae
 
 	/**
@@ -408,23 +726,103 @@ public class SelfPacedLinearRegressor {
 	public double computeTestingRmse() {
 		double tempErrorSquareSum = 0;
 
-		for (int i = 0; i < testingX.length; i++) {
-			double tempPredict = 0;
-			for (int j = 0; j < testingX[0].length; j++) {
-				tempPredict += testingX[i][j] * weights[j];
-			}// Of for j
+		for (int i = 0; i < testingView.size(); i++) {
+			int tempInstance = testingView.get(i);
+			double tempPredict = dataset.predict(weights, tempInstance);
 
-			tempErrorSquareSum += (tempPredict - testingY[i][0])
-					* (tempPredict - testingY[i][0]);
+			tempErrorSquareSum += (tempPredict - dataset.getOutput(tempInstance))
+					* (tempPredict - dataset.getOutput(tempInstance));
 		} // Of for i
 
 		double tempAveragedErrorSquareSum = tempErrorSquareSum
-				/ testingX.length;
+				/ testingView.size();
 		double tempResult = Math.sqrt(tempAveragedErrorSquareSum);
 
 		return tempResult;
 	}// Of computeTestingMae
 
+	/**
+	 ****************** 
+	 * The quantile schedule should reach the neighbor fraction threshold in
+	 * the same rounds for thresholds and fractions: 30%, 50%, 70% and just
+	 * more than 90% of the training data. SPLD paces are not coverage levels.
+	 * 
+	 * @return True if passed.
+	 ****************** 
+	 */
+	public static boolean testQuantileSchedule() {
+		Dataset tempData = LeastSquaresSolver.randomDataset(5000, 5,
+				new RandomStream(23));
+		SelectionStrategy[] tempStrategies = { new ThresholdStrategy(),
+				new FractionStrategy(), new SoftWeightStrategy() };
+
+		boolean resultPassed = true;
+		for (int i = 0; i < tempStrategies.length; i++) {
+			SelfPacedLinearRegressor tempRegressor = new SelfPacedLinearRegressor(
+					tempData);
+			tempRegressor.randomizeTrainingTesting(0.6, new RandomStream(29));
+			tempRegressor.setSelectionStrategy(tempStrategies[i]);
+			tempRegressor.setQuantileSchedule(0.3, 0.2);
+			tempRegressor.train();
+
+			int tempNumSelected = tempRegressor.numSelectedInstances;
+			boolean tempPassed = (tempRegressor.numRounds == 4)
+					&& (tempNumSelected > tempRegressor.trainingView.size()
+							* tempRegressor.neighborFractionThreshold);
+			resultPassed &= tempPassed;
+			System.out.println(tempStrategies[i].getClass().getSimpleName() + ": "
+					+ tempRegressor.numRounds + " rounds, finally " + tempNumSelected
+					+ " selected, passed: " + tempPassed);
+		} // Of for i
+
+		boolean tempRejected = false;
+		SelfPacedLinearRegressor tempRegressor = new SelfPacedLinearRegressor(tempData);
+		tempRegressor.randomizeTrainingTesting(0.6, new RandomStream(29));
+		tempRegressor.setSelectionStrategy(new SpldStrategy(new int[5000], 0.1));
+		tempRegressor.setQuantileSchedule(0.3, 0.2);
+		try {
+			tempRegressor.train();
+		} catch (UnsupportedOperationException ee) {
+			tempRejected = true;
+		} // Of try
+		resultPassed &= tempRejected;
+
+		System.out.println("Quantile schedule, SPLD rejected: " + tempRejected
+				+ ", passed: " + resultPassed);
+		return resultPassed;
+	}// Of testQuantileSchedule
+
+	/**
+	 ****************** 
+	 * Thresholds adding no instances are skipped only after converged rounds.
+	 * Tiny increments add none, so converged rounds skip the rest, while
+	 * rounds ending on the budget of one refit skip nothing.
+	 * 
+	 * @return True if passed.
+	 ****************** 
+	 */
+	public static boolean testBudgetSkip() {
+		Dataset tempData = LeastSquaresSolver.randomDataset(5000, 5,
+				new RandomStream(23));
+		int[] tempBudgets = { 1, 100 };
+		int[] tempSkipped = new int[tempBudgets.length];
+		for (int i = 0; i < tempBudgets.length; i++) {
+			SelfPacedLinearRegressor tempRegressor = new SelfPacedLinearRegressor(
+					tempData);
+			tempRegressor.randomizeTrainingTesting(0.6, new RandomStream(29));
+			tempRegressor.setDistanceThresholds(0.005, 1e-6);
+			tempRegressor.setMaxInnerIterations(tempBudgets[i]);
+			tempRegressor.train();
+			tempSkipped[i] = tempRegressor.numSkippedThresholds;
+		} // Of for i
+
+		boolean resultPassed = (tempSkipped[0] == 0) && (tempSkipped[1] > 0);
+		System.out.println("Skipped thresholds with budgets "
+				+ Arrays.toString(tempBudgets) + ": " + Arrays.toString(tempSkipped)
+				+ ", passed: " + resultPassed);
+		return resultPassed;
+	}// Of testBudgetSkip
+
 	/**
 	 ****************** 
 	 * For integration test.
@@ -458,6 +856,9 @@ public class SelfPacedLinearRegressor {
 
 		// System.out.println("The training mae is: " +
 		// tempSelfPacedLinearRegressor.computeMae());
+
+		testQuantileSchedule();
+		testBudgetSkip();
 	}// Of main
 
 }// Of class SelfPacedLinearRegressor
@@ -1,11 +1,13 @@
 package algorithm;
 
-import java.io.FileReader;
 import java.util.Arrays;
 
 import Jama.Matrix;
+import common.Dataset;
+import common.DatasetCache;
+import common.IndexView;
+import common.RandomStream;
 import common.SimpleTools;
-import weka.core.Instances;
 
 /**
  * Self-paced logistic regression. <br>
@@ -15,40 +17,25 @@ import weka.core.Instances;
  *         www.fansmale.com, github.com/fansmale/MFAdaBoosting.<br>
  *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
  *         Data Created: July 26, 2020.<br>
- *         Last modified: July 26, 2020.
+ *         Last modified: August 27, 2020.
  * @version 1.0
  */
 public class SelfPacedLogisticRegressor {
 
 	/**
-	 * The whole input data. The first column is always 1.
+	 * The whole data stored contiguously. The first input column is always 1.
 	 */
-	double[][] wholeX;
+	Dataset dataset;
 
 	/**
-	 * The whole output data.
+	 * The training instances.
 	 */
-	double[][] wholeY;
+	IndexView trainingView;
 
 	/**
-	 * The training data input.
+	 * The testing instances.
 	 */
-	double[][] trainingX;
-
-	/**
-	 * The training data output.
-	 */
-	double[][] trainingY;
-
-	/**
-	 * The testing data input.
-	 */
-	double[][] testingX;
-
-	/**
-	 * The testing data output.
-	 */
-	double[][] testingY;
+	IndexView testingView;
 
 	/**
 	 * The weights for the training hyper-space.
@@ -76,9 +63,42 @@ public class SelfPacedLogisticRegressor {
 	double instanceProportionThreshold = 0.9;
 
 	/**
-	 * Is the training data removed?.
+	 * The training data sorted by their distances to the hyperplane, with the
+	 * removed ones.
+	 */
+	MarginIndex marginIndex;
+
+	/**
+	 * The positions of the selected training instances, reused by all rounds.
+	 */
+	int[] selectionBuffer;
+
+	/**
+	 * The selected training instances. Its index array is reused by all
+	 * rounds.
+	 */
+	IndexView selectedView;
+
+	/**
+	 * The margins of the instances being scored, reused by all rounds.
+	 */
+	double[] marginBuffer;
+
+	/**
+	 * The trainer with its buffers, gradient ascent by default.
 	 */
-	boolean[] removalArray;
+	LogisticTrainer trainer = new LogisticTrainer();
+
+	/**
+	 * Does each round start from the weights of the last round?
+	 */
+	boolean warmStart = false;
+
+	/**
+	 * The fits of subsets seen before, possibly shared with other regressors.
+	 * Null for not caching.
+	 */
+	FitCache fitCache;
 
 	/**
 	 ****************** 
@@ -89,38 +109,31 @@ public class SelfPacedLogisticRegressor {
 	 ****************** 
 	 */
 	public SelfPacedLogisticRegressor(String paraTrainingFilename) {
-		Instances data = null;
-		// Step 1. Read training set.
+		// Step 1. Read training set. The binary cache next to the file is
+		// used if it is up to date, otherwise Weka parses the file.
 		try {
-			FileReader tempFileReader = new FileReader(paraTrainingFilename);
-			data = new Instances(tempFileReader);
-			tempFileReader.close();
+			dataset = DatasetCache.load(paraTrainingFilename);
 		} catch (Exception ee) {
 			System.out.println("Cannot read the file: " + paraTrainingFilename + "\r\n" + ee);
 			System.exit(0);
 		} // Of try
 
-		int tempNumInstances = data.numInstances();
-		int tempNumAttributes = data.numAttributes();
-
-		wholeX = new double[tempNumInstances][tempNumAttributes];
-		wholeY = new double[tempNumInstances][1];
-
-		for (int i = 0; i < tempNumInstances; i++) {
-			// The first element is always set to 1.
-			wholeX[i][0] = 1;
-			wholeY[i][0] = data.instance(i).value(tempNumAttributes - 1);
-			for (int j = 0; j < tempNumAttributes - 1; j++) {
-				wholeX[i][j + 1] = data.instance(i).value(j);
-			} // Of for j
-		} // Of for i
-
-		// System.out.println("The input space is: " +
-		// Arrays.deepToString(wholeX));
-		// System.out.println("The output space is: " +
-		// Arrays.toString(wholeY));
+		// System.out.println("The data are: " + dataset);
 	}// Of the first constructor
 
+	/**
+	 ****************** 
+	 * The second constructor. Regressors may share the dataset since it is
+	 * not changed.
+	 * 
+	 * @param paraDataset
+	 *            The dataset with 0/1 outputs.
+	 ****************** 
+	 */
+	public SelfPacedLogisticRegressor(Dataset paraDataset) {
+		dataset = paraDataset;
+	}// Of the second constructor
+
 	/**
 	 ****************** 
 	 * Setter.
@@ -136,6 +149,72 @@ public class SelfPacedLogisticRegressor {
 		distanceThresholdDecrement = paraDecrement;
 	}// Of setDistanceThresholds
 
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraMethod
+	 *            LogisticTrainer.GRADIENT_ASCENT, LogisticTrainer.NEWTON,
+	 *            LogisticTrainer.LBFGS or LogisticTrainer.HOGWILD.
+	 ****************** 
+	 */
+	public void setTrainingMethod(int paraMethod) {
+		trainer.setMethod(paraMethod);
+	}// Of setTrainingMethod
+
+	/**
+	 ****************** 
+	 * Setter. Successive subsets differ slightly, so the weights of a round
+	 * are close to those of the next one. With a convergence tolerance (see
+	 * LogisticTrainer), later rounds then stop after a few iterations. Warm
+	 * started rounds often keep their weights, so the margin index is sorted
+	 * for them.
+	 * 
+	 * @param paraWarmStart
+	 *            Does each round start from the weights of the last round?
+	 ****************** 
+	 */
+	public void setWarmStart(boolean paraWarmStart) {
+		warmStart = paraWarmStart;
+		if (marginIndex != null) {
+			marginIndex.setSorting(warmStart);
+		} // Of if
+	}// Of setWarmStart
+
+	/**
+	 ****************** 
+	 * Setter. Fits are cached only for cold starts since a warm start
+	 * depends on the last weights.
+	 * 
+	 * @param paraFitCache
+	 *            The cache consulted before each fit. Null for not caching.
+	 ****************** 
+	 */
+	public void setFitCache(FitCache paraFitCache) {
+		fitCache = paraFitCache;
+	}// Of setFitCache
+
+	/**
+	 ****************** 
+	 * Getter.
+	 * 
+	 * @return The trainer, for setting its parameters.
+	 ****************** 
+	 */
+	public LogisticTrainer getTrainer() {
+		return trainer;
+	}// Of getTrainer
+
+	/**
+	 ****************** 
+	 * Release the Hogwild workers of the trainer. Call it after the last
+	 * multi-threaded training.
+	 ****************** 
+	 */
+	public void close() {
+		trainer.close();
+	}// Of close
+
 	/**
 	 ****************** 
 	 * Randomize the training and testing sets.
@@ -145,42 +224,43 @@ public class SelfPacedLogisticRegressor {
 	 ****************** 
 	 */
 	public void randomizeTrainingTesting(double paraTrainingFraction) {
-		// Step 1. Randomize a sequence.
-		int[] tempSequence = SimpleTools.getRandomOrder(wholeY.length);
-
-		// Step 2. Copy the training set.
-		int tempTrainingSize = (int) (wholeY.length * paraTrainingFraction);
-		// For X, only space for references.
-		trainingX = new double[tempTrainingSize][];
-		trainingY = new double[tempTrainingSize][];
-		for (int i = 0; i < tempTrainingSize; i++) {
-			trainingX[i] = wholeX[tempSequence[i]];
-			trainingY[i] = wholeY[tempSequence[i]];
-		} // Of for i
-		removalArray = new boolean[tempTrainingSize];
-
-		// Step 3. Copy the testing set.
-		int tempTestingSize = wholeY.length - tempTrainingSize;
-		testingX = new double[tempTestingSize][];
-		testingY = new double[tempTestingSize][];
-		for (int i = 0; i < tempTestingSize; i++) {
-			testingX[i] = wholeX[tempSequence[tempTrainingSize + i]];
-			testingY[i] = wholeY[tempSequence[tempTrainingSize + i]];
-		} // Of for i
+		// Only the seed is drawn from the shared random object.
+		randomizeTrainingTesting(paraTrainingFraction, new RandomStream(
+				SimpleTools.random.nextLong()));
+	}// Of randomizeTrainingTesting
 
-		// System.out.println("The training X is: " +
-		// Arrays.deepToString(trainingX));
-		// System.out.println("The training Y is: " +
-		// Arrays.deepToString(trainingY));
-		// System.out.println("The testing X is: " +
-		// Arrays.deepToString(testingX));
-		// System.out.println("The testing Y is: " +
-		// Arrays.deepToString(testingY));
+	/**
+	 ****************** 
+	 * Randomize the training and testing sets with the given stream.
+	 * 
+	 * @param paraTrainingFraction
+	 *            The fraction of the training set.
+	 * @param paraStream
+	 *            The random stream of this split.
+	 ****************** 
+	 */
+	public void randomizeTrainingTesting(double paraTrainingFraction,
+			RandomStream paraStream) {
+		// Step 1. Randomize a sequence.
+		int tempNumInstances = dataset.getNumInstances();
+		int[] tempSequence = SimpleTools.getRandomOrder(tempNumInstances,
+				paraStream);
+
+		// Step 2. The training and testing sets are views on the sequence,
+		// and no data are copied.
+		int tempTrainingSize = (int) (tempNumInstances * paraTrainingFraction);
+		trainingView = new IndexView(tempSequence, 0, tempTrainingSize);
+		testingView = new IndexView(tempSequence, tempTrainingSize,
+				tempNumInstances - tempTrainingSize);
+		marginIndex = new MarginIndex(tempTrainingSize);
+		marginIndex.setSorting(warmStart);
+		selectionBuffer = new int[tempTrainingSize];
+		selectedView = new IndexView(new int[tempTrainingSize], 0, 0);
 	}// Of randomizeTrainingTesting
 
 	/**
 	 ****************** 
-	 * Select data close to the hyperplane.
+	 * Select data far from the hyperplane.
 	 * 
 	 * @param paraWeights
 	 *            The hyperplane.
@@ -190,36 +270,35 @@ public class SelfPacedLogisticRegressor {
 	 ****************** 
 	 */
 	public int[] select(double[] paraWeights, double paraDistance) {
-		int[] tempSelectionArray = new int[trainingX.length];
-		double tempDistance = 0;
-		int tempNumSelection = 0;
-		for (int i = 0; i < trainingX.length; i++) {
-			// This instance has been removed.
-			if (removalArray[i]) {
-				continue;
-			} // Of if
-
-			double tempPrediction = 0;
-			for (int j = 0; j < trainingX[0].length; j++) {
-				tempPrediction += paraWeights[j] * trainingX[i][j];
-			} // Of for j
-			tempDistance = Math.abs(tempPrediction - trainingY[i][0]);
+		int[] tempPositions = new int[trainingView.size()];
+		int tempNumSelected = select(paraWeights, paraDistance, tempPositions);
 
-			if (tempDistance > paraDistance) {
-				tempSelectionArray[tempNumSelection] = i;
-				tempNumSelection++;
-			} // Of if
-		} // Of for i
+		return Arrays.copyOf(tempPositions, tempNumSelected);
+	}// Of select
 
-		System.out.println("" + tempNumSelection + " instances are far from the hyperplane.");
+	/**
+	 ****************** 
+	 * Select data far from the hyperplane into a given buffer.
+	 * 
+	 * @param paraWeights
+	 *            The hyperplane.
+	 * @param paraDistance
+	 *            The distance.
+	 * @param paraPositions
+	 *            The buffer, no shorter than the training set.
+	 * @return The number of selected data, stored at the front of the buffer.
+	 ****************** 
+	 */
+	public int select(double[] paraWeights, double paraDistance,
+			int[] paraPositions) {
+		// The data are rescanned only if the hyperplane has changed.
+		marginIndex.build(dataset, trainingView, paraWeights);
+		int resultNumSelected = marginIndex.selectBeyond(paraDistance,
+				paraPositions);
 
-		// Compress
-		int[] resultSelections = new int[tempNumSelection];
-		for (int i = 0; i < resultSelections.length; i++) {
-			resultSelections[i] = tempSelectionArray[i];
-		} // Of for i
+		System.out.println("" + resultNumSelected + " instances are far from the hyperplane.");
 
-		return resultSelections;
+		return resultNumSelected;
 	}// Of select
 
 	/**
@@ -229,56 +308,48 @@ public class SelfPacedLogisticRegressor {
 	 */
 	public double[] train() {
 		// Step 1. Build the original hyperplane.
-		System.out.println("Training ... the training set has " + trainingX.length + " instances.");
-		weights = train(trainingX, trainingY);
+		System.out.println("Training ... the training set has " + trainingView.size() + " instances.");
+		for (int i = 0; i < selectionBuffer.length; i++) {
+			selectionBuffer[i] = i;
+		} // Of for i
+		weights = fit(selectionBuffer.length, null);
 
 		// System.out.println("All data, the weights are: " +
 		// Arrays.toString(weights));
 		System.out.println(
-				"The training error with all data is: " + computeError(trainingX, trainingY, weights));
-		double tempError = computeError(testingX, testingY, weights);
+				"The training error with all data is: " + computeError(trainingView, weights));
+		double tempError = computeError(testingView, weights);
 		System.out.println("The testing error with all training data is: " + tempError);
 
 		// Step 2. Increase distance gradually.
 		double tempDistanceThreshold = distanceThresholdInitial;
 		double tempNumNeighbors = 0;
 		for (int i = 0; i < maxChangeLoops; i++) {
-			// Step 2.1 Select a subset.
-			int[] tempIndices = select(weights, tempDistanceThreshold);
-			tempNumNeighbors = tempIndices.length;
-
-			double[][] tempX = new double[tempIndices.length][];
-			double[][] tempY = new double[tempIndices.length][];
-			// System.out.println("TrainingY: " +
-			// Arrays.deepToString(trainingY));
-			// Copy data
-			for (int j = 0; j < tempX.length; j++) {
-				// System.out.print(", " + tempIndices[j] + ": " +
-				// trainingY[tempIndices[j]][0]);
-				tempX[j] = trainingX[tempIndices[j]];
-				tempY[j] = trainingY[tempIndices[j]];
-			} // Of for j
+			// Step 2.1 Select a subset. The buffers are reused, and only
+			// instance indices are written.
+			int tempNumSelected = select(weights, tempDistanceThreshold,
+					selectionBuffer);
+			tempNumNeighbors = tempNumSelected;
 
 			// Step 2.2 Update the weights
-			weights = train(tempX, tempY);
+			weights = fit(tempNumSelected, warmStart ? weights : null);
 
 			// Step 2.3 Remove incorrectly classified instances.
-			for (int j = 0; j < tempX.length; j++) {
-				double tempPredict = innerProduct(tempX[j], weights);
-				if (tempPredict > 0) {
-					tempPredict = 1;
-				} else {
-					tempPredict = 0;
-				} // Of if
-					// tempValue = sigmoid(tempValue);
-				if (tempPredict != tempY[j][0]) {
+			if ((marginBuffer == null) || (marginBuffer.length < tempNumSelected)) {
+				marginBuffer = new double[dataset.getNumInstances()];
+			} // Of if
+			dataset.predict(weights, selectedView, marginBuffer);
+			for (int j = 0; j < tempNumSelected; j++) {
+				double tempPredict = (marginBuffer[j] > 0) ? 1 : 0;
+				if (tempPredict != LogisticTrainer.toLabel(dataset.getOutput(selectedView
+						.get(j)))) {
 					System.out.println("Removing: " + j);
-					removalArray[tempIndices[j]] = true;
+					marginIndex.remove(selectionBuffer[j]);
 				} // Of if
 			} // Of for j
 
 			// Step 2.3 Not all data are useful
-			if (tempNumNeighbors > trainingX.length * instanceProportionThreshold) {
+			if (tempNumNeighbors > trainingView.size() * instanceProportionThreshold) {
 				// Enough training data are used.
 				break;
 			} // Of if
@@ -294,13 +365,44 @@ public class SelfPacedLogisticRegressor {
 				+ tempNumNeighbors + " neighbors.");
 		// System.out.println("The weights are: " + Arrays.toString(weights));
 		System.out.println(
-				"The training error with selected data is: " + computeError(trainingX, trainingY, weights));
+				"The training error with selected data is: " + computeError(trainingView, weights));
 		System.out.println(
-				"The testing error with selected data is: " + computeError(testingX, testingY, weights));
+				"The testing error with selected data is: " + computeError(testingView, weights));
 
 		return weights;
 	}// Of train
 
+	/**
+	 ****************** 
+	 * Fit the selection in the buffer, or look it up in the fit cache. The
+	 * selection is also stored in the selected view.
+	 * 
+	 * @param paraNumSelected
+	 *            The number of selected positions.
+	 * @param paraInitialWeights
+	 *            The initial weights. Null for a cold start, the only case
+	 *            cached.
+	 * @return The weights.
+	 ****************** 
+	 */
+	double[] fit(int paraNumSelected, double[] paraInitialWeights) {
+		selectedView.selectFrom(trainingView, selectionBuffer, paraNumSelected);
+		if ((fitCache == null) || (paraInitialWeights != null)) {
+			return train(selectedView, paraInitialWeights);
+		} // Of if
+
+		long tempFingerprint = SubsetHistory.fingerprint(trainingView,
+				selectionBuffer, paraNumSelected, null);
+		long tempConfig = trainer.getConfigFingerprint();
+		double[] resultWeights = fitCache.get(dataset, tempFingerprint, tempConfig);
+		if (resultWeights == null) {
+			resultWeights = train(selectedView, null);
+			fitCache.put(dataset, tempFingerprint, tempConfig, resultWeights);
+		} // Of if
+
+		return resultWeights;
+	}// Of fit
+
 	/**
 	 ****************** 
 	 * Train with the given data matrices.
@@ -313,29 +415,32 @@ public class SelfPacedLogisticRegressor {
 	 ****************** 
 	 */
 	public double[] train(double[][] paraX, double[][] paraY) {
+		return train(paraX, paraY, null);
+	}// Of train
+
+	/**
+	 ****************** 
+	 * Train with the given data matrices from the given weights.
+	 * 
+	 * @param paraX
+	 *            The input data.
+	 * @param paraY
+	 *            The output data.
+	 * @param paraInitialWeights
+	 *            The initial weights, e.g., of the last round. Null for the
+	 *            default of the training method.
+	 * @return The weight vector.
+	 ****************** 
+	 */
+	public double[] train(double[][] paraX, double[][] paraY,
+			double[] paraInitialWeights) {
 		// System.out.println("paraX: " + Arrays.deepToString(paraX));
 		// System.out.println("paraY: " + Arrays.deepToString(paraY));
-		double[][] tempWeights = new double[paraX[0].length][1];
-		for (int i = 0; i < tempWeights.length; i++) {
-			tempWeights[i][0] = 1;
-		} // Of for i
 
-		// Step 1. Construct a matrix object.
-		Matrix tempX = new Matrix(paraX);
-		Matrix tempY = new Matrix(paraY);
-		Matrix tempW = new Matrix(tempWeights);
-		Matrix tempSigma, tempError;
-
-		// Step 2. Gradual ascendent.
-		double alpha = 0.001;
-		double maxCycles = 1000;
-		for (int i = 0; i < maxCycles; i++) {
-			tempSigma = sigmoid(tempX.times(tempW));
-			tempError = tempY.minus(tempSigma);
-			tempW = tempW.plus(tempX.transpose().times(tempError).times(alpha));
-		} // Of for i
-
-		double[] resultWeights = tempW.transpose().getArray()[0];
+		// The matrices are copied once, and the cycles work in place.
+		Dataset tempData = new Dataset(paraX, paraY);
+		double[] resultWeights = trainer.train(tempData,
+				IndexView.range(paraX.length), paraInitialWeights);
 
 		// System.out.println("The new weights are: " +
 		// Arrays.toString(resultWeights));
@@ -343,6 +448,35 @@ public class SelfPacedLogisticRegressor {
 		return resultWeights;
 	}// Of train
 
+	/**
+	 ****************** 
+	 * Train with the given instances of the dataset.
+	 * 
+	 * @param paraView
+	 *            The instances.
+	 * @return The weight vector.
+	 ****************** 
+	 */
+	public double[] train(IndexView paraView) {
+		return train(paraView, null);
+	}// Of train
+
+	/**
+	 ****************** 
+	 * Train with the given instances of the dataset from the given weights.
+	 * 
+	 * @param paraView
+	 *            The instances.
+	 * @param paraInitialWeights
+	 *            The initial weights. Null for the default of the training
+	 *            method.
+	 * @return The weight vector.
+	 ****************** 
+	 */
+	public double[] train(IndexView paraView, double[] paraInitialWeights) {
+		return trainer.train(dataset, paraView, paraInitialWeights);
+	}// Of train
+
 	/**
 	 ****************** 
 	 * Compute the sigmoid of the given value.
@@ -353,7 +487,7 @@ public class SelfPacedLogisticRegressor {
 	 ****************** 
 	 */
 	public double sigmoid(double paraValue) {
-		return 1.0 / (1 + Math.exp(-paraValue));
+		return LogisticTrainer.sigmoid(paraValue);
 	}// Of sigmoid
 
 	/**
@@ -369,25 +503,24 @@ public class SelfPacedLogisticRegressor {
 		int tempRows = paraMatrix.getRowDimension();
 		int tempColumns = paraMatrix.getColumnDimension();
 
-		Matrix resultMatrix = new Matrix(tempRows, tempColumns);
+		// Work on the row arrays instead of get(i, j) and set(i, j).
+		double[][] tempValues = paraMatrix.getArray();
+		double[][] resultValues = new double[tempRows][tempColumns];
 		for (int i = 0; i < tempRows; i++) {
-			for (int j = 0; j < tempColumns; j++) {
-				double tempValue = paraMatrix.get(i, j);
-				tempValue = sigmoid(tempValue);
-				resultMatrix.set(i, j, tempValue);
-			} // Of for j
+			LogisticTrainer.sigmoid(tempValues[i], resultValues[i], tempColumns);
 		} // Of for i
-		return resultMatrix;
+		return new Matrix(resultValues);
 	}// Of sigmoid
 
 	/**
 	 ****************** 
-	 * Compute the error on the given set.
+	 * Compute the error on the given set. Outputs are mapped to labels as in
+	 * training.
 	 * 
 	 * @param paraX
 	 *            The input.
 	 * @param paraY
-	 *            The output.
+	 *            The output, positive for class 1.
 	 * @param paraWeights
 	 *            The weights.
 	 * @return The error.
@@ -405,7 +538,7 @@ public class SelfPacedLogisticRegressor {
 				tempPredict = 0;
 			} // Of if
 
-			if (tempPredict != paraY[i][0]) {
+			if (tempPredict != LogisticTrainer.toLabel(paraY[i][0])) {
 				tempErrorSum++;
 			} // Of if
 		} // Of for i
@@ -413,6 +546,35 @@ public class SelfPacedLogisticRegressor {
 		return tempErrorSum / paraX.length;
 	}// Of computeError
 
+	/**
+	 ****************** 
+	 * Compute the error on the given instances of the dataset.
+	 * 
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The weights.
+	 * @return The error.
+	 ****************** 
+	 */
+	public double computeError(IndexView paraView, double[] paraWeights) {
+		if ((marginBuffer == null) || (marginBuffer.length < paraView.size())) {
+			marginBuffer = new double[dataset.getNumInstances()];
+		} // Of if
+		dataset.predict(paraWeights, paraView, marginBuffer);
+
+		double tempErrorSum = 0;
+		for (int i = 0; i < paraView.size(); i++) {
+			double tempPredict = (marginBuffer[i] > 0) ? 1 : 0;
+			if (tempPredict != LogisticTrainer.toLabel(dataset.getOutput(paraView
+					.get(i)))) {
+				tempErrorSum++;
+			} // Of if
+		} // Of for i
+
+		return tempErrorSum / paraView.size();
+	}// Of computeError
+
 	/**
 	 ****************** 
 	 * Compute the inner product of two arrays.
@@ -433,6 +595,44 @@ public class SelfPacedLogisticRegressor {
 		return resultValue;
 	}// Of innerProduct
 
+	/**
+	 ****************** 
+	 * Both error overloads should give the same error for 0/1 and -1/1
+	 * outputs of the same data.
+	 * 
+	 * @return True if passed.
+	 ****************** 
+	 */
+	public static boolean testComputeError() {
+		Dataset tempData = LogisticTrainer.randomDataset(200, 4, new RandomStream(31));
+		double[][] tempX = new double[200][4];
+		double[][] tempY = new double[200][1];
+		double[][] tempSignedY = new double[200][1];
+		for (int i = 0; i < 200; i++) {
+			for (int j = 0; j < 4; j++) {
+				tempX[i][j] = tempData.getValue(i, j);
+			} // Of for j
+			tempY[i][0] = tempData.getOutput(i);
+			tempSignedY[i][0] = 2 * tempY[i][0] - 1;
+		} // Of for i
+		double[] tempWeights = { 0.3, -1, 2, -3 };
+
+		SelfPacedLogisticRegressor tempRegressor = new SelfPacedLogisticRegressor(tempData);
+		SelfPacedLogisticRegressor tempSignedRegressor = new SelfPacedLogisticRegressor(
+				new Dataset(tempX, tempSignedY));
+		double tempError = tempRegressor.computeError(tempX, tempY, tempWeights);
+		boolean resultPassed = (tempError < 0.5)
+				&& (tempError == tempRegressor.computeError(tempX, tempSignedY, tempWeights))
+				&& (tempError == tempRegressor.computeError(IndexView.range(200),
+						tempWeights))
+				&& (tempError == tempSignedRegressor.computeError(IndexView.range(200),
+						tempWeights));
+
+		System.out.println("Error " + tempError + " for 0/1 and -1/1 outputs, passed: "
+				+ resultPassed);
+		return resultPassed;
+	}// Of testComputeError
+
 	/**
 	 ****************** 
 	 * For integration test.
@@ -448,5 +648,7 @@ public class SelfPacedLogisticRegressor {
 
 		tempSelfPacedLogisticRegressor.randomizeTrainingTesting(0.6);
 		double[] tempWeights = tempSelfPacedLogisticRegressor.train();
+
+		testComputeError();
 	}// Of main
 }// Of class SelfPacedLogisticRegressor
@@ -1,17 +1,15 @@
 package algorithm;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Arrays;
 
-import weka.core.Instance;
-import weka.core.Instances;
-
-import Jama.*;
 //import gui.SimpleTool;
+import common.Dataset;
+import common.DatasetCache;
+import common.IndexView;
+import common.RandomStream;
 import common.SimpleTools;
 
 /**
@@ -22,60 +20,94 @@ import common.SimpleTools;
  *         www.fansmale.com, github.com/fansmale/MFAdaBoosting.<br>
  *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
  *         Data Created: July 26, 2020.<br>
- *         Last modified: July 26, 2020.
+ *         Last modified: August 27, 2020.
  * @version 1.0
  */
 
 public class SelfPacedRegressorLY {
 
 	/**
-	 * The whole input data. The first column is always 1.
+	 * The whole data stored contiguously. The first input column is always 1.
 	 */
-	double[][] wholeX;
+	Dataset dataset;
 
 	/**
-	 * The whole output data.
+	 * The training instances.
 	 */
-	double[][] wholeY;
+	IndexView trainingView;
 
 	/**
-	 * The training data input.
+	 * The testing instances.
 	 */
-	double[][] trainingX;
+	IndexView testingView;
 
 	/**
-	 * The training data output.
+	 * The weights for the training hyper-space.
 	 */
-	double[][] trainingY;
+	double[] weights;
 
 	/**
-	 * The testing data input.
+	 * The initial distance threshold.
 	 */
-	double[][] testingX;
+	double distanceThresholdInitial = 0.2;
 
 	/**
-	 * The testing data output.
+	 * The incremental distance threshold.
 	 */
-	double[][] testingY;
+	double distanceThresholdIncrement = 0.2;
 
 	/**
-	 * The weights for the training hyper-space.
+	 * The least squares solver.
 	 */
-	double[] weights;
+	int solver = LeastSquaresSolver.CHOLESKY;
 
 	/**
-	 * The initial distance threshold.
+	 * The positions of the selected training instances, reused by all rounds.
 	 */
-	double distanceThresholdInitial = 0.2;
+	int[] selectionBuffer;
 
 	/**
-	 * The incremental distance threshold.
+	 * The row weights of the selected training instances for weighted
+	 * strategies, reused by all rounds.
 	 */
-	double distanceThresholdIncrement = 0.2;
-	public static double tempValue = 0;
-	public static double tempThreshold = 0;
-	public static int beforeinstance = 0;
-	public static double afterinstance = 0;
+	double[] rowWeightBuffer;
+
+	/**
+	 * The residuals of the training data for the current weights.
+	 */
+	ResidualIndex residualIndex;
+
+	/**
+	 * The selection strategy. The distance thresholds are its paces.
+	 */
+	SelectionStrategy strategy = new ThresholdStrategy();
+
+	/**
+	 * The selected training instances. Its index array is reused by all
+	 * rounds.
+	 */
+	IndexView selectedView;
+
+	/**
+	 * The fits of subsets seen before, possibly shared with other regressors.
+	 * Null for not caching.
+	 */
+	FitCache fitCache;
+
+	/**
+	 * The testing MAE with all training data, recorded by train().
+	 */
+	double initialMae;
+
+	/**
+	 * The final distance threshold, recorded by train().
+	 */
+	double finalThreshold;
+
+	/**
+	 * The number of selected training instances, recorded by train().
+	 */
+	int numSelectedInstances;
 
 	/**
 	 ****************** 
@@ -86,38 +118,34 @@ public class SelfPacedRegressorLY {
 	 ****************** 
 	 */
 	public SelfPacedRegressorLY(String paraTrainingFilename) {
-		Instances data = null;
-		// Step 1. Read training set.
+		// Step 1. Read training set. The binary cache next to the file is
+		// used if it is up to date, otherwise Weka parses the file.
 		try {
-			FileReader tempFileReader = new FileReader(paraTrainingFilename);
-			data = new Instances(tempFileReader);
-			tempFileReader.close();
+			dataset = DatasetCache.load(paraTrainingFilename);
 		} catch (Exception ee) {
 			System.out.println("Cannot read the file: " + paraTrainingFilename + "\r\n" + ee);
 			System.exit(0);
 		} // Of try
-		SimpleTools.normalize(data);
-		int tempNumInstances = data.numInstances();
-		int tempNumAttributes = data.numAttributes();
-
-		wholeX = new double[tempNumInstances][tempNumAttributes];
-		wholeY = new double[tempNumInstances][1];
-
-		for (int i = 0; i < tempNumInstances; i++) {
-			// The first element is always set to 1.
-			wholeX[i][0] = 1;
-			wholeY[i][0] = data.instance(i).value(tempNumAttributes - 1);
-			for (int j = 0; j < tempNumAttributes - 1; j++) {
-				wholeX[i][j + 1] = data.instance(i).value(j);
-			} // Of for j
-		} // Of for i
 
-		// System.out.println("The input space is: " +
-		// Arrays.deepToString(wholeX));
-		// System.out.println("The output space is: " +
-		// Arrays.toString(wholeY));
+		// Step 2. Normalize. The cache keeps the raw data.
+		SimpleTools.normalize(dataset);
+
+		// System.out.println("The data are: " + dataset);
 	}// Of the first constructor
 
+	/**
+	 ****************** 
+	 * The second constructor. Regressors may share the dataset since it is
+	 * not changed.
+	 * 
+	 * @param paraDataset
+	 *            The normalized dataset.
+	 ****************** 
+	 */
+	public SelfPacedRegressorLY(Dataset paraDataset) {
+		dataset = paraDataset;
+	}// Of the second constructor
+
 	/**
 	 ****************** 
 	 * Setter.
@@ -133,6 +161,44 @@ public class SelfPacedRegressorLY {
 		distanceThresholdIncrement = paraIncrement;
 	}// Of setDistanceThresholds
 
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraSolver
+	 *            The least squares solver, e.g.,
+	 *            LeastSquaresSolver.PIVOTED_QR.
+	 ****************** 
+	 */
+	public void setSolver(int paraSolver) {
+		solver = paraSolver;
+	}// Of setSolver
+
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraStrategy
+	 *            The selection strategy, e.g., a FractionStrategy for big
+	 *            data.
+	 ****************** 
+	 */
+	public void setSelectionStrategy(SelectionStrategy paraStrategy) {
+		strategy = paraStrategy;
+	}// Of setSelectionStrategy
+
+	/**
+	 ****************** 
+	 * Setter.
+	 * 
+	 * @param paraFitCache
+	 *            The cache consulted before each fit. Null for not caching.
+	 ****************** 
+	 */
+	public void setFitCache(FitCache paraFitCache) {
+		fitCache = paraFitCache;
+	}// Of setFitCache
+
 	/**
 	 ****************** 
 	 * Randomize the training and testing sets.
@@ -142,36 +208,38 @@ public class SelfPacedRegressorLY {
 	 ****************** 
 	 */
 	public void randomizeTrainingTesting(double paraTrainingFraction) {
-		// Step 1. Randomize a sequence.
-		int[] tempSequence = SimpleTools.getRandomOrder(wholeY.length);
-
-		// Step 2. Copy the training set.
-		int tempTrainingSize = (int) (wholeY.length * paraTrainingFraction);
-		// For X, only space for references.
-		trainingX = new double[tempTrainingSize][];
-		trainingY = new double[tempTrainingSize][];
-		for (int i = 0; i < tempTrainingSize; i++) {
-			trainingX[i] = wholeX[tempSequence[i]];
-			trainingY[i] = wholeY[tempSequence[i]];
-		} // Of for i
-
-		// Step 3. Copy the testing set.
-		int tempTestingSize = wholeY.length - tempTrainingSize;
-		testingX = new double[tempTestingSize][];
-		testingY = new double[tempTestingSize][];
-		for (int i = 0; i < tempTestingSize; i++) {
-			testingX[i] = wholeX[tempSequence[tempTrainingSize + i]];
-			testingY[i] = wholeY[tempSequence[tempTrainingSize + i]];
-		} // Of for i
+		// Only the seed is drawn from the shared random object.
+		randomizeTrainingTesting(paraTrainingFraction, new RandomStream(
+				SimpleTools.random.nextLong()));
+	}// Of randomizeTrainingTesting
 
-		// System.out.println("The training X is: " +
-		// Arrays.deepToString(trainingX));
-		// System.out.println("The training Y is: " +
-		// Arrays.deepToString(trainingY));
-		// System.out.println("The testing X is: " +
-		// Arrays.deepToString(testingX));
-		// System.out.println("The testing Y is: " +
-		// Arrays.deepToString(testingY));
+	/**
+	 ****************** 
+	 * Randomize the training and testing sets with the given stream.
+	 * 
+	 * @param paraTrainingFraction
+	 *            The fraction of the training set.
+	 * @param paraStream
+	 *            The random stream of this split.
+	 ****************** 
+	 */
+	public void randomizeTrainingTesting(double paraTrainingFraction,
+			RandomStream paraStream) {
+		// Step 1. Randomize a sequence.
+		int tempNumInstances = dataset.getNumInstances();
+		int[] tempSequence = SimpleTools.getRandomOrder(tempNumInstances,
+				paraStream);
+
+		// Step 2. The training and testing sets are views on the sequence,
+		// and no data are copied.
+		int tempTrainingSize = (int) (tempNumInstances * paraTrainingFraction);
+		trainingView = new IndexView(tempSequence, 0, tempTrainingSize);
+		testingView = new IndexView(tempSequence, tempTrainingSize,
+				tempNumInstances - tempTrainingSize);
+		selectionBuffer = new int[tempTrainingSize];
+		rowWeightBuffer = new double[tempTrainingSize];
+		residualIndex = new ResidualIndex(tempTrainingSize);
+		selectedView = new IndexView(new int[tempTrainingSize], 0, 0);
 	}// Of randomizeTrainingTesting
 
 	/**
@@ -181,41 +249,33 @@ public class SelfPacedRegressorLY {
 	 */
 	public double[] train() {
 		// Step 1. Build the original hyperplane.
-		System.out.println("Training ... the training set has " + trainingX.length + " instances.");
-		beforeinstance = trainingX.length;
-		weights = train(trainingX, trainingY);
+		System.out.println("Training ... the training set has " + trainingView.size() + " instances.");
+		for (int i = 0; i < selectionBuffer.length; i++) {
+			selectionBuffer[i] = i;
+		} // Of for i
+		weights = fit(selectionBuffer.length, false);
 		// System.out.println("All data, the weights are: " +
 		// Arrays.toString(weights));
 		double tempMAE = computeTestingMae();
 		double tempRsme = Math.sqrt(computeTestingRsme());
 		System.out.println("With all training data, MAE = " + tempMAE
 				+ ", RSME = " + tempRsme);
-		tempValue = tempMAE;
+		initialMae = tempMAE;
 		// Step 2. Increase distance gradually.
 		double tempDistanceThreshold = distanceThresholdInitial;
 		double tempNumNeighbors = 0;
 		for (int i = 0; i < 10; i++) {
-			// Step 2.1 Select a subset.
-			int[] tempIndices = select(weights, tempDistanceThreshold);
-			tempNumNeighbors = tempIndices.length;
-
-			double[][] tempX = new double[tempIndices.length][];
-			double[][] tempY = new double[tempIndices.length][];
-			// System.out.println("TrainingY: " +
-			// Arrays.deepToString(trainingY));
-			// Copy data
-			for (int j = 0; j < tempX.length; j++) {
-				// System.out.print(", " + tempIndices[j] + ": " +
-				// trainingY[tempIndices[j]][0]);
-				tempX[j] = trainingX[tempIndices[j]];
-				tempY[j] = trainingY[tempIndices[j]];
-			} // Of for j
+			// Step 2.1 Select a subset. The buffers are reused, and only
+			// instance indices are written.
+			int tempNumSelected = select(weights, tempDistanceThreshold,
+					selectionBuffer);
+			tempNumNeighbors = tempNumSelected;
 
 			// Step 2.2 Update the weights
-			weights = train(tempX, tempY);
+			weights = fit(tempNumSelected, strategy.isWeighted());
 
 			// Step 2.3 Not all data are useful
-			if (tempNumNeighbors > trainingX.length * 0.9) {
+			if (tempNumNeighbors > trainingView.size() * 0.9) {
 				// Enough training data are used.
 				break;
 			} // Of if
@@ -226,12 +286,91 @@ public class SelfPacedRegressorLY {
 
 		System.out.println("Finally, the threshold is " + tempDistanceThreshold + " with "
 				+ tempNumNeighbors + " neighbors.");
-		tempThreshold = tempDistanceThreshold;
-		afterinstance = tempNumNeighbors;
+		finalThreshold = tempDistanceThreshold;
+		numSelectedInstances = (int) tempNumNeighbors;
 		// System.out.println("The weights are: " + Arrays.toString(weights));
 		return weights;
 	}// Of train
 
+	/**
+	 ****************** 
+	 * Getter.
+	 * 
+	 * @return The testing MAE with all training data.
+	 ****************** 
+	 */
+	public double getInitialMae() {
+		return initialMae;
+	}// Of getInitialMae
+
+	/**
+	 ****************** 
+	 * Getter.
+	 * 
+	 * @return The final distance threshold.
+	 ****************** 
+	 */
+	public double getFinalThreshold() {
+		return finalThreshold;
+	}// Of getFinalThreshold
+
+	/**
+	 ****************** 
+	 * Getter.
+	 * 
+	 * @return The number of training instances.
+	 ****************** 
+	 */
+	public int getNumTrainingInstances() {
+		return trainingView.size();
+	}// Of getNumTrainingInstances
+
+	/**
+	 ****************** 
+	 * Getter.
+	 * 
+	 * @return The number of selected training instances.
+	 ****************** 
+	 */
+	public int getNumSelectedInstances() {
+		return numSelectedInstances;
+	}// Of getNumSelectedInstances
+
+	/**
+	 ****************** 
+	 * Fit the selection in the buffer, or look it up in the fit cache.
+	 * 
+	 * @param paraNumSelected
+	 *            The number of selected positions.
+	 * @param paraWeighted
+	 *            Are the row weights in the buffer used?
+	 * @return The weights.
+	 ****************** 
+	 */
+	double[] fit(int paraNumSelected, boolean paraWeighted) {
+		double[] tempRowWeights = paraWeighted ? rowWeightBuffer : null;
+		long tempFingerprint = 0;
+		long tempConfig = FitCache.config("least squares", solver);
+		if (fitCache != null) {
+			tempFingerprint = SubsetHistory.fingerprint(trainingView,
+					selectionBuffer, paraNumSelected, tempRowWeights);
+			double[] tempWeights = fitCache.get(dataset, tempFingerprint, tempConfig);
+			if (tempWeights != null) {
+				return tempWeights;
+			} // Of if
+		} // Of if
+
+		selectedView.selectFrom(trainingView, selectionBuffer, paraNumSelected);
+		double[] resultWeights = LeastSquaresSolver.solve(dataset, selectedView,
+				tempRowWeights, solver);
+
+		if (fitCache != null) {
+			fitCache.put(dataset, tempFingerprint, tempConfig, resultWeights);
+		} // Of if
+
+		return resultWeights;
+	}// Of fit
+
 	/**
 	 ****************** 
 	 * Train with the given data matrices.
@@ -247,15 +386,9 @@ public class SelfPacedRegressorLY {
 		// System.out.println("paraX: " + Arrays.deepToString(paraX));
 		// System.out.println("paraY: " + Arrays.deepToString(paraY));
 
-		// Step 1. Construct a matrix object.
-		Matrix tempX = new Matrix(paraX);
-		Matrix tempY = new Matrix(paraY);
-
-		// Step 2. Regression directly.
-		// (X T X)-1 XT y
-		Matrix tempMatrix = (tempX.transpose().times(tempX)).inverse().times(tempX.transpose())
-				.times(tempY);
-		double[] resultWeights = tempMatrix.transpose().getArray()[0];
+		// Solve without the explicit inverse (X^T X)^-1 X^T y.
+		double[] resultWeights = LeastSquaresSolver.solve(paraX, paraY,
+				solver);
 
 		// System.out.println("The new weights are: " +
 		// Arrays.toString(resultWeights));
@@ -263,6 +396,19 @@ public class SelfPacedRegressorLY {
 		return resultWeights;
 	}// Of train
 
+	/**
+	 ****************** 
+	 * Train with the given instances of the dataset.
+	 * 
+	 * @param paraView
+	 *            The instances.
+	 * @return The weight vector.
+	 ****************** 
+	 */
+	public double[] train(IndexView paraView) {
+		return LeastSquaresSolver.solve(dataset, paraView, null, solver);
+	}// Of train
+
 	/**
 	 ****************** 
 	 * Select data close to the hyperplane.
@@ -275,31 +421,36 @@ public class SelfPacedRegressorLY {
 	 ****************** 
 	 */
 	public int[] select(double[] paraWeights, double paraDistance) {
-		int[] tempSelectionArray = new int[trainingX.length];
-		double tempDistance = 0;
-		int tempNumSelection = 0;
-		for (int i = 0; i < trainingX.length; i++) {
-			double tempPrediction = 0;
-			for (int j = 0; j < trainingX[0].length; j++) {
-				tempPrediction += paraWeights[j] * trainingX[i][j];
-			} // Of for j
-			tempDistance = Math.abs(tempPrediction - trainingY[i][0]);
-
-			if (tempDistance < paraDistance) {
-				tempSelectionArray[tempNumSelection] = i;
-				tempNumSelection++;
-			} // Of if
-		} // Of for i
+		int[] tempPositions = new int[trainingView.size()];
+		int tempNumSelected = select(paraWeights, paraDistance, tempPositions);
 
-		System.out.println("" + tempNumSelection + " instances are close to the hyperplane.");
+		return Arrays.copyOf(tempPositions, tempNumSelected);
+	}// Of select
 
-		// Compress
-		int[] resultSelections = new int[tempNumSelection];
-		for (int i = 0; i < resultSelections.length; i++) {
-			resultSelections[i] = tempSelectionArray[i];
-		} // Of for i
+	/**
+	 ****************** 
+	 * Select data close to the hyperplane into a given buffer.
+	 * 
+	 * @param paraWeights
+	 *            The hyperplane.
+	 * @param paraDistance
+	 *            The distance.
+	 * @param paraPositions
+	 *            The buffer, no shorter than the training set.
+	 * @return The number of selected data, stored at the front of the buffer.
+	 ****************** 
+	 */
+	public int select(double[] paraWeights, double paraDistance,
+			int[] paraPositions) {
+		// The residuals are computed in parallel into the shared buffer, and
+		// the strategy selects on them.
+		residualIndex.build(dataset, trainingView, paraWeights);
+		int resultNumSelected = strategy.select(residualIndex, paraDistance,
+				paraPositions, rowWeightBuffer);
+
+		System.out.println("" + resultNumSelected + " instances are close to the hyperplane.");
 
-		return resultSelections;
+		return resultNumSelected;
 	}// Of select
 
 	/**
@@ -332,16 +483,14 @@ public class SelfPacedRegressorLY {
 	public double computeTestingMae() {
 		double tempErrorSum = 0;
 		double tempError = 0;
-		for (int i = 0; i < testingX.length; i++) {
-			double tempPredict = 0;
-			for (int j = 0; j < testingX[0].length; j++) {
-				tempPredict += testingX[i][j] * weights[j];
-			} // Of for j
+		for (int i = 0; i < testingView.size(); i++) {
+			int tempInstance = testingView.get(i);
+			double tempPredict = dataset.predict(weights, tempInstance);
 
-			tempErrorSum += Math.abs(tempPredict - testingY[i][0]);
+			tempErrorSum += Math.abs(tempPredict - dataset.getOutput(tempInstance));
 		} // Of for i
 
-		return tempErrorSum / testingX.length;
+		return tempErrorSum / testingView.size();
 	}// Of computeTestingMae
 
 	/**
@@ -355,16 +504,15 @@ public class SelfPacedRegressorLY {
 	 */
 	public double computeTestingRsme() {
 		double tempErrorSum = 0;
-		for (int i = 0; i < testingX.length; i++) {
-			double tempPredict = 0;
-			for (int j = 0; j < testingX[0].length; j++) {
-				tempPredict += testingX[i][j] * weights[j];
-			} // Of for j
+		for (int i = 0; i < testingView.size(); i++) {
+			int tempInstance = testingView.get(i);
+			double tempPredict = dataset.predict(weights, tempInstance);
 
-			tempErrorSum += (tempPredict - testingY[i][0]) * (tempPredict - testingY[i][0]);
+			tempErrorSum += (tempPredict - dataset.getOutput(tempInstance))
+					* (tempPredict - dataset.getOutput(tempInstance));
 		} // Of for i
 
-		return tempErrorSum / testingX.length;
+		return tempErrorSum / testingView.size();
 	}// Of computeTestingRsme
 	
 	/**
@@ -387,29 +535,27 @@ public class SelfPacedRegressorLY {
 
 		// SelfPacedRegressorLY tempSelfPacedRegressor = new
 		// SelfPacedRegressorLY("src/data/iris.arff", 200);
+		// Trials run in parallel. Each one has its own seed and returns a
+		// record, and the records are in trial order.
+		TrialRunner tempRunner = new TrialRunner(tempSelfPacedRegressor.dataset);
+		TrialResult[] tempResults = tempRunner.run(100, SimpleTools.random.nextLong());
+
 		File file = new File("dataset_2213_cpu_small.txt");
 		FileWriter out = new FileWriter(file);
 		double tempRise = 0;
-		for (int i = 0; i < 100; i++) {
-			tempValue = 0;
-			tempThreshold = 0;
-			beforeinstance = 0;
-			afterinstance = 0;
-			tempSelfPacedRegressor.randomizeTrainingTesting(0.6);
-			double[] tempWeights = tempSelfPacedRegressor.train();
-			double tempMAE = tempSelfPacedRegressor.computeTestingMae();
-			double tempRsme = Math.sqrt(tempSelfPacedRegressor.computeTestingRsme());
-
-			out.write(tempValue + "\t");
-			out.write(tempMAE + "\t");
-			out.write(tempThreshold + "\t");
-			out.write(beforeinstance + "\t");
-			out.write(afterinstance + "\t");
-			out.write(((tempValue - tempMAE) / tempValue) * 100 + "\r\n");
-			tempRise += ((tempValue - tempMAE) / tempValue);
-			System.out.println("With selected training data, MAE = " + tempMAE
-					+ ", RSME = " + tempRsme);
-		}
+		for (int i = 0; i < tempResults.length; i++) {
+			TrialResult tempResult = tempResults[i];
+			out.write(tempResult.getInitialMae() + "\t");
+			out.write(tempResult.getFinalMae() + "\t");
+			out.write(tempResult.getFinalThreshold() + "\t");
+			out.write(tempResult.getNumTrainingInstances() + "\t");
+			out.write((double) tempResult.getNumSelectedInstances() + "\t");
+			out.write(tempResult.getImprovement() * 100 + "\r\n");
+			tempRise += tempResult.getImprovement();
+			System.out.println("With selected training data, MAE = "
+					+ tempResult.getFinalMae() + ", RSME = "
+					+ tempResult.getFinalRmse());
+		} // Of for i
 		out.write(tempRise + "\t");
 		out.close();
 
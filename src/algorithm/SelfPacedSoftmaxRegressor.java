@@ -0,0 +1,684 @@
+package algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import common.Dataset;
+import common.DatasetCache;
+import common.IndexView;
+import common.RandomStream;
+import common.SimpleTools;
+
+/**
+ * Self-paced multinomial (softmax) regression. The output of an instance is
+ * its class index 0, 1, ..., K - 1. The weights of all classes are learned
+ * together: one pass over the rows computes the K scores of a row, its softmax
+ * and its contribution to the gradients of all classes, hence a cycle costs
+ * about one pass instead of K one-vs-rest passes. The rows are split into
+ * blocks which are processed on the fork/join pool, each block into its own
+ * partial gradient, and the partial gradients are summed in block order.
+ * Easy instances are those with large margins, i.e., the score of the true
+ * class minus the best score of the other classes. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 25, 2020.<br>
+ *         Last modified: August 25, 2020.
+ * @version 1.0
+ */
+public class SelfPacedSoftmaxRegressor {
+
+	/**
+	 * The whole data stored contiguously. The first input column is always 1.
+	 */
+	Dataset dataset;
+
+	/**
+	 * The number of classes.
+	 */
+	int numClasses;
+
+	/**
+	 * The training instances.
+	 */
+	IndexView trainingView;
+
+	/**
+	 * The testing instances.
+	 */
+	IndexView testingView;
+
+	/**
+	 * The weights, the row of class k starting at k * numColumns.
+	 */
+	double[] weights;
+
+	/**
+	 * The initial margin threshold.
+	 */
+	double marginThresholdInitial = 2.0;
+
+	/**
+	 * The decrement of the margin threshold.
+	 */
+	double marginThresholdDecrement = 0.1;
+
+	/**
+	 * Maximal change loops for adjusting the margin threshold.
+	 */
+	int maxChangeLoops = 100;
+
+	/**
+	 * Instance proportion threshold.
+	 */
+	double instanceProportionThreshold = 0.9;
+
+	/**
+	 * The learning rate on the mean gradient.
+	 */
+	double alpha = 0.5;
+
+	/**
+	 * The maximal number of cycles of one training.
+	 */
+	int maxCycles = 1000;
+
+	/**
+	 * A training stops when no weight changes more than this in a cycle.
+	 */
+	double tolerance = 1e-6;
+
+	/**
+	 * The number of cycles of the last training.
+	 */
+	int numCycles;
+
+	/**
+	 * The margins of the training instances, reused by all rounds.
+	 */
+	double[] margins;
+
+	/**
+	 * The positions of the selected training instances, reused by all rounds.
+	 */
+	int[] selectionBuffer;
+
+	/**
+	 * The selected training instances. Its index array is reused by all
+	 * rounds.
+	 */
+	IndexView selectedView;
+
+	/**
+	 ******************
+	 * The first constructor. The inputs are normalized to [0, 1].
+	 *
+	 * @param paraTrainingFilename
+	 *            The data filename. The class is the last attribute.
+	 ******************
+	 */
+	public SelfPacedSoftmaxRegressor(String paraTrainingFilename) {
+		try {
+			dataset = DatasetCache.load(paraTrainingFilename);
+		} catch (Exception ee) {
+			System.out.println("Cannot read the file: " + paraTrainingFilename + "\r\n" + ee);
+			System.exit(0);
+		} // Of try
+
+		SimpleTools.normalizeInputs(dataset);
+		numClasses = countClasses(dataset);
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * The second constructor. Regressors may share the dataset since it is
+	 * not changed.
+	 *
+	 * @param paraDataset
+	 *            The dataset with class indices as outputs.
+	 ******************
+	 */
+	public SelfPacedSoftmaxRegressor(Dataset paraDataset) {
+		dataset = paraDataset;
+		numClasses = countClasses(dataset);
+	}// Of the second constructor
+
+	/**
+	 ******************
+	 * The number of classes, i.e., the largest class index plus 1.
+	 *
+	 * @param paraDataset
+	 *            The dataset.
+	 * @return The number of classes.
+	 ******************
+	 */
+	static int countClasses(Dataset paraDataset) {
+		double[] tempOutputs = paraDataset.getOutputs();
+		int resultNumClasses = 0;
+		for (int i = 0; i < paraDataset.getNumInstances(); i++) {
+			int tempClass = (int) tempOutputs[i];
+			if ((tempClass != tempOutputs[i]) || (tempClass < 0)) {
+				throw new IllegalArgumentException("Instance " + i
+						+ " has no class index: " + tempOutputs[i]);
+			} // Of if
+			resultNumClasses = Math.max(resultNumClasses, tempClass + 1);
+		} // Of for i
+
+		return resultNumClasses;
+	}// Of countClasses
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraInitial
+	 *            The initial value.
+	 * @param paraDecrement
+	 *            The decrement value.
+	 ******************
+	 */
+	public void setMarginThresholds(double paraInitial, double paraDecrement) {
+		marginThresholdInitial = paraInitial;
+		marginThresholdDecrement = paraDecrement;
+	}// Of setMarginThresholds
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraAlpha
+	 *            The learning rate on the mean gradient.
+	 * @param paraMaxCycles
+	 *            The maximal number of cycles of one training.
+	 * @param paraTolerance
+	 *            Stop when no weight changes more than this in a cycle.
+	 ******************
+	 */
+	public void setGradientAscent(double paraAlpha, int paraMaxCycles,
+			double paraTolerance) {
+		alpha = paraAlpha;
+		maxCycles = paraMaxCycles;
+		tolerance = paraTolerance;
+	}// Of setGradientAscent
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of classes.
+	 ******************
+	 */
+	public int getNumClasses() {
+		return numClasses;
+	}// Of getNumClasses
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of cycles of the last training.
+	 ******************
+	 */
+	public int getNumCycles() {
+		return numCycles;
+	}// Of getNumCycles
+
+	/**
+	 ******************
+	 * Randomize the training and testing sets.
+	 *
+	 * @param paraTrainingFraction
+	 *            The fraction of the training set.
+	 ******************
+	 */
+	public void randomizeTrainingTesting(double paraTrainingFraction) {
+		// Only the seed is drawn from the shared random object.
+		randomizeTrainingTesting(paraTrainingFraction, new RandomStream(
+				SimpleTools.random.nextLong()));
+	}// Of randomizeTrainingTesting
+
+	/**
+	 ******************
+	 * Randomize the training and testing sets with the given stream.
+	 *
+	 * @param paraTrainingFraction
+	 *            The fraction of the training set.
+	 * @param paraStream
+	 *            The random stream of this regressor.
+	 ******************
+	 */
+	public void randomizeTrainingTesting(double paraTrainingFraction,
+			RandomStream paraStream) {
+		int tempNumInstances = dataset.getNumInstances();
+		int[] tempSequence = SimpleTools.getRandomOrder(tempNumInstances,
+				paraStream);
+
+		int tempTrainingSize = (int) (tempNumInstances * paraTrainingFraction);
+		trainingView = new IndexView(tempSequence, 0, tempTrainingSize);
+		testingView = new IndexView(tempSequence, tempTrainingSize,
+				tempNumInstances - tempTrainingSize);
+		margins = new double[tempTrainingSize];
+		selectionBuffer = new int[tempTrainingSize];
+		selectedView = new IndexView(new int[tempTrainingSize], 0, 0);
+	}// Of randomizeTrainingTesting
+
+	/**
+	 ******************
+	 * Select easy data, i.e., whose margins are greater than the threshold,
+	 * into a given buffer.
+	 *
+	 * @param paraWeights
+	 *            The weights of all classes.
+	 * @param paraThreshold
+	 *            The margin threshold.
+	 * @param paraPositions
+	 *            The buffer, no shorter than the training set.
+	 * @return The number of selected data, stored at the front of the buffer
+	 *         in ascending order.
+	 ******************
+	 */
+	public int select(double[] paraWeights, double paraThreshold,
+			int[] paraPositions) {
+		run(new SoftmaxTask(dataset, trainingView, paraWeights, numClasses,
+				null, margins));
+
+		int resultNumSelected = 0;
+		for (int i = 0; i < trainingView.size(); i++) {
+			if (margins[i] > paraThreshold) {
+				paraPositions[resultNumSelected] = i;
+				resultNumSelected++;
+			} // Of if
+		} // Of for i
+
+		System.out.println("" + resultNumSelected + " instances are easy.");
+
+		return resultNumSelected;
+	}// Of select
+
+	/**
+	 ******************
+	 * Train the self-paced regressor. Each round starts from the weights of
+	 * the last round.
+	 *
+	 * @return The weights.
+	 ******************
+	 */
+	public double[] train() {
+		// Step 1. Train with all data.
+		System.out.println("Training ... the training set has " + trainingView.size()
+				+ " instances of " + numClasses + " classes.");
+		weights = train(trainingView, null);
+		System.out.println("The training error with all data is: "
+				+ computeError(trainingView, weights));
+		System.out.println("The testing error with all training data is: "
+				+ computeError(testingView, weights));
+
+		// Step 2. Decrease the margin threshold gradually.
+		double tempThreshold = marginThresholdInitial;
+		int tempNumSelected = 0;
+		for (int i = 0; i < maxChangeLoops; i++) {
+			// Step 2.1 Select easy data.
+			tempNumSelected = select(weights, tempThreshold, selectionBuffer);
+			selectedView.selectFrom(trainingView, selectionBuffer, tempNumSelected);
+
+			// Step 2.2 Update the weights.
+			if (tempNumSelected > 0) {
+				weights = train(selectedView, weights);
+			} // Of if
+
+			// Step 2.3 Enough training data are used.
+			if (tempNumSelected > trainingView.size() * instanceProportionThreshold) {
+				break;
+			} // Of if
+
+			// Step 2.4 Admit harder data.
+			tempThreshold -= marginThresholdDecrement;
+		} // Of for i
+
+		System.out.println("Finally, the threshold is " + tempThreshold + " with "
+				+ tempNumSelected + " instances.");
+		System.out.println("The training error with selected data is: "
+				+ computeError(trainingView, weights));
+		System.out.println("The testing error with selected data is: "
+				+ computeError(testingView, weights));
+
+		return weights;
+	}// Of train
+
+	/**
+	 ******************
+	 * Train with the given instances by gradient ascent on the mean
+	 * log-likelihood.
+	 *
+	 * @param paraView
+	 *            The instances.
+	 * @param paraInitialWeights
+	 *            The initial weights, which are not changed. Null for all
+	 *            zeros.
+	 * @return The weights.
+	 ******************
+	 */
+	public double[] train(IndexView paraView, double[] paraInitialWeights) {
+		int tempLength = numClasses * dataset.getNumColumns();
+		double[] resultWeights = (paraInitialWeights == null) ? new double[tempLength]
+				: Arrays.copyOf(paraInitialWeights, tempLength);
+
+		int tempNumChunks = ParallelSelector.numChunks(paraView.size());
+		double[][] tempPartials = new double[tempNumChunks][tempLength];
+		double tempStep = alpha / paraView.size();
+		for (numCycles = 0; numCycles < maxCycles;) {
+			// Step 1. Partial gradients of the blocks.
+			run(new SoftmaxTask(dataset, paraView, resultWeights, numClasses,
+					tempPartials, null));
+
+			// Step 2. Sum in block order and update.
+			double tempMaxChange = 0;
+			for (int q = 0; q < tempLength; q++) {
+				double tempGradient = 0;
+				for (int c = 0; c < tempNumChunks; c++) {
+					tempGradient += tempPartials[c][q];
+				} // Of for c
+				double tempChange = tempStep * tempGradient;
+				resultWeights[q] += tempChange;
+				tempMaxChange = Math.max(tempMaxChange, Math.abs(tempChange));
+			} // Of for q
+			numCycles++;
+
+			if (tempMaxChange < tolerance) {
+				break;
+			} // Of if
+		} // Of for numCycles
+
+		return resultWeights;
+	}// Of train
+
+	/**
+	 ******************
+	 * Predict the class of an instance.
+	 *
+	 * @param paraWeights
+	 *            The weights of all classes.
+	 * @param paraInstance
+	 *            The instance index.
+	 * @return The class with the highest score.
+	 ******************
+	 */
+	public int predict(double[] paraWeights, int paraInstance) {
+		int tempNumColumns = dataset.getNumColumns();
+		double[] tempInputs = dataset.getInputs();
+		int tempOffset = paraInstance * tempNumColumns;
+		int resultClass = 0;
+		double tempBestScore = Double.NEGATIVE_INFINITY;
+		for (int k = 0; k < numClasses; k++) {
+			double tempScore = 0;
+			for (int j = 0; j < tempNumColumns; j++) {
+				tempScore += paraWeights[k * tempNumColumns + j]
+						* tempInputs[tempOffset + j];
+			} // Of for j
+			if (tempScore > tempBestScore) {
+				tempBestScore = tempScore;
+				resultClass = k;
+			} // Of if
+		} // Of for k
+
+		return resultClass;
+	}// Of predict
+
+	/**
+	 ******************
+	 * Compute the error on the given instances.
+	 *
+	 * @param paraView
+	 *            The instances.
+	 * @param paraWeights
+	 *            The weights of all classes.
+	 * @return The error.
+	 ******************
+	 */
+	public double computeError(IndexView paraView, double[] paraWeights) {
+		double tempErrorSum = 0;
+		for (int i = 0; i < paraView.size(); i++) {
+			int tempInstance = paraView.get(i);
+			if (predict(paraWeights, tempInstance) != dataset.getOutput(tempInstance)) {
+				tempErrorSum++;
+			} // Of if
+		} // Of for i
+
+		return tempErrorSum / paraView.size();
+	}// Of computeError
+
+	/**
+	 ******************
+	 * Run the task in the pool, or directly for a single block.
+	 *
+	 * @param paraTask
+	 *            The task.
+	 ******************
+	 */
+	static void run(SoftmaxTask paraTask) {
+		if (paraTask.toChunk - paraTask.fromChunk <= 1) {
+			paraTask.compute();
+		} else {
+			ParallelSelector.pool.invoke(paraTask);
+		} // Of if
+	}// Of run
+
+	/**
+	 * Partial gradients or margins on a range of row blocks. Ranges are split
+	 * in halves until single blocks.
+	 */
+	static class SoftmaxTask extends RecursiveAction {
+		/**
+		 * For serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The dataset.
+		 */
+		Dataset data;
+
+		/**
+		 * The instances.
+		 */
+		IndexView view;
+
+		/**
+		 * The weights of all classes.
+		 */
+		double[] weights;
+
+		/**
+		 * The number of classes.
+		 */
+		int numClasses;
+
+		/**
+		 * The partial gradient of each block. Null for not computing.
+		 */
+		double[][] partials;
+
+		/**
+		 * The margins, indexed by positions in the view. Null for not
+		 * computing.
+		 */
+		double[] margins;
+
+		/**
+		 * The first block.
+		 */
+		int fromChunk;
+
+		/**
+		 * The block after the last one.
+		 */
+		int toChunk;
+
+		/**
+		 * The number of instances of a block.
+		 */
+		int chunkSize;
+
+		/**
+		 ******************
+		 * The first constructor, for all blocks.
+		 *
+		 * @param paraData
+		 *            The dataset.
+		 * @param paraView
+		 *            The instances.
+		 * @param paraWeights
+		 *            The weights of all classes.
+		 * @param paraNumClasses
+		 *            The number of classes.
+		 * @param paraPartials
+		 *            The partial gradients. Null for not computing.
+		 * @param paraMargins
+		 *            The margins. Null for not computing.
+		 ******************
+		 */
+		SoftmaxTask(Dataset paraData, IndexView paraView, double[] paraWeights,
+				int paraNumClasses, double[][] paraPartials, double[] paraMargins) {
+			this(paraData, paraView, paraWeights, paraNumClasses, paraPartials,
+					paraMargins, 0, ParallelSelector.numChunks(paraView.size()),
+					ParallelSelector.chunkSize(paraView.size()));
+		}// Of the first constructor
+
+		/**
+		 ******************
+		 * The second constructor, for a range of blocks.
+		 *
+		 * @param paraData
+		 *            The dataset.
+		 * @param paraView
+		 *            The instances.
+		 * @param paraWeights
+		 *            The weights of all classes.
+		 * @param paraNumClasses
+		 *            The number of classes.
+		 * @param paraPartials
+		 *            The partial gradients. Null for not computing.
+		 * @param paraMargins
+		 *            The margins. Null for not computing.
+		 * @param paraFromChunk
+		 *            The first block.
+		 * @param paraToChunk
+		 *            The block after the last one.
+		 * @param paraChunkSize
+		 *            The number of instances of a block.
+		 ******************
+		 */
+		SoftmaxTask(Dataset paraData, IndexView paraView, double[] paraWeights,
+				int paraNumClasses, double[][] paraPartials, double[] paraMargins,
+				int paraFromChunk, int paraToChunk, int paraChunkSize) {
+			data = paraData;
+			view = paraView;
+			weights = paraWeights;
+			numClasses = paraNumClasses;
+			partials = paraPartials;
+			margins = paraMargins;
+			fromChunk = paraFromChunk;
+			toChunk = paraToChunk;
+			chunkSize = paraChunkSize;
+		}// Of the second constructor
+
+		/**
+		 ******************
+		 * Split the range, or process a single block.
+		 ******************
+		 */
+		protected void compute() {
+			if (toChunk - fromChunk > 1) {
+				int tempMiddle = (fromChunk + toChunk) >>> 1;
+				invokeAll(new SoftmaxTask(data, view, weights, numClasses,
+						partials, margins, fromChunk, tempMiddle, chunkSize),
+						new SoftmaxTask(data, view, weights, numClasses,
+								partials, margins, tempMiddle, toChunk, chunkSize));
+				return;
+			} // Of if
+
+			int tempStart = fromChunk * chunkSize;
+			int tempEnd = Math.min(tempStart + chunkSize, view.size());
+			int tempNumColumns = data.getNumColumns();
+			double[] tempInputs = data.getInputs();
+			double[] tempOutputs = data.getOutputs();
+			double[] tempScores = new double[numClasses];
+			double[] tempPartial = null;
+			if (partials != null) {
+				tempPartial = partials[fromChunk];
+				Arrays.fill(tempPartial, 0);
+			} // Of if
+
+			for (int i = tempStart; i < tempEnd; i++) {
+				int tempInstance = view.get(i);
+				int tempOffset = tempInstance * tempNumColumns;
+				int tempClass = (int) tempOutputs[tempInstance];
+
+				// Step 1. The scores of all classes on the same row.
+				double tempMaxScore = Double.NEGATIVE_INFINITY;
+				for (int k = 0; k < numClasses; k++) {
+					int tempWeightOffset = k * tempNumColumns;
+					double tempScore = 0;
+					for (int j = 0; j < tempNumColumns; j++) {
+						tempScore += weights[tempWeightOffset + j]
+								* tempInputs[tempOffset + j];
+					} // Of for j
+					tempScores[k] = tempScore;
+					tempMaxScore = Math.max(tempMaxScore, tempScore);
+				} // Of for k
+
+				// Step 2. The margin against the best other class.
+				if (margins != null) {
+					double tempBestOther = Double.NEGATIVE_INFINITY;
+					for (int k = 0; k < numClasses; k++) {
+						if (k != tempClass) {
+							tempBestOther = Math.max(tempBestOther, tempScores[k]);
+						} // Of if
+					} // Of for k
+					margins[i] = tempScores[tempClass] - tempBestOther;
+				} // Of if
+
+				if (tempPartial == null) {
+					continue;
+				} // Of if
+
+				// Step 3. Softmax, shifted by the largest score.
+				double tempSum = 0;
+				for (int k = 0; k < numClasses; k++) {
+					tempScores[k] = Math.exp(tempScores[k] - tempMaxScore);
+					tempSum += tempScores[k];
+				} // Of for k
+
+				// Step 4. The contributions to the gradients of all classes.
+				for (int k = 0; k < numClasses; k++) {
+					double tempError = ((k == tempClass) ? 1 : 0)
+							- tempScores[k] / tempSum;
+					int tempWeightOffset = k * tempNumColumns;
+					for (int j = 0; j < tempNumColumns; j++) {
+						tempPartial[tempWeightOffset + j] += tempError
+								* tempInputs[tempOffset + j];
+					} // Of for j
+				} // Of for k
+			} // Of for i
+		}// Of compute
+	}// Of class SoftmaxTask
+
+	/**
+	 ******************
+	 * For integration test.
+	 *
+	 * @param args
+	 *            Not provided.
+	 ******************
+	 */
+	public static void main(String args[]) {
+		System.out.println("Starting self-paced softmax regression ...");
+		SelfPacedSoftmaxRegressor tempRegressor = new SelfPacedSoftmaxRegressor(
+				"src/data/iris.arff");
+
+		tempRegressor.randomizeTrainingTesting(0.6);
+		tempRegressor.train();
+	}// Of main
+}// Of class SelfPacedSoftmaxRegressor
@@ -0,0 +1,98 @@
+package algorithm;
+
+/**
+ * Soft weighting with the linear regularizer: the instance with residual r
+ * has importance 1 - r / lambda if r < lambda, and is not selected otherwise.
+ * Easy instances count fully, and the ones near the pace fade out instead of
+ * being cut off. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 27, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class SoftWeightStrategy implements SelectionStrategy {
+
+	/**
+	 ******************
+	 * Select and weight instances whose residuals are less than the pace.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraPace
+	 *            The parameter lambda.
+	 * @param paraPositions
+	 *            The buffer of the selected positions.
+	 * @param paraRowWeights
+	 *            The buffer of the row weights, sqrt(1 - r / lambda).
+	 * @return The number of selected positions.
+	 ******************
+	 */
+	public int select(ResidualIndex paraIndex, double paraPace, int[] paraPositions,
+			double[] paraRowWeights) {
+		double[] tempResiduals = paraIndex.getResiduals();
+		int resultCount = 0;
+		for (int i = 0; i < tempResiduals.length; i++) {
+			if (tempResiduals[i] < paraPace) {
+				paraPositions[resultCount] = i;
+				paraRowWeights[resultCount] = Math.sqrt(1 - tempResiduals[i] / paraPace);
+				resultCount++;
+			} // Of if
+		} // Of for i
+
+		return resultCount;
+	}// Of select
+
+	/**
+	 ******************
+	 * The weights change with the pace even if the selection does not.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraPace
+	 *            The parameter lambda.
+	 * @return -1.
+	 ******************
+	 */
+	public int count(ResidualIndex paraIndex, double paraPace) {
+		return -1;
+	}// Of count
+
+	/**
+	 ******************
+	 * The lambda within which the given number of instances are, i.e., the
+	 * residual threshold. Their importances are below 1.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraCount
+	 *            The number of instances.
+	 * @param paraSampleSize
+	 *            The sample size for estimating the threshold. Non-positive
+	 *            for exact.
+	 * @return The threshold.
+	 ******************
+	 */
+	public double paceForCount(ResidualIndex paraIndex, int paraCount,
+			int paraSampleSize) {
+		if ((paraSampleSize > 0) && (paraIndex.size() > paraSampleSize)) {
+			return paraIndex.estimateThresholdForCount(paraCount, paraSampleSize);
+		} // Of if
+
+		return paraIndex.thresholdForCount(paraCount);
+	}// Of paceForCount
+
+	/**
+	 ******************
+	 * Are the row weights used?
+	 *
+	 * @return True.
+	 ******************
+	 */
+	public boolean isWeighted() {
+		return true;
+	}// Of isWeighted
+}// Of class SoftWeightStrategy
@@ -0,0 +1,442 @@
+package algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import common.IndexSorter;
+import common.RandomStream;
+
+/**
+ * Self-paced learning with diversity (SPLD) selection. In each group, the
+ * member with the r-th smallest loss is selected if its loss is less than
+ * lambda + gamma / (sqrt(r) + sqrt(r - 1)). The members are bucketed by group
+ * in one counting pass (compressed rows), each group is sorted in O(g log g)
+ * with ties broken by the instance index, and groups are processed in
+ * parallel on the fork/join pool. Gamma is non-negative, so the bound does
+ * not increase with the rank, and the selected members of a group are a
+ * prefix of its sorted members. Hence the walk stops at the first rejection,
+ * and groups whose extreme losses decide the result are not sorted at all.
+ * All groups take part, including group 0. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 26, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class SpldSelector {
+
+	/**
+	 * The losses of the instances.
+	 */
+	double[] losses;
+
+	/**
+	 * The first member position of each group, plus the end.
+	 */
+	int[] groupOffsets;
+
+	/**
+	 * The instances bucketed by group, in ascending order within a group
+	 * before sorting.
+	 */
+	int[] members;
+
+	/**
+	 * Buffer for sorting.
+	 */
+	int[] sortBuffer;
+
+	/**
+	 * Is the instance selected?
+	 */
+	boolean[] selected;
+
+	/**
+	 * The scores loss - lambda - gamma / (sqrt(r) + sqrt(r - 1)). Null for not
+	 * computing.
+	 */
+	double[] scores;
+
+	/**
+	 * The parameter lambda.
+	 */
+	double lambda;
+
+	/**
+	 * The parameter gamma.
+	 */
+	double gamma;
+
+	/**
+	 ******************
+	 * The first constructor. The instances are bucketed by group.
+	 *
+	 * @param paraLosses
+	 *            The losses of the instances. Later changes are seen by
+	 *            select().
+	 * @param paraGroupMembership
+	 *            The group of each instance, non-negative.
+	 ******************
+	 */
+	public SpldSelector(double[] paraLosses, int[] paraGroupMembership) {
+		losses = paraLosses;
+		int tempNumInstances = paraGroupMembership.length;
+
+		// Step 1. Count the members of each group.
+		int tempNumGroups = 0;
+		for (int i = 0; i < tempNumInstances; i++) {
+			if (paraGroupMembership[i] < 0) {
+				throw new IllegalArgumentException("Instance " + i
+						+ " has a negative group: " + paraGroupMembership[i]);
+			} // Of if
+			tempNumGroups = Math.max(tempNumGroups, paraGroupMembership[i] + 1);
+		} // Of for i
+		groupOffsets = new int[tempNumGroups + 1];
+		for (int i = 0; i < tempNumInstances; i++) {
+			groupOffsets[paraGroupMembership[i] + 1]++;
+		} // Of for i
+
+		// Step 2. Prefix sums and placement.
+		for (int g = 0; g < tempNumGroups; g++) {
+			groupOffsets[g + 1] += groupOffsets[g];
+		} // Of for g
+		int[] tempCursors = new int[tempNumGroups];
+		System.arraycopy(groupOffsets, 0, tempCursors, 0, tempNumGroups);
+		members = new int[tempNumInstances];
+		for (int i = 0; i < tempNumInstances; i++) {
+			members[tempCursors[paraGroupMembership[i]]++] = i;
+		} // Of for i
+
+		sortBuffer = new int[tempNumInstances];
+		selected = new boolean[tempNumInstances];
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of groups, i.e., the largest group plus 1.
+	 ******************
+	 */
+	public int getNumGroups() {
+		return groupOffsets.length - 1;
+	}// Of getNumGroups
+
+	/**
+	 ******************
+	 * Select with the given parameters.
+	 *
+	 * @param paraLambda
+	 *            The parameter lambda.
+	 * @param paraGamma
+	 *            The parameter gamma, non-negative.
+	 * @return The selected instances in ascending order.
+	 ******************
+	 */
+	public int[] select(double paraLambda, double paraGamma) {
+		return select(paraLambda, paraGamma, null);
+	}// Of select
+
+	/**
+	 ******************
+	 * Select with the given parameters.
+	 *
+	 * @param paraLambda
+	 *            The parameter lambda.
+	 * @param paraGamma
+	 *            The parameter gamma, non-negative.
+	 * @param paraScores
+	 *            The scores to fill, as long as the losses. Null for not
+	 *            computing them, which allows skipping the sort of many
+	 *            groups.
+	 * @return The selected instances in ascending order.
+	 ******************
+	 */
+	public int[] select(double paraLambda, double paraGamma, double[] paraScores) {
+		int[] tempPositions = new int[selected.length];
+		int tempCount = select(paraLambda, paraGamma, paraScores, tempPositions);
+
+		return Arrays.copyOf(tempPositions, tempCount);
+	}// Of select
+
+	/**
+	 ******************
+	 * Select with the given parameters into a given buffer.
+	 *
+	 * @param paraLambda
+	 *            The parameter lambda.
+	 * @param paraGamma
+	 *            The parameter gamma, non-negative.
+	 * @param paraScores
+	 *            The scores to fill, as long as the losses. Null for not
+	 *            computing them.
+	 * @param paraPositions
+	 *            The buffer, as long as the losses.
+	 * @return The number of selected instances, stored at the front of the
+	 *         buffer in ascending order.
+	 ******************
+	 */
+	public int select(double paraLambda, double paraGamma, double[] paraScores,
+			int[] paraPositions) {
+		if (!(paraGamma >= 0)) {
+			throw new IllegalArgumentException("Gamma must be non-negative: "
+					+ paraGamma);
+		} // Of if
+
+		lambda = paraLambda;
+		gamma = paraGamma;
+		scores = paraScores;
+
+		GroupTask tempTask = new GroupTask(0, getNumGroups());
+		if (members.length <= ParallelSelector.MIN_CHUNK_SIZE) {
+			tempTask.compute();
+		} else {
+			ParallelSelector.pool.invoke(tempTask);
+		} // Of if
+
+		int resultCount = 0;
+		for (int i = 0; i < selected.length; i++) {
+			if (selected[i]) {
+				paraPositions[resultCount] = i;
+				resultCount++;
+			} // Of if
+		} // Of for i
+
+		return resultCount;
+	}// Of select
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @param paraInstance
+	 *            The instance.
+	 * @return Is it selected by the last selection?
+	 ******************
+	 */
+	public boolean isSelected(int paraInstance) {
+		return selected[paraInstance];
+	}// Of isSelected
+
+	/**
+	 ******************
+	 * The bound of the given rank.
+	 *
+	 * @param paraRank
+	 *            The rank, starting from 1.
+	 * @return lambda + gamma / (sqrt(r) + sqrt(r - 1)).
+	 ******************
+	 */
+	double bound(int paraRank) {
+		return lambda + gamma / (Math.sqrt(paraRank) + Math.sqrt(paraRank - 1));
+	}// Of bound
+
+	/**
+	 ******************
+	 * Select in one group.
+	 *
+	 * @param paraGroup
+	 *            The group.
+	 ******************
+	 */
+	void selectInGroup(int paraGroup) {
+		int tempFrom = groupOffsets[paraGroup];
+		int tempTo = groupOffsets[paraGroup + 1];
+		if (tempFrom == tempTo) {
+			return;
+		} // Of if
+
+		// Step 1. Without scores, the extreme losses may decide the group.
+		if (scores == null) {
+			double tempMin = Double.POSITIVE_INFINITY;
+			double tempMax = Double.NEGATIVE_INFINITY;
+			for (int i = tempFrom; i < tempTo; i++) {
+				double tempLoss = losses[members[i]];
+				tempMin = Math.min(tempMin, tempLoss);
+				tempMax = Math.max(tempMax, tempLoss);
+			} // Of for i
+
+			boolean tempAll = tempMax < bound(tempTo - tempFrom);
+			if (tempAll || !(tempMin < bound(1))) {
+				for (int i = tempFrom; i < tempTo; i++) {
+					selected[members[i]] = tempAll;
+				} // Of for i
+				return;
+			} // Of if
+		} // Of if
+
+		// Step 2. Sort by loss, ties broken by index, so that position r - 1
+		// has rank r.
+		IndexSorter.sortByKeys(losses, members, tempFrom, tempTo, sortBuffer);
+
+		// Step 3. The selected members are a prefix.
+		boolean tempSelecting = true;
+		for (int i = tempFrom; i < tempTo; i++) {
+			int tempInstance = members[i];
+			double tempBound = bound(i - tempFrom + 1);
+			tempSelecting = tempSelecting && (losses[tempInstance] < tempBound);
+			selected[tempInstance] = tempSelecting;
+			if (scores != null) {
+				// The same order of operations as in ToyExample.
+				scores[tempInstance] = losses[tempInstance] - lambda - gamma
+						/ (Math.sqrt(i - tempFrom + 1) + Math.sqrt(i - tempFrom));
+			} else if (!tempSelecting) {
+				// The rest are not selected.
+				for (int j = i + 1; j < tempTo; j++) {
+					selected[members[j]] = false;
+				} // Of for j
+				break;
+			} // Of if
+		} // Of for i
+	}// Of selectInGroup
+
+	/**
+	 * Selection on a range of groups. Ranges with many members are split in
+	 * halves.
+	 */
+	class GroupTask extends RecursiveAction {
+		/**
+		 * For serialization.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The first group.
+		 */
+		int fromGroup;
+
+		/**
+		 * The group after the last one.
+		 */
+		int toGroup;
+
+		/**
+		 ******************
+		 * The first constructor.
+		 *
+		 * @param paraFromGroup
+		 *            The first group.
+		 * @param paraToGroup
+		 *            The group after the last one.
+		 ******************
+		 */
+		GroupTask(int paraFromGroup, int paraToGroup) {
+			fromGroup = paraFromGroup;
+			toGroup = paraToGroup;
+		}// Of the first constructor
+
+		/**
+		 ******************
+		 * Split the range, or process it.
+		 ******************
+		 */
+		protected void compute() {
+			int tempNumMembers = groupOffsets[toGroup] - groupOffsets[fromGroup];
+			if ((toGroup - fromGroup > 1)
+					&& (tempNumMembers > ParallelSelector.MIN_CHUNK_SIZE)) {
+				int tempMiddle = (fromGroup + toGroup) >>> 1;
+				invokeAll(new GroupTask(fromGroup, tempMiddle), new GroupTask(
+						tempMiddle, toGroup));
+				return;
+			} // Of if
+
+			for (int g = fromGroup; g < toGroup; g++) {
+				selectInGroup(g);
+			} // Of for g
+		}// Of compute
+	}// Of class GroupTask
+
+	/**
+	 ******************
+	 * Selections and scores should match the formulation of the SPLD paper,
+	 * i.e., ranking each group with ToyExample.rankAscendant and comparing
+	 * every member with the bound of its rank, on random cases with ties.
+	 *
+	 * @return True if passed.
+	 ******************
+	 */
+	public static boolean testAgainstRanks() {
+		RandomStream tempStream = new RandomStream(21);
+		boolean resultPassed = true;
+		for (int tempCase = 0; tempCase < 200; tempCase++) {
+			// Step 1. A random case. Losses on a coarse grid give ties. The
+			// last case is split over the fork/join pool.
+			int tempNumInstances = 1 + tempStream.nextInt(60);
+			int tempNumGroups = 1 + tempStream.nextInt(6);
+			if (tempCase == 199) {
+				tempNumInstances = 20000;
+				tempNumGroups = 50;
+			} // Of if
+			double[] tempLosses = new double[tempNumInstances];
+			int[] tempGroups = new int[tempNumInstances];
+			for (int i = 0; i < tempNumInstances; i++) {
+				tempLosses[i] = tempStream.nextInt(20) * 0.025;
+				tempGroups[i] = tempStream.nextInt(tempNumGroups);
+			} // Of for i
+			double tempLambda = tempStream.nextDouble() * 0.3;
+			double tempGamma = (tempCase % 10 == 0) ? 0 : tempStream.nextDouble() * 0.5;
+
+			// Step 2. Rank each group and compare with the bounds.
+			boolean[] tempExpected = new boolean[tempNumInstances];
+			double[] tempExpectedScores = new double[tempNumInstances];
+			for (int g = 0; g < tempNumGroups; g++) {
+				int[] tempMembers = ToyExample.which(tempGroups, g);
+				double[] tempGroupLosses = new double[tempMembers.length];
+				for (int j = 0; j < tempMembers.length; j++) {
+					tempGroupLosses[j] = tempLosses[tempMembers[j]];
+				} // Of for j
+				int[] tempRanks = ToyExample.rankAscendant(tempGroupLosses);
+				for (int j = 0; j < tempMembers.length; j++) {
+					double tempScore = tempGroupLosses[j] - tempLambda - tempGamma
+							/ (Math.sqrt(tempRanks[j]) + Math.sqrt(tempRanks[j] - 1));
+					tempExpected[tempMembers[j]] = tempGroupLosses[j] < tempLambda
+							+ tempGamma
+							/ (Math.sqrt(tempRanks[j]) + Math.sqrt(tempRanks[j] - 1));
+					tempExpectedScores[tempMembers[j]] = tempScore;
+				} // Of for j
+			} // Of for g
+			int[] tempExpectedIndices = ToyExample.which(tempExpected);
+
+			// Step 3. With and without scores.
+			SpldSelector tempSelector = new SpldSelector(tempLosses, tempGroups);
+			double[] tempScores = new double[tempNumInstances];
+			boolean tempSame = Arrays.equals(tempExpectedIndices,
+					tempSelector.select(tempLambda, tempGamma, tempScores))
+					&& Arrays.equals(tempExpectedScores, tempScores)
+					&& Arrays.equals(tempExpectedIndices,
+							tempSelector.select(tempLambda, tempGamma));
+			if (!tempSame) {
+				System.out.println("Case " + tempCase + " differs: "
+						+ Arrays.toString(tempExpectedIndices));
+			} // Of if
+			resultPassed &= tempSame;
+		} // Of for tempCase
+
+		boolean tempRejected = false;
+		try {
+			new SpldSelector(new double[] { 0.1 }, new int[] { 0 }).select(0.1, -0.1);
+		} catch (IllegalArgumentException ee) {
+			tempRejected = true;
+		} // Of try
+		resultPassed &= tempRejected;
+
+		System.out.println("200 random cases match the ranks, negative gamma rejected: "
+				+ tempRejected + ", passed: " + resultPassed);
+		return resultPassed;
+	}// Of testAgainstRanks
+
+	/**
+	 ******************
+	 * For unit test.
+	 *
+	 * @param args
+	 *            Not used now.
+	 ******************
+	 */
+	public static void main(String args[]) {
+		testAgainstRanks();
+	}// Of main
+}// Of class SpldSelector
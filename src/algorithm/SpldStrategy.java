@@ -0,0 +1,139 @@
+package algorithm;
+
+import common.IndexView;
+
+/**
+ * Self-paced learning with diversity on groups of instances, with the pace as
+ * lambda and a fixed gamma. The groups are given for all instances of the
+ * dataset and bucketed once for each training set, and SpldSelector reads the
+ * shared residuals directly. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 27, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class SpldStrategy implements SelectionStrategy {
+
+	/**
+	 * The group of each instance of the dataset.
+	 */
+	int[] groups;
+
+	/**
+	 * The parameter gamma.
+	 */
+	double gamma;
+
+	/**
+	 * The selector of the current training set.
+	 */
+	SpldSelector selector;
+
+	/**
+	 * The residual buffer of the selector.
+	 */
+	double[] selectorResiduals;
+
+	/**
+	 * The training set of the selector.
+	 */
+	IndexView selectorView;
+
+	/**
+	 ******************
+	 * The first constructor.
+	 *
+	 * @param paraGroups
+	 *            The group of each instance of the dataset, non-negative.
+	 * @param paraGamma
+	 *            The parameter gamma.
+	 ******************
+	 */
+	public SpldStrategy(int[] paraGroups, double paraGamma) {
+		groups = paraGroups;
+		gamma = paraGamma;
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * Select with SPLD.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraPace
+	 *            The parameter lambda.
+	 * @param paraPositions
+	 *            The buffer of the selected positions.
+	 * @param paraRowWeights
+	 *            Not used.
+	 * @return The number of selected positions.
+	 ******************
+	 */
+	public int select(ResidualIndex paraIndex, double paraPace, int[] paraPositions,
+			double[] paraRowWeights) {
+		// Bucket the training set only when it changes.
+		if ((selectorResiduals != paraIndex.getResiduals())
+				|| (selectorView != paraIndex.getView())) {
+			IndexView tempView = paraIndex.getView();
+			int[] tempMembership = new int[tempView.size()];
+			for (int i = 0; i < tempMembership.length; i++) {
+				tempMembership[i] = groups[tempView.get(i)];
+			} // Of for i
+			selector = new SpldSelector(paraIndex.getResiduals(), tempMembership);
+			selectorResiduals = paraIndex.getResiduals();
+			selectorView = tempView;
+		} // Of if
+
+		return selector.select(paraPace, gamma, null, paraPositions);
+	}// Of select
+
+	/**
+	 ******************
+	 * Counting needs a selection.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraPace
+	 *            The parameter lambda.
+	 * @return -1.
+	 ******************
+	 */
+	public int count(ResidualIndex paraIndex, double paraPace) {
+		return -1;
+	}// Of count
+
+	/**
+	 ******************
+	 * The coverage of lambda depends on the groups and gamma, hence it is not
+	 * supported.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraCount
+	 *            The number of instances.
+	 * @param paraSampleSize
+	 *            The sample size.
+	 * @return Never.
+	 ******************
+	 */
+	public double paceForCount(ResidualIndex paraIndex, int paraCount,
+			int paraSampleSize) {
+		throw new UnsupportedOperationException(
+				"The pace of SPLD is not a coverage level.");
+	}// Of paceForCount
+
+	/**
+	 ******************
+	 * Are the row weights used?
+	 *
+	 * @return False.
+	 ******************
+	 */
+	public boolean isWeighted() {
+		return false;
+	}// Of isWeighted
+}// Of class SpldStrategy
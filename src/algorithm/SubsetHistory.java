@@ -0,0 +1,138 @@
+package algorithm;
+
+import common.IndexView;
+import common.RandomStream;
+
+/**
+ * Fingerprints of the recently fitted subsets, kept in a ring. A fingerprint
+ * is the sum of the mixed instance indices, hence it does not depend on the
+ * order of the instances and costs one pass over the selection. A fit is
+ * determined by its subset, so a subset equal to the last one means that
+ * the weights have converged, and one equal to an earlier one means that the
+ * selection cycles. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 27, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class SubsetHistory {
+
+	/**
+	 * The fingerprints, the latest at position (numRecorded - 1) % length.
+	 */
+	long[] fingerprints;
+
+	/**
+	 * The number of fingerprints recorded since the last clear.
+	 */
+	int numRecorded;
+
+	/**
+	 ******************
+	 * The first constructor.
+	 *
+	 * @param paraCapacity
+	 *            The number of fingerprints kept, i.e., the longest cycle
+	 *            recognized.
+	 ******************
+	 */
+	public SubsetHistory(int paraCapacity) {
+		if (paraCapacity < 1) {
+			throw new IllegalArgumentException("The capacity must be positive: "
+					+ paraCapacity);
+		} // Of if
+		fingerprints = new long[paraCapacity];
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * The fingerprint of a selection.
+	 *
+	 * @param paraView
+	 *            The instances the positions refer to.
+	 * @param paraPositions
+	 *            The selected positions.
+	 * @param paraNumSelected
+	 *            The number of selected positions.
+	 * @param paraRowWeights
+	 *            The row weights of the selected positions, mixed into the
+	 *            fingerprint. Null for a hard selection.
+	 * @return The fingerprint.
+	 ******************
+	 */
+	public static long fingerprint(IndexView paraView, int[] paraPositions,
+			int paraNumSelected, double[] paraRowWeights) {
+		long resultFingerprint = RandomStream.mix64(paraNumSelected);
+		for (int i = 0; i < paraNumSelected; i++) {
+			long tempKey = paraView.get(paraPositions[i]);
+			if (paraRowWeights != null) {
+				tempKey = (tempKey << 32) ^ RandomStream.mix64(Double
+						.doubleToLongBits(paraRowWeights[i]));
+			} // Of if
+			resultFingerprint += RandomStream.mix64(tempKey + 0x9e3779b97f4a7c15L);
+		} // Of for i
+
+		return resultFingerprint;
+	}// Of fingerprint
+
+	/**
+	 ******************
+	 * Forget all fingerprints.
+	 ******************
+	 */
+	public void clear() {
+		numRecorded = 0;
+	}// Of clear
+
+	/**
+	 ******************
+	 * How many records ago was the fingerprint seen?
+	 *
+	 * @param paraFingerprint
+	 *            The fingerprint.
+	 * @return 1 for the latest record, 2 for the one before it, and so on. 0
+	 *         if not kept.
+	 ******************
+	 */
+	public int lastSeen(long paraFingerprint) {
+		int tempNumKept = Math.min(numRecorded, fingerprints.length);
+		for (int i = 1; i <= tempNumKept; i++) {
+			if (fingerprints[(numRecorded - i) % fingerprints.length] == paraFingerprint) {
+				return i;
+			} // Of if
+		} // Of for i
+
+		return 0;
+	}// Of lastSeen
+
+	/**
+	 ******************
+	 * Record a fingerprint as the latest one.
+	 *
+	 * @param paraFingerprint
+	 *            The fingerprint.
+	 ******************
+	 */
+	public void record(long paraFingerprint) {
+		fingerprints[numRecorded % fingerprints.length] = paraFingerprint;
+		numRecorded++;
+	}// Of record
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The latest fingerprint.
+	 ******************
+	 */
+	public long getLatest() {
+		if (numRecorded == 0) {
+			throw new IllegalStateException("No fingerprint is recorded.");
+		} // Of if
+		return fingerprints[(numRecorded - 1) % fingerprints.length];
+	}// Of getLatest
+}// Of class SubsetHistory
@@ -0,0 +1,94 @@
+package algorithm;
+
+/**
+ * Hard threshold selection: the instances whose residuals are less than the
+ * pace. One pass over the shared residuals without sorting. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 27, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class ThresholdStrategy implements SelectionStrategy {
+
+	/**
+	 ******************
+	 * Select instances whose residuals are less than the pace.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraPace
+	 *            The threshold.
+	 * @param paraPositions
+	 *            The buffer of the selected positions.
+	 * @param paraRowWeights
+	 *            Not used.
+	 * @return The number of selected positions.
+	 ******************
+	 */
+	public int select(ResidualIndex paraIndex, double paraPace, int[] paraPositions,
+			double[] paraRowWeights) {
+		double[] tempResiduals = paraIndex.getResiduals();
+		int resultCount = 0;
+		for (int i = 0; i < tempResiduals.length; i++) {
+			if (tempResiduals[i] < paraPace) {
+				paraPositions[resultCount] = i;
+				resultCount++;
+			} // Of if
+		} // Of for i
+
+		return resultCount;
+	}// Of select
+
+	/**
+	 ******************
+	 * Count by binary search on the sorted residuals.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraPace
+	 *            The threshold.
+	 * @return The number of instances.
+	 ******************
+	 */
+	public int count(ResidualIndex paraIndex, double paraPace) {
+		return paraIndex.countWithin(paraPace);
+	}// Of count
+
+	/**
+	 ******************
+	 * The residual threshold within which the given number of instances are.
+	 *
+	 * @param paraIndex
+	 *            The residuals.
+	 * @param paraCount
+	 *            The number of instances.
+	 * @param paraSampleSize
+	 *            The sample size for estimating the threshold. Non-positive
+	 *            for exact.
+	 * @return The threshold.
+	 ******************
+	 */
+	public double paceForCount(ResidualIndex paraIndex, int paraCount,
+			int paraSampleSize) {
+		if ((paraSampleSize > 0) && (paraIndex.size() > paraSampleSize)) {
+			return paraIndex.estimateThresholdForCount(paraCount, paraSampleSize);
+		} // Of if
+
+		return paraIndex.thresholdForCount(paraCount);
+	}// Of paceForCount
+
+	/**
+	 ******************
+	 * Are the row weights used?
+	 *
+	 * @return False.
+	 ******************
+	 */
+	public boolean isWeighted() {
+		return false;
+	}// Of isWeighted
+}// Of class ThresholdStrategy
@@ -18,71 +18,45 @@ public class ToyExample {
 
 	/**
 	 ****************** 
-	 * For integration test.
+	 * Self-paced learning with diversity. Delegated to SpldSelector, which
+	 * buckets the groups in one pass and sorts each group. As before, the
+	 * groups are 1 to k, and instances of other groups are neither selected
+	 * nor scored.
 	 * 
-	 * @param args
-	 *            Not provided.
+	 * @param paraLossArray
+	 *            The losses.
+	 * @param paraGroupMembership
+	 *            The group of each instance.
+	 * @param paraLambda
+	 *            The parameter lambda.
+	 * @param paraGamma
+	 *            The parameter gamma, non-negative.
+	 * @return The selected indices in ascending order.
 	 ****************** 
 	 */
 	public static int[] spld(double[] paraLossArray, int[] paraGroupMembership,
 			double paraLambda, double paraGamma) {
-		// Step 1. Count the number of groups. We assume that the group number
-		// is from 1 to k.
-		int tempNumGroups = -1;
-		for (int i = 0; i < paraGroupMembership.length; i++) {
-			if (tempNumGroups < paraGroupMembership[i]) {
-				tempNumGroups = paraGroupMembership[i];
-			}// Of if
-		}// Of for i
-		System.out.println("tempNumGroups = " + tempNumGroups);
-
-		int[] tempGroupIndices = new int[tempNumGroups];
-		for (int i = 0; i < tempGroupIndices.length; i++) {
-			tempGroupIndices[i] = i + 1;
-		}// Of for i
-		System.out.println("tempGroupIndices = " + Arrays.toString(tempGroupIndices));
-		// R: groupidx = unique(groupmembership)
-
-		// Step 2. Initialize selected indices and respective score.
-		boolean[] tempSelectedIndices = new boolean[paraLossArray.length];
+		// Step 1. Instances out of groups 1 to k are put in group 0.
+		int[] tempGroupMembership = new int[paraGroupMembership.length];
+		for (int i = 0; i < tempGroupMembership.length; i++) {
+			tempGroupMembership[i] = Math.max(paraGroupMembership[i], 0);
+		} // Of for i
+
+		// Step 2. Select in all groups.
+		SpldSelector tempSelector = new SpldSelector(paraLossArray,
+				tempGroupMembership);
 		double[] tempSelectedScores = new double[paraLossArray.length];
+		tempSelector.select(paraLambda, paraGamma, tempSelectedScores);
 
-		// Step 3. Select in each group.
-		for (int i = 0; i < tempNumGroups; i++) {
-			// Step 3.1 Form the current group.
-			int[] tempInGroupIndices = which(paraGroupMembership, tempGroupIndices[i]);
-			System.out.println("tempInGroupIndices = " + Arrays.toString(tempInGroupIndices));
-			int tempGroupSize = tempInGroupIndices.length;
-
-			// Step 3.2 Copy respective loss.
-			double[] tempInGroupLossArray = new double[tempGroupSize];
-			for (int j = 0; j < tempInGroupLossArray.length; j++) {
-				tempInGroupLossArray[j] = paraLossArray[tempInGroupIndices[j]];
-			}// Of for j
-
-			// Step 3.3 Rank the loss in the current group in ascendant order. 
-			System.out.println("tempInGroupLossArray = "
-					+ Arrays.toString(tempInGroupLossArray));
-			int[] tempInGroupRankArray = rankAscendant(tempInGroupLossArray);
-			System.out.println("tempInGroupRankArray = "
-					+ Arrays.toString(tempInGroupRankArray));
-
-			//Step 3.4 Determine which ones in the current group to choose.
-			for (int j = 0; j < tempGroupSize; j++) {
-				if (tempInGroupLossArray[j] < paraLambda
-						+ paraGamma
-						/ (Math.sqrt(tempInGroupRankArray[j]) + Math
-								.sqrt(tempInGroupRankArray[j] - 1))) {
-					tempSelectedIndices[tempInGroupIndices[j]] = true;
-					System.out.println("Selecting: " + tempInGroupIndices[j]);
-				}// Of if
-				tempSelectedScores[tempInGroupIndices[j]] = tempInGroupLossArray[j]
-						- paraLambda
-						- paraGamma
-						/ (Math.sqrt(tempInGroupRankArray[j]) + Math
-								.sqrt(tempInGroupRankArray[j] - 1));
-			}// Of for j
-		}// Of for i
+		// Step 3. Ignore group 0.
+		boolean[] tempSelectedIndices = new boolean[paraLossArray.length];
+		for (int i = 0; i < tempGroupMembership.length; i++) {
+			if (tempGroupMembership[i] == 0) {
+				tempSelectedScores[i] = 0;
+			} else {
+				tempSelectedIndices[i] = tempSelector.isSelected(i);
+			} // Of if
+		} // Of for i
 
 		System.out.println("New scores: " + Arrays.toString(tempSelectedScores));
 		int[] resultSelectedIndices = which(tempSelectedIndices);
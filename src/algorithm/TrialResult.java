@@ -0,0 +1,205 @@
+package algorithm;
+
+/**
+ * The result of one trial of self-paced regression, i.e., one random
+ * training/testing split. Trials return these records instead of writing
+ * static fields, so that they can run concurrently. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 18, 2020.<br>
+ *         Last modified: August 18, 2020.
+ * @version 1.0
+ */
+public class TrialResult {
+
+	/**
+	 * The index of the trial.
+	 */
+	int trialIndex;
+
+	/**
+	 * The seed of the random split.
+	 */
+	long seed;
+
+	/**
+	 * The testing MAE with all training data.
+	 */
+	double initialMae;
+
+	/**
+	 * The testing MAE with selected training data.
+	 */
+	double finalMae;
+
+	/**
+	 * The testing RMSE with selected training data.
+	 */
+	double finalRmse;
+
+	/**
+	 * The final distance threshold.
+	 */
+	double finalThreshold;
+
+	/**
+	 * The number of training instances.
+	 */
+	int numTrainingInstances;
+
+	/**
+	 * The number of selected training instances.
+	 */
+	int numSelectedInstances;
+
+	/**
+	 ******************
+	 * The first constructor.
+	 *
+	 * @param paraTrialIndex
+	 *            The index of the trial.
+	 * @param paraSeed
+	 *            The seed of the random split.
+	 * @param paraInitialMae
+	 *            The testing MAE with all training data.
+	 * @param paraFinalMae
+	 *            The testing MAE with selected training data.
+	 * @param paraFinalRmse
+	 *            The testing RMSE with selected training data.
+	 * @param paraFinalThreshold
+	 *            The final distance threshold.
+	 * @param paraNumTrainingInstances
+	 *            The number of training instances.
+	 * @param paraNumSelectedInstances
+	 *            The number of selected training instances.
+	 ******************
+	 */
+	public TrialResult(int paraTrialIndex, long paraSeed,
+			double paraInitialMae, double paraFinalMae, double paraFinalRmse,
+			double paraFinalThreshold, int paraNumTrainingInstances,
+			int paraNumSelectedInstances) {
+		trialIndex = paraTrialIndex;
+		seed = paraSeed;
+		initialMae = paraInitialMae;
+		finalMae = paraFinalMae;
+		finalRmse = paraFinalRmse;
+		finalThreshold = paraFinalThreshold;
+		numTrainingInstances = paraNumTrainingInstances;
+		numSelectedInstances = paraNumSelectedInstances;
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The index of the trial.
+	 ******************
+	 */
+	public int getTrialIndex() {
+		return trialIndex;
+	}// Of getTrialIndex
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The seed of the random split.
+	 ******************
+	 */
+	public long getSeed() {
+		return seed;
+	}// Of getSeed
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The testing MAE with all training data.
+	 ******************
+	 */
+	public double getInitialMae() {
+		return initialMae;
+	}// Of getInitialMae
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The testing MAE with selected training data.
+	 ******************
+	 */
+	public double getFinalMae() {
+		return finalMae;
+	}// Of getFinalMae
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The testing RMSE with selected training data.
+	 ******************
+	 */
+	public double getFinalRmse() {
+		return finalRmse;
+	}// Of getFinalRmse
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The final distance threshold.
+	 ******************
+	 */
+	public double getFinalThreshold() {
+		return finalThreshold;
+	}// Of getFinalThreshold
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of training instances.
+	 ******************
+	 */
+	public int getNumTrainingInstances() {
+		return numTrainingInstances;
+	}// Of getNumTrainingInstances
+
+	/**
+	 ******************
+	 * Getter.
+	 *
+	 * @return The number of selected training instances.
+	 ******************
+	 */
+	public int getNumSelectedInstances() {
+		return numSelectedInstances;
+	}// Of getNumSelectedInstances
+
+	/**
+	 ******************
+	 * The relative improvement of the MAE.
+	 *
+	 * @return (initial MAE - final MAE) / initial MAE.
+	 ******************
+	 */
+	public double getImprovement() {
+		return (initialMae - finalMae) / initialMae;
+	}// Of getImprovement
+
+	/**
+	 ******************
+	 * Show the result.
+	 ******************
+	 */
+	public String toString() {
+		return "Trial " + trialIndex + " (seed " + seed + "): MAE "
+				+ initialMae + " -> " + finalMae + ", RMSE = " + finalRmse
+				+ ", threshold = " + finalThreshold + ", "
+				+ numSelectedInstances + " of " + numTrainingInstances
+				+ " instances selected.";
+	}// Of toString
+}// Of class TrialResult
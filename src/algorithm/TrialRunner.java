@@ -0,0 +1,203 @@
+package algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import common.Dataset;
+import common.RandomStream;
+
+/**
+ * Repeated trials of self-paced regression on a bounded thread pool. Each
+ * trial has its own regressor and its own seeded random stream, and the
+ * (normalized) dataset is shared read-only. The seeds are drawn from the base
+ * seed before any trial starts, and the results are collected in trial
+ * order, so the results do not depend on scheduling. <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 18, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class TrialRunner {
+
+	/**
+	 * The dataset shared by all trials.
+	 */
+	Dataset dataset;
+
+	/**
+	 * The fraction of the training set.
+	 */
+	double trainingFraction = 0.6;
+
+	/**
+	 * The number of threads.
+	 */
+	int numThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The fit cache shared by all trials. Null for not caching.
+	 */
+	FitCache fitCache;
+
+	/**
+	 ******************
+	 * The first constructor.
+	 *
+	 * @param paraDataset
+	 *            The dataset, already normalized. It is not changed.
+	 ******************
+	 */
+	public TrialRunner(Dataset paraDataset) {
+		dataset = paraDataset;
+	}// Of the first constructor
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraTrainingFraction
+	 *            The fraction of the training set.
+	 ******************
+	 */
+	public void setTrainingFraction(double paraTrainingFraction) {
+		trainingFraction = paraTrainingFraction;
+	}// Of setTrainingFraction
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraNumThreads
+	 *            The number of threads. 1 for running in the calling order on
+	 *            one thread.
+	 ******************
+	 */
+	public void setNumThreads(int paraNumThreads) {
+		numThreads = paraNumThreads;
+	}// Of setNumThreads
+
+	/**
+	 ******************
+	 * Setter. Trials repeating a split, or a subset of one, then reuse the
+	 * fits.
+	 *
+	 * @param paraFitCache
+	 *            The cache shared by all trials. Null for not caching.
+	 ******************
+	 */
+	public void setFitCache(FitCache paraFitCache) {
+		fitCache = paraFitCache;
+	}// Of setFitCache
+
+	/**
+	 ******************
+	 * Run one trial.
+	 *
+	 * @param paraTrialIndex
+	 *            The index of the trial.
+	 * @param paraSeed
+	 *            The seed of the random split.
+	 * @return The result.
+	 ******************
+	 */
+	public TrialResult runTrial(int paraTrialIndex, long paraSeed) {
+		SelfPacedRegressorLY tempRegressor = new SelfPacedRegressorLY(dataset);
+		tempRegressor.setFitCache(fitCache);
+		tempRegressor.randomizeTrainingTesting(trainingFraction,
+				new RandomStream(paraSeed));
+		tempRegressor.train();
+
+		return new TrialResult(paraTrialIndex, paraSeed,
+				tempRegressor.getInitialMae(),
+				tempRegressor.computeTestingMae(),
+				Math.sqrt(tempRegressor.computeTestingRsme()),
+				tempRegressor.getFinalThreshold(),
+				tempRegressor.getNumTrainingInstances(),
+				tempRegressor.getNumSelectedInstances());
+	}// Of runTrial
+
+	/**
+	 ******************
+	 * Run the trials.
+	 *
+	 * @param paraNumTrials
+	 *            The number of trials.
+	 * @param paraBaseSeed
+	 *            The seed from which the seeds of the trials are drawn.
+	 * @return The results in trial order.
+	 ******************
+	 */
+	public TrialResult[] run(int paraNumTrials, long paraBaseSeed) {
+		// Step 1. Draw seeds in advance.
+		RandomStream tempStream = new RandomStream(paraBaseSeed);
+		long[] tempSeeds = new long[paraNumTrials];
+		for (int i = 0; i < paraNumTrials; i++) {
+			tempSeeds[i] = tempStream.nextLong();
+		} // Of for i
+
+		TrialResult[] resultTrials = new TrialResult[paraNumTrials];
+		if (numThreads <= 1) {
+			for (int i = 0; i < paraNumTrials; i++) {
+				resultTrials[i] = runTrial(i, tempSeeds[i]);
+			} // Of for i
+			return resultTrials;
+		} // Of if
+
+		// Step 2. Submit all trials to a bounded pool.
+		ExecutorService tempPool = Executors.newFixedThreadPool(numThreads);
+		List<Future<TrialResult>> tempFutures = new ArrayList<Future<TrialResult>>(
+				paraNumTrials);
+		try {
+			for (int i = 0; i < paraNumTrials; i++) {
+				final int tempIndex = i;
+				final long tempSeed = tempSeeds[i];
+				tempFutures.add(tempPool.submit(new Callable<TrialResult>() {
+					public TrialResult call() {
+						return runTrial(tempIndex, tempSeed);
+					}// Of call
+				}));
+			} // Of for i
+
+			// Step 3. Collect in trial order.
+			for (int i = 0; i < paraNumTrials; i++) {
+				resultTrials[i] = tempFutures.get(i).get();
+			} // Of for i
+		} catch (InterruptedException ee) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for trials.", ee);
+		} catch (ExecutionException ee) {
+			throw new RuntimeException("A trial failed.", ee.getCause());
+		} finally {
+			tempPool.shutdownNow();
+		} // Of try
+
+		return resultTrials;
+	}// Of run
+
+	/**
+	 ******************
+	 * The mean of the relative MAE improvements.
+	 *
+	 * @param paraResults
+	 *            The results.
+	 * @return The mean, summed in trial order.
+	 ******************
+	 */
+	public static double meanImprovement(TrialResult[] paraResults) {
+		double tempSum = 0;
+		for (int i = 0; i < paraResults.length; i++) {
+			tempSum += paraResults[i].getImprovement();
+		} // Of for i
+
+		return tempSum / paraResults.length;
+	}// Of meanImprovement
+}// Of class TrialRunner
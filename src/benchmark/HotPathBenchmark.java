@@ -0,0 +1,612 @@
+package benchmark;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import algorithm.LeastSquaresSolver;
+import algorithm.SelfPacedLinearRegressor;
+import algorithm.SelfPacedLogisticRegressor;
+import algorithm.ToyExample;
+import common.Dataset;
+import common.DatasetCache;
+import common.IndexView;
+import common.RandomStream;
+
+/**
+ * Benchmarks of the hot paths: selection, training with and without instance
+ * weights, logistic training, testing error evaluation and SPLD. Each
+ * benchmark runs on the meta-test datasets and on synthetic data of
+ * different sizes, with different numbers of threads. Each thread owns its
+ * operation, i.e., its own regressor on the shared dataset. The report has
+ * the throughput, the time per operation, and the allocated bytes per
+ * operation measured by the thread allocation counter of HotSpot.<br>
+ * The harness follows the JMH structure (warm-up, measurement, a sink against
+ * dead code elimination) without the dependency, since the project is built
+ * without a dependency manager. Console output of the measured code is
+ * discarded during runs, but the string building for it is measured.<br>
+ * Usage: HotPathBenchmark [threads, e.g., 1,2,4] [measurement milliseconds].
+ * <br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Data Created: August 19, 2020.<br>
+ *         Last modified: August 19, 2020.
+ * @version 1.0
+ */
+public class HotPathBenchmark {
+
+	/**
+	 * The meta-test regression datasets.
+	 */
+	public static final String[] META_TEST_FILES = {
+			"src/data/meta-test/kin8nm.csv", "src/data/meta-test/Folds5x2_pp.csv",
+			"src/data/meta-test/elevators.csv", "src/data/meta-test/fried.csv",
+			"src/data/meta-test/energydata_complete.csv" };
+
+	/**
+	 * The classification dataset for logistic regression.
+	 */
+	public static final String CLASSIFICATION_FILE = "src/data/wdbc_norm_ex.arff";
+
+	/**
+	 * The sizes of synthetic data.
+	 */
+	public static final int[] SYNTHETIC_SIZES = { 1000, 10000, 100000 };
+
+	/**
+	 * The number of synthetic features, excluding the bias.
+	 */
+	public static final int SYNTHETIC_FEATURES = 10;
+
+	/**
+	 * Logistic training and SPLD are much slower, so they use at most this
+	 * many instances.
+	 */
+	public static final int MAX_SLOW_SIZE = 10000;
+
+	/**
+	 * The warm-up time of each measurement.
+	 */
+	long warmupMillis = 1000;
+
+	/**
+	 * The measurement time.
+	 */
+	long measureMillis = 2000;
+
+	/**
+	 * Is the current measurement stopped?
+	 */
+	volatile boolean stopped;
+
+	/**
+	 * Results are added here so that they are not eliminated as dead code.
+	 */
+	static volatile double sink;
+
+	/**
+	 * Output of the measured code goes here.
+	 */
+	static final PrintStream NULL_OUTPUT = new PrintStream(new OutputStream() {
+		public void write(int paraByte) {
+		}// Of write
+
+		public void write(byte[] paraBytes, int paraOffset, int paraLength) {
+		}// Of write
+	});
+
+	/**
+	 * An operation to be measured. Each thread has its own one.
+	 */
+	public abstract static class Operation {
+		/**
+		 ******************
+		 * Run once.
+		 *
+		 * @return Any value depending on the result.
+		 ******************
+		 */
+		public abstract double run();
+	}// Of class Operation
+
+	/**
+	 * A benchmark, creating operations on a dataset.
+	 */
+	public abstract static class Benchmark {
+		/**
+		 * The name.
+		 */
+		String name;
+
+		/**
+		 * Only for datasets with 0/1 outputs?
+		 */
+		boolean classification;
+
+		/**
+		 * Run only on data up to MAX_SLOW_SIZE instances?
+		 */
+		boolean slow;
+
+		/**
+		 ******************
+		 * The first constructor.
+		 *
+		 * @param paraName
+		 *            The name.
+		 * @param paraClassification
+		 *            Only for datasets with 0/1 outputs?
+		 * @param paraSlow
+		 *            Run only on small data?
+		 ******************
+		 */
+		public Benchmark(String paraName, boolean paraClassification,
+				boolean paraSlow) {
+			name = paraName;
+			classification = paraClassification;
+			slow = paraSlow;
+		}// Of the first constructor
+
+		/**
+		 ******************
+		 * Create an operation.
+		 *
+		 * @param paraDataset
+		 *            The dataset.
+		 * @param paraStream
+		 *            The random stream of the operation.
+		 * @return The operation.
+		 ******************
+		 */
+		public abstract Operation create(Dataset paraDataset,
+				RandomStream paraStream);
+	}// Of class Benchmark
+
+	/**
+	 ******************
+	 * Setter.
+	 *
+	 * @param paraWarmupMillis
+	 *            The warm-up time.
+	 * @param paraMeasureMillis
+	 *            The measurement time.
+	 ******************
+	 */
+	public void setTimes(long paraWarmupMillis, long paraMeasureMillis) {
+		warmupMillis = paraWarmupMillis;
+		measureMillis = paraMeasureMillis;
+	}// Of setTimes
+
+	/**
+	 ******************
+	 * The benchmarks.
+	 *
+	 * @return The benchmarks.
+	 ******************
+	 */
+	public static List<Benchmark> getBenchmarks() {
+		List<Benchmark> resultBenchmarks = new ArrayList<Benchmark>();
+
+		resultBenchmarks.add(new Benchmark("linear.select", false, false) {
+			public Operation create(Dataset paraDataset, RandomStream paraStream) {
+				final SelfPacedLinearRegressor tempRegressor = new SelfPacedLinearRegressor(
+						paraDataset);
+				tempRegressor.randomizeTrainingTesting(0.6, paraStream);
+				// Two hyperplanes in turn, so that every call recomputes the
+				// residuals.
+				final double[][] tempWeights = new double[2][];
+				tempWeights[0] = fit(paraDataset);
+				tempWeights[1] = tempWeights[0].clone();
+				tempWeights[1][0] += 1e-3;
+				final int[] tempBuffer = new int[paraDataset.getNumInstances()];
+				return new Operation() {
+					int counter;
+
+					public double run() {
+						counter++;
+						return tempRegressor.select(tempWeights[counter & 1], 0.2,
+								tempBuffer);
+					}// Of run
+				};
+			}// Of create
+		});
+
+		resultBenchmarks.add(new Benchmark("linear.trainMatrix", false, false) {
+			public Operation create(Dataset paraDataset, RandomStream paraStream) {
+				final SelfPacedLinearRegressor tempRegressor = new SelfPacedLinearRegressor(
+						paraDataset);
+				IndexView tempAll = IndexView.range(paraDataset.getNumInstances());
+				final double[][] tempX = paraDataset.copyInputs(tempAll);
+				final double[][] tempY = paraDataset.copyOutputs(tempAll);
+				return new Operation() {
+					public double run() {
+						return tempRegressor.train(tempX, tempY)[0];
+					}// Of run
+				};
+			}// Of create
+		});
+
+		resultBenchmarks.add(new Benchmark("linear.trainWeighted", false, false) {
+			public Operation create(Dataset paraDataset, RandomStream paraStream) {
+				final SelfPacedLinearRegressor tempRegressor = new SelfPacedLinearRegressor(
+						paraDataset);
+				IndexView tempAll = IndexView.range(paraDataset.getNumInstances());
+				final double[][] tempX = paraDataset.copyInputs(tempAll);
+				final double[][] tempY = paraDataset.copyOutputs(tempAll);
+				final double[] tempInstanceWeights = new double[tempX.length];
+				for (int i = 0; i < tempInstanceWeights.length; i++) {
+					tempInstanceWeights[i] = paraStream.nextDouble();
+				} // Of for i
+				return new Operation() {
+					public double run() {
+						return tempRegressor.trainWithInstanceWeights(tempX, tempY,
+								tempInstanceWeights)[0];
+					}// Of run
+				};
+			}// Of create
+		});
+
+		resultBenchmarks.add(new Benchmark("linear.evaluate", false, false) {
+			public Operation create(Dataset paraDataset, RandomStream paraStream) {
+				final SelfPacedLinearRegressor tempRegressor = new SelfPacedLinearRegressor(
+						paraDataset);
+				tempRegressor.randomizeTrainingTesting(0.6, paraStream);
+				tempRegressor.train();
+				return new Operation() {
+					public double run() {
+						return tempRegressor.computeTestingMae()
+								+ tempRegressor.computeTestingRmse();
+					}// Of run
+				};
+			}// Of create
+		});
+
+		resultBenchmarks.add(new Benchmark("logistic.trainMatrix", true, true) {
+			public Operation create(Dataset paraDataset, RandomStream paraStream) {
+				final SelfPacedLogisticRegressor tempRegressor = new SelfPacedLogisticRegressor(
+						paraDataset);
+				IndexView tempAll = IndexView.range(paraDataset.getNumInstances());
+				final double[][] tempX = paraDataset.copyInputs(tempAll);
+				final double[][] tempY = paraDataset.copyOutputs(tempAll);
+				return new Operation() {
+					public double run() {
+						return tempRegressor.train(tempX, tempY)[0];
+					}// Of run
+				};
+			}// Of create
+		});
+
+		resultBenchmarks.add(new Benchmark("toy.spld", false, true) {
+			public Operation create(Dataset paraDataset, RandomStream paraStream) {
+				// Losses are the residuals of the least squares fit, and
+				// there are about 50 instances in each group.
+				int tempNumInstances = paraDataset.getNumInstances();
+				double[] tempWeights = fit(paraDataset);
+				final double[] tempLosses = new double[tempNumInstances];
+				final int[] tempGroups = new int[tempNumInstances];
+				int tempNumGroups = Math.max(1, tempNumInstances / 50);
+				for (int i = 0; i < tempNumInstances; i++) {
+					tempLosses[i] = Math.abs(paraDataset.predict(tempWeights, i)
+							- paraDataset.getOutput(i));
+					tempGroups[i] = paraStream.nextInt(tempNumGroups) + 1;
+				} // Of for i
+				tempGroups[0] = tempNumGroups;
+				return new Operation() {
+					public double run() {
+						return ToyExample.spld(tempLosses, tempGroups, 0.05, 0.2).length;
+					}// Of run
+				};
+			}// Of create
+		});
+
+		return resultBenchmarks;
+	}// Of getBenchmarks
+
+	/**
+	 ******************
+	 * Fit all data by least squares.
+	 *
+	 * @param paraDataset
+	 *            The dataset.
+	 * @return The weights.
+	 ******************
+	 */
+	static double[] fit(Dataset paraDataset) {
+		return LeastSquaresSolver.solve(paraDataset,
+				IndexView.range(paraDataset.getNumInstances()), null,
+				LeastSquaresSolver.CHOLESKY);
+	}// Of fit
+
+	/**
+	 ******************
+	 * Generate synthetic data. Inputs are uniform in [-1, 1). For regression
+	 * the output is a linear function with Gaussian-like noise, and for
+	 * classification it is 1 if the linear function is positive.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @param paraNumFeatures
+	 *            The number of features, excluding the bias.
+	 * @param paraClassification
+	 *            Generate 0/1 outputs?
+	 * @param paraSeed
+	 *            The seed.
+	 * @return The dataset.
+	 ******************
+	 */
+	public static Dataset generate(int paraNumInstances, int paraNumFeatures,
+			boolean paraClassification, long paraSeed) {
+		RandomStream tempStream = new RandomStream(paraSeed);
+		Dataset resultDataset = new Dataset(paraNumInstances, paraNumFeatures + 1);
+		double[] tempInputs = resultDataset.getInputs();
+		double[] tempOutputs = resultDataset.getOutputs();
+		double[] tempTruth = new double[paraNumFeatures + 1];
+		for (int j = 0; j < tempTruth.length; j++) {
+			tempTruth[j] = tempStream.nextDouble() * 2 - 1;
+		} // Of for j
+
+		for (int i = 0; i < paraNumInstances; i++) {
+			int tempOffset = i * (paraNumFeatures + 1);
+			for (int j = 1; j <= paraNumFeatures; j++) {
+				tempInputs[tempOffset + j] = tempStream.nextDouble() * 2 - 1;
+			} // Of for j
+			double tempValue = resultDataset.predict(tempTruth, i);
+			// The sum of three uniforms is close to Gaussian.
+			double tempNoise = (tempStream.nextDouble() + tempStream.nextDouble()
+					+ tempStream.nextDouble() - 1.5) * 0.2;
+			if (paraClassification) {
+				tempOutputs[i] = (tempValue + tempNoise > 0) ? 1 : 0;
+			} else {
+				tempOutputs[i] = tempValue + tempNoise;
+			} // Of if
+		} // Of for i
+
+		return resultDataset;
+	}// Of generate
+
+	/**
+	 ******************
+	 * Measure a benchmark on a dataset with the given number of threads.
+	 *
+	 * @param paraBenchmark
+	 *            The benchmark.
+	 * @param paraDataset
+	 *            The dataset.
+	 * @param paraNumThreads
+	 *            The number of threads.
+	 * @return {operations per second, nanoseconds per operation, bytes per
+	 *         operation}. Bytes are -1 if not supported by the JVM.
+	 * @throws Exception
+	 *             If a thread fails.
+	 ******************
+	 */
+	public double[] measure(final Benchmark paraBenchmark,
+			final Dataset paraDataset, final int paraNumThreads)
+			throws Exception {
+		final com.sun.management.ThreadMXBean tempThreadBean = getThreadBean();
+		final CyclicBarrier tempBarrier = new CyclicBarrier(paraNumThreads + 1);
+		final long[] tempCounts = new long[paraNumThreads];
+		final long[] tempNanos = new long[paraNumThreads];
+		final long[] tempBytes = new long[paraNumThreads];
+		final Throwable[] tempFailure = new Throwable[1];
+		RandomStream tempStream = new RandomStream(paraBenchmark.name.hashCode());
+
+		// Step 1. Each thread creates its operation, warms up, and then
+		// measures until told to stop.
+		stopped = false;
+		Thread[] tempThreads = new Thread[paraNumThreads];
+		for (int i = 0; i < paraNumThreads; i++) {
+			final int tempIndex = i;
+			final RandomStream tempThreadStream = tempStream.split();
+			tempThreads[i] = new Thread() {
+				public void run() {
+					try {
+						Operation tempOperation = paraBenchmark.create(paraDataset,
+								tempThreadStream);
+						double tempSink = 0;
+						long tempWarmupEnd = System.nanoTime() + warmupMillis * 1000000L;
+						while (System.nanoTime() < tempWarmupEnd) {
+							tempSink += tempOperation.run();
+						} // Of while
+
+						tempBarrier.await();
+						long tempThreadId = Thread.currentThread().getId();
+						long tempStartBytes = allocatedBytes(tempThreadBean, tempThreadId);
+						long tempStart = System.nanoTime();
+						long tempCount = 0;
+						do {
+							tempSink += tempOperation.run();
+							tempCount++;
+						} while (!stopped);
+						tempNanos[tempIndex] = System.nanoTime() - tempStart;
+						tempBytes[tempIndex] = allocatedBytes(tempThreadBean, tempThreadId)
+								- tempStartBytes;
+						tempCounts[tempIndex] = tempCount;
+						sink += tempSink;
+					} catch (Throwable ee) {
+						synchronized (tempFailure) {
+							tempFailure[0] = ee;
+						} // Of synchronized
+						tempBarrier.reset();
+					} // Of try
+				}// Of run
+			};
+			tempThreads[i].start();
+		} // Of for i
+
+		// Step 2. Start the measurement together, and stop it after the time.
+		tempBarrier.await();
+		Thread.sleep(measureMillis);
+		stopped = true;
+		for (int i = 0; i < paraNumThreads; i++) {
+			tempThreads[i].join();
+		} // Of for i
+		if (tempFailure[0] != null) {
+			throw new Exception("Benchmark " + paraBenchmark.name + " failed.",
+					tempFailure[0]);
+		} // Of if
+
+		// Step 3. Aggregate.
+		double tempThroughput = 0;
+		long tempTotalCount = 0;
+		long tempTotalBytes = 0;
+		for (int i = 0; i < paraNumThreads; i++) {
+			tempThroughput += tempCounts[i] * 1e9 / tempNanos[i];
+			tempTotalCount += tempCounts[i];
+			tempTotalBytes += tempBytes[i];
+		} // Of for i
+		double tempBytesPerOperation = (tempThreadBean == null) ? -1
+				: (double) tempTotalBytes / tempTotalCount;
+
+		return new double[] { tempThroughput, paraNumThreads * 1e9 / tempThroughput,
+				tempBytesPerOperation };
+	}// Of measure
+
+	/**
+	 ******************
+	 * The thread bean with allocation counters.
+	 *
+	 * @return The bean, or null if not supported.
+	 ******************
+	 */
+	static com.sun.management.ThreadMXBean getThreadBean() {
+		try {
+			com.sun.management.ThreadMXBean resultBean = (com.sun.management.ThreadMXBean) ManagementFactory
+					.getThreadMXBean();
+			if (!resultBean.isThreadAllocatedMemorySupported()) {
+				return null;
+			} // Of if
+			resultBean.setThreadAllocatedMemoryEnabled(true);
+			return resultBean;
+		} catch (Throwable ee) {
+			return null;
+		} // Of try
+	}// Of getThreadBean
+
+	/**
+	 ******************
+	 * The bytes allocated by a thread so far.
+	 *
+	 * @param paraBean
+	 *            The bean, may be null.
+	 * @param paraThreadId
+	 *            The thread.
+	 * @return The bytes, or 0 if not supported.
+	 ******************
+	 */
+	static long allocatedBytes(com.sun.management.ThreadMXBean paraBean,
+			long paraThreadId) {
+		return (paraBean == null) ? 0 : paraBean.getThreadAllocatedBytes(paraThreadId);
+	}// Of allocatedBytes
+
+	/**
+	 ******************
+	 * Run all benchmarks on all datasets with the given thread counts.
+	 *
+	 * @param paraThreadCounts
+	 *            The thread counts.
+	 * @param paraReport
+	 *            Where to print the report.
+	 * @throws Exception
+	 *             If a benchmark fails.
+	 ******************
+	 */
+	public void runAll(int[] paraThreadCounts, PrintStream paraReport)
+			throws Exception {
+		// Step 1. Prepare the datasets.
+		List<String> tempNames = new ArrayList<String>();
+		List<Dataset> tempDatasets = new ArrayList<Dataset>();
+		List<Boolean> tempClassifications = new ArrayList<Boolean>();
+		for (int i = 0; i < META_TEST_FILES.length; i++) {
+			if (new File(META_TEST_FILES[i]).isFile()) {
+				tempNames.add(new File(META_TEST_FILES[i]).getName());
+				tempDatasets.add(DatasetCache.load(META_TEST_FILES[i]));
+				tempClassifications.add(false);
+			} // Of if
+		} // Of for i
+		if (new File(CLASSIFICATION_FILE).isFile()) {
+			tempNames.add(new File(CLASSIFICATION_FILE).getName());
+			tempDatasets.add(DatasetCache.load(CLASSIFICATION_FILE));
+			tempClassifications.add(true);
+		} // Of if
+		for (int i = 0; i < SYNTHETIC_SIZES.length; i++) {
+			tempNames.add("synthetic-" + SYNTHETIC_SIZES[i]);
+			tempDatasets.add(generate(SYNTHETIC_SIZES[i], SYNTHETIC_FEATURES, false, i));
+			tempClassifications.add(false);
+			tempNames.add("synthetic-binary-" + SYNTHETIC_SIZES[i]);
+			tempDatasets.add(generate(SYNTHETIC_SIZES[i], SYNTHETIC_FEATURES, true, i));
+			tempClassifications.add(true);
+		} // Of for i
+
+		// Step 2. Measure.
+		paraReport.println(String.format("%-22s %-28s %8s %4s %8s %14s %14s %14s",
+				"benchmark", "data", "n", "d", "threads", "ops/s", "ns/op", "bytes/op"));
+		List<Benchmark> tempBenchmarks = getBenchmarks();
+		PrintStream tempOriginalOutput = System.out;
+		for (Benchmark tempBenchmark : tempBenchmarks) {
+			for (int i = 0; i < tempDatasets.size(); i++) {
+				Dataset tempDataset = tempDatasets.get(i);
+				if ((tempBenchmark.classification != tempClassifications.get(i))
+						|| (tempBenchmark.slow && (tempDataset.getNumInstances() > MAX_SLOW_SIZE))) {
+					continue;
+				} // Of if
+
+				for (int j = 0; j < paraThreadCounts.length; j++) {
+					double[] tempResult;
+					System.setOut(NULL_OUTPUT);
+					try {
+						tempResult = measure(tempBenchmark, tempDataset,
+								paraThreadCounts[j]);
+					} finally {
+						System.setOut(tempOriginalOutput);
+					} // Of try
+					paraReport.println(String.format(
+							"%-22s %-28s %8d %4d %8d %14.2f %14.0f %14.0f",
+							tempBenchmark.name, tempNames.get(i),
+							tempDataset.getNumInstances(), tempDataset.getNumColumns(),
+							paraThreadCounts[j], tempResult[0], tempResult[1],
+							tempResult[2]));
+				} // Of for j
+			} // Of for i
+		} // Of for tempBenchmark
+	}// Of runAll
+
+	/**
+	 ******************
+	 * Run the benchmarks.
+	 *
+	 * @param args
+	 *            Optional: thread counts such as 1,2,4, and the measurement
+	 *            time in milliseconds.
+	 * @throws Exception
+	 *             If a benchmark fails.
+	 ******************
+	 */
+	public static void main(String args[]) throws Exception {
+		int tempProcessors = Runtime.getRuntime().availableProcessors();
+		int[] tempThreadCounts = (tempProcessors > 1) ? new int[] { 1, tempProcessors }
+				: new int[] { 1 };
+		if (args.length > 0) {
+			String[] tempParts = args[0].split(",");
+			tempThreadCounts = new int[tempParts.length];
+			for (int i = 0; i < tempParts.length; i++) {
+				tempThreadCounts[i] = Integer.parseInt(tempParts[i].trim());
+			} // Of for i
+		} // Of if
+
+		HotPathBenchmark tempBenchmark = new HotPathBenchmark();
+		if (args.length > 1) {
+			long tempMillis = Long.parseLong(args[1]);
+			tempBenchmark.setTimes(tempMillis / 2, tempMillis);
+		} // Of if
+
+		tempBenchmark.runAll(tempThreadCounts, System.out);
+	}// Of main
+}// Of class HotPathBenchmark
@@ -0,0 +1,812 @@
+package common;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A streaming reader of numeric CSV files. Bytes are parsed directly into
+ * primitive column buffers, and no String is created for numbers in the
+ * usual forms such as -12.5e-3. The first line is a header if any field of it
+ * is quoted or not a number, and names may be quoted. A UTF-8 BOM, spaces
+ * around fields, CR LF line ends and blank lines are accepted. As in ARFF
+ * files, the last column is the output.<br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Date Created: August 18, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class CsvReader extends Object {
+
+	/**
+	 * The size of the read buffer.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The initial number of rows of the column buffers.
+	 */
+	static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Powers of ten exactly representable as doubles.
+	 */
+	static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6,
+			1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+			1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Mantissas up to this value are exactly representable as doubles.
+	 */
+	static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/**
+	 * The UTF-8 charset for header names.
+	 */
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * The filename.
+	 */
+	String filename;
+
+	/**
+	 * The column names. Null if there is no header.
+	 */
+	String[] columnNames;
+
+	/**
+	 * The column buffers. Null before the first line is read.
+	 */
+	double[][] columns;
+
+	/**
+	 * The number of complete rows.
+	 */
+	int numRows;
+
+	/**
+	 * The number of fields of each line.
+	 */
+	int numFields;
+
+	/**
+	 * The bytes of the current field, without quotes.
+	 */
+	byte[] token;
+
+	/**
+	 * The number of valid bytes in the token.
+	 */
+	int tokenLength;
+
+	/**
+	 * The number of complete fields of the current line.
+	 */
+	int lineFields;
+
+	/**
+	 * The current line number, starting from 1.
+	 */
+	int lineNumber;
+
+	/**
+	 * Is the parser inside quotes?
+	 */
+	boolean inQuotes;
+
+	/**
+	 * Is the last byte a closing quote? Two quotes in a row stand for one.
+	 */
+	boolean justClosedQuote;
+
+	/**
+	 * Is the current field quoted?
+	 */
+	boolean fieldQuoted;
+
+	/**
+	 * The fields of the first line, which may be a header.
+	 */
+	ArrayList<String> firstLineFields;
+
+	/**
+	 * Is any field of the first line quoted?
+	 */
+	boolean firstLineQuoted;
+
+	/**
+	 **********************************
+	 * The first constructor.
+	 *
+	 * @param paraFilename
+	 *            The CSV filename.
+	 **********************************
+	 */
+	public CsvReader(String paraFilename) {
+		filename = paraFilename;
+	}// Of the first constructor
+
+	/**
+	 **********************************
+	 * Read a CSV file as a dataset.
+	 *
+	 * @param paraFilename
+	 *            The CSV filename.
+	 * @return The dataset with the bias column.
+	 * @throws IOException
+	 *             If the file cannot be read or is not numeric.
+	 **********************************
+	 */
+	public static Dataset load(String paraFilename) throws IOException {
+		return new CsvReader(paraFilename).read();
+	}// Of load
+
+	/**
+	 **********************************
+	 * Read the file.
+	 *
+	 * @return The dataset with the bias column.
+	 * @throws IOException
+	 *             If the file cannot be read or is not numeric.
+	 **********************************
+	 */
+	public Dataset read() throws IOException {
+		// Step 1. Reset the state.
+		columnNames = null;
+		columns = null;
+		numRows = 0;
+		numFields = 0;
+		token = new byte[64];
+		tokenLength = 0;
+		lineFields = 0;
+		lineNumber = 1;
+		inQuotes = false;
+		justClosedQuote = false;
+		fieldQuoted = false;
+		firstLineFields = new ArrayList<String>();
+		firstLineQuoted = false;
+
+		// Step 2. Consume the bytes.
+		InputStream tempStream = new FileInputStream(filename);
+		try {
+			byte[] tempBuffer = new byte[BUFFER_SIZE];
+			boolean tempFirstChunk = true;
+			int tempRead;
+			while ((tempRead = tempStream.read(tempBuffer)) > 0) {
+				int tempStart = 0;
+				if (tempFirstChunk) {
+					tempFirstChunk = false;
+					if ((tempRead >= 3) && (tempBuffer[0] == (byte) 0xEF)
+							&& (tempBuffer[1] == (byte) 0xBB)
+							&& (tempBuffer[2] == (byte) 0xBF)) {
+						tempStart = 3;
+					} // Of if
+				} // Of if
+
+				for (int i = tempStart; i < tempRead; i++) {
+					consume(tempBuffer[i]);
+				} // Of for i
+			} // Of while
+		} finally {
+			tempStream.close();
+		} // Of try
+
+		// Step 3. The last line may have no line end.
+		if (inQuotes) {
+			throw new IOException(filename + ", line " + lineNumber
+					+ ": unclosed quote.");
+		} // Of if
+		endLine();
+
+		if (columns == null) {
+			throw new IOException(filename + ": no data.");
+		} // Of if
+
+		return toDataset();
+	}// Of read
+
+	/**
+	 **********************************
+	 * Consume one byte.
+	 *
+	 * @param paraByte
+	 *            The byte.
+	 * @throws IOException
+	 *             If a field is not numeric.
+	 **********************************
+	 */
+	void consume(byte paraByte) throws IOException {
+		if (inQuotes) {
+			if (paraByte == '"') {
+				inQuotes = false;
+				justClosedQuote = true;
+			} else {
+				append(paraByte);
+			} // Of if
+			return;
+		} // Of if
+
+		if (paraByte == '"') {
+			if (justClosedQuote) {
+				append(paraByte);
+			} // Of if
+			inQuotes = true;
+			fieldQuoted = true;
+			justClosedQuote = false;
+			return;
+		} // Of if
+		justClosedQuote = false;
+
+		switch (paraByte) {
+		case ',':
+			endField();
+			break;
+		case '\n':
+			endLine();
+			lineNumber++;
+			break;
+		case '\r':
+			break;
+		default:
+			append(paraByte);
+		}// Of switch
+	}// Of consume
+
+	/**
+	 **********************************
+	 * Append a byte to the token.
+	 *
+	 * @param paraByte
+	 *            The byte.
+	 **********************************
+	 */
+	void append(byte paraByte) {
+		if (tokenLength == token.length) {
+			byte[] tempToken = new byte[token.length * 2];
+			System.arraycopy(token, 0, tempToken, 0, tokenLength);
+			token = tempToken;
+		} // Of if
+		token[tokenLength] = paraByte;
+		tokenLength++;
+	}// Of append
+
+	/**
+	 **********************************
+	 * Store the current field.
+	 *
+	 * @throws IOException
+	 *             If the field is not numeric or there are too many fields.
+	 **********************************
+	 */
+	void endField() throws IOException {
+		if (columns == null) {
+			// Step 1. The first line is kept until it is known to be a header
+			// or not.
+			firstLineFields.add(new String(token, 0, tokenLength, UTF8).trim());
+			firstLineQuoted |= fieldQuoted;
+		} else {
+			// Step 2. Parse a number directly into the column buffer.
+			if (lineFields >= numFields) {
+				throw new IOException(filename + ", line " + lineNumber
+						+ ": more than " + numFields + " fields.");
+			} // Of if
+			if (lineFields == 0) {
+				ensureCapacity(numRows + 1);
+			} // Of if
+
+			try {
+				columns[lineFields][numRows] = parseNumber(token, 0, tokenLength);
+			} catch (NumberFormatException ee) {
+				throw new IOException(filename + ", line " + lineNumber
+						+ ", field " + (lineFields + 1) + ": not a number.");
+			} // Of try
+		} // Of if
+
+		lineFields++;
+		tokenLength = 0;
+		fieldQuoted = false;
+	}// Of endField
+
+	/**
+	 **********************************
+	 * Finish the current line. Blank lines are skipped.
+	 *
+	 * @throws IOException
+	 *             If the line has a wrong number of fields.
+	 **********************************
+	 */
+	void endLine() throws IOException {
+		if ((lineFields == 0) && !fieldQuoted && isBlank(token, tokenLength)) {
+			tokenLength = 0;
+			return;
+		} // Of if
+		endField();
+
+		if (columns == null) {
+			endFirstLine();
+		} else {
+			if (lineFields != numFields) {
+				throw new IOException(filename + ", line " + lineNumber + ": "
+						+ lineFields + " fields instead of " + numFields + ".");
+			} // Of if
+			numRows++;
+		} // Of if
+		lineFields = 0;
+	}// Of endLine
+
+	/**
+	 **********************************
+	 * Decide whether the first line is a header, and allocate the columns.
+	 **********************************
+	 */
+	void endFirstLine() {
+		numFields = firstLineFields.size();
+		columns = new double[numFields][INITIAL_CAPACITY];
+
+		// Step 1. Try to parse the line as data.
+		boolean tempNumeric = !firstLineQuoted;
+		for (int i = 0; tempNumeric && (i < numFields); i++) {
+			byte[] tempBytes = firstLineFields.get(i).getBytes(UTF8);
+			try {
+				columns[i][0] = parseNumber(tempBytes, 0, tempBytes.length);
+			} catch (NumberFormatException ee) {
+				tempNumeric = false;
+			} // Of try
+		} // Of for i
+
+		// Step 2. Keep it as data or as names.
+		if (tempNumeric) {
+			numRows = 1;
+		} else {
+			columnNames = firstLineFields.toArray(new String[numFields]);
+		} // Of if
+		firstLineFields = null;
+	}// Of endFirstLine
+
+	/**
+	 **********************************
+	 * Grow the column buffers if necessary.
+	 *
+	 * @param paraNumRows
+	 *            The required number of rows.
+	 **********************************
+	 */
+	void ensureCapacity(int paraNumRows) {
+		if (paraNumRows <= columns[0].length) {
+			return;
+		} // Of if
+
+		int tempCapacity = Math.max(paraNumRows, columns[0].length * 2);
+		for (int i = 0; i < numFields; i++) {
+			double[] tempColumn = new double[tempCapacity];
+			System.arraycopy(columns[i], 0, tempColumn, 0, numRows);
+			columns[i] = tempColumn;
+		} // Of for i
+	}// Of ensureCapacity
+
+	/**
+	 **********************************
+	 * Copy the columns to a dataset. A bias column is inserted, and the last
+	 * column is the output.
+	 *
+	 * @return The dataset.
+	 **********************************
+	 */
+	Dataset toDataset() {
+		Dataset resultDataset = new Dataset(numRows, numFields);
+		double[] tempInputs = resultDataset.getInputs();
+		double[] tempOutputs = resultDataset.getOutputs();
+		for (int j = 0; j < numFields - 1; j++) {
+			double[] tempColumn = columns[j];
+			for (int i = 0; i < numRows; i++) {
+				tempInputs[i * numFields + j + 1] = tempColumn[i];
+			} // Of for i
+		} // Of for j
+		System.arraycopy(columns[numFields - 1], 0, tempOutputs, 0, numRows);
+
+		return resultDataset;
+	}// Of toDataset
+
+	/**
+	 **********************************
+	 * Getter.
+	 *
+	 * @return The column names, or null if the file has no header.
+	 **********************************
+	 */
+	public String[] getColumnNames() {
+		return columnNames;
+	}// Of getColumnNames
+
+	/**
+	 **********************************
+	 * Is the byte sequence blank?
+	 *
+	 * @param paraBytes
+	 *            The bytes.
+	 * @param paraLength
+	 *            The number of valid bytes.
+	 * @return True if only spaces and tabs.
+	 **********************************
+	 */
+	static boolean isBlank(byte[] paraBytes, int paraLength) {
+		for (int i = 0; i < paraLength; i++) {
+			if ((paraBytes[i] != ' ') && (paraBytes[i] != '\t')) {
+				return false;
+			} // Of if
+		} // Of for i
+		return true;
+	}// Of isBlank
+
+	/**
+	 **********************************
+	 * Parse a decimal number. If the mantissa has at most 53 bits and the
+	 * decimal exponent is within [-22, 22], the result is one exact
+	 * multiplication or division, hence correctly rounded (Clinger's fast
+	 * path). Other forms fall back to Double.parseDouble, so the results are
+	 * always the same as Double.parseDouble.
+	 *
+	 * @param paraBytes
+	 *            The bytes.
+	 * @param paraFrom
+	 *            The first position (inclusive).
+	 * @param paraTo
+	 *            The last position (exclusive).
+	 * @return The value.
+	 * @throws NumberFormatException
+	 *             If the bytes are not a number.
+	 **********************************
+	 */
+	public static double parseNumber(byte[] paraBytes, int paraFrom, int paraTo) {
+		// Step 1. Trim.
+		while ((paraFrom < paraTo)
+				&& ((paraBytes[paraFrom] == ' ') || (paraBytes[paraFrom] == '\t'))) {
+			paraFrom++;
+		} // Of while
+		while ((paraTo > paraFrom)
+				&& ((paraBytes[paraTo - 1] == ' ') || (paraBytes[paraTo - 1] == '\t'))) {
+			paraTo--;
+		} // Of while
+
+		// Step 2. Sign.
+		int i = paraFrom;
+		boolean tempNegative = false;
+		if ((i < paraTo) && ((paraBytes[i] == '-') || (paraBytes[i] == '+'))) {
+			tempNegative = (paraBytes[i] == '-');
+			i++;
+		} // Of if
+
+		// Step 3. Mantissa digits. At most 18 significant digits fit a long.
+		long tempMantissa = 0;
+		int tempSignificantDigits = 0;
+		int tempExponent = 0;
+		boolean tempAnyDigit = false;
+		boolean tempExact = true;
+		while ((i < paraTo) && (paraBytes[i] >= '0') && (paraBytes[i] <= '9')) {
+			tempAnyDigit = true;
+			if (tempSignificantDigits < 18) {
+				tempMantissa = tempMantissa * 10 + (paraBytes[i] - '0');
+				if (tempMantissa != 0) {
+					tempSignificantDigits++;
+				} // Of if
+			} else {
+				tempExact = false;
+			} // Of if
+			i++;
+		} // Of while
+		if ((i < paraTo) && (paraBytes[i] == '.')) {
+			i++;
+			while ((i < paraTo) && (paraBytes[i] >= '0') && (paraBytes[i] <= '9')) {
+				tempAnyDigit = true;
+				if (tempSignificantDigits < 18) {
+					tempMantissa = tempMantissa * 10 + (paraBytes[i] - '0');
+					if (tempMantissa != 0) {
+						tempSignificantDigits++;
+					} // Of if
+					tempExponent--;
+				} else {
+					tempExact = false;
+				} // Of if
+				i++;
+			} // Of while
+		} // Of if
+
+		// Step 4. Exponent.
+		if (tempAnyDigit && (i < paraTo)
+				&& ((paraBytes[i] == 'e') || (paraBytes[i] == 'E'))) {
+			i++;
+			boolean tempNegativeExponent = false;
+			if ((i < paraTo) && ((paraBytes[i] == '-') || (paraBytes[i] == '+'))) {
+				tempNegativeExponent = (paraBytes[i] == '-');
+				i++;
+			} // Of if
+			int tempExplicitExponent = 0;
+			boolean tempAnyExponentDigit = false;
+			while ((i < paraTo) && (paraBytes[i] >= '0') && (paraBytes[i] <= '9')) {
+				tempAnyExponentDigit = true;
+				if (tempExplicitExponent < 10000) {
+					tempExplicitExponent = tempExplicitExponent * 10
+							+ (paraBytes[i] - '0');
+				} else {
+					tempExact = false;
+				} // Of if
+				i++;
+			} // Of while
+			if (!tempAnyExponentDigit) {
+				tempExact = false;
+			} // Of if
+			tempExponent += tempNegativeExponent ? -tempExplicitExponent
+					: tempExplicitExponent;
+		} // Of if
+
+		// Step 5. The fast path.
+		if (tempAnyDigit && tempExact && (i == paraTo)
+				&& (tempMantissa <= MAX_EXACT_MANTISSA)
+				&& (tempExponent >= -22) && (tempExponent <= 22)) {
+			double resultValue = tempMantissa;
+			if (tempExponent >= 0) {
+				resultValue *= POWERS_OF_TEN[tempExponent];
+			} else {
+				resultValue /= POWERS_OF_TEN[-tempExponent];
+			} // Of if
+			return tempNegative ? -resultValue : resultValue;
+		} // Of if
+
+		// Step 6. The slow path for everything else, including errors.
+		return Double.parseDouble(new String(paraBytes, paraFrom, paraTo
+				- paraFrom, UTF8));
+	}// Of parseNumber
+
+	/**
+	 **********************************
+	 * Is parseNumber the same as Double.parseDouble on the string, including
+	 * the sign of zero and the rejection of non-numbers?
+	 *
+	 * @param paraString
+	 *            The string.
+	 * @return True if the same.
+	 **********************************
+	 */
+	static boolean sameAsParseDouble(String paraString) {
+		byte[] tempBytes = paraString.getBytes(UTF8);
+		Double tempExpected = null;
+		Double tempActual = null;
+		try {
+			tempExpected = Double.parseDouble(paraString);
+		} catch (NumberFormatException ee) {
+			// Not a number, null.
+		} // Of try
+		try {
+			tempActual = parseNumber(tempBytes, 0, tempBytes.length);
+		} catch (NumberFormatException ee) {
+			// Not a number, null.
+		} // Of try
+
+		if ((tempExpected == null) || (tempActual == null)) {
+			return tempExpected == tempActual;
+		} // Of if
+		return Double.doubleToRawLongBits(tempExpected) == Double
+				.doubleToRawLongBits(tempActual);
+	}// Of sameAsParseDouble
+
+	/**
+	 **********************************
+	 * Compare parseNumber with Double.parseDouble on edge cases and random
+	 * numbers, bit by bit.
+	 *
+	 * @return Passed?
+	 **********************************
+	 */
+	public static boolean testParseNumber() {
+		// Step 1. Edge cases of the fast path, its limits and errors.
+		String[] tempCases = { "0", "-0", "+0", "0.0", "-0.0", "00012.5000",
+				".5", "5.", "-.5e-3", "1e22", "1e23", "1e-22", "1e-23",
+				"9007199254740992", "9007199254740993", "123456789012345678",
+				"1234567890123456789012", "0.1", "0.30000000000000004",
+				"4.9e-324", "2.2250738585072014E-308", "1.7976931348623157e308",
+				"1e309", "1e-400", "1e99999", " 12 ", "\t-3.5\t", "1E+5",
+				"1e", "e5", ".", "-", "", "1.2.3", "1e5.5", "--1", "1,5", "abc",
+				"NaN", "Infinity", "-Infinity", "0x1p3", "1d", "1f" };
+		int tempNumFailures = 0;
+		for (int i = 0; i < tempCases.length; i++) {
+			if (!sameAsParseDouble(tempCases[i])) {
+				System.out.println("Different from parseDouble: \"" + tempCases[i]
+						+ "\"");
+				tempNumFailures++;
+			} // Of if
+		} // Of for i
+
+		// Step 2. Random decimal numbers in the fast path and around it.
+		RandomStream tempStream = new RandomStream(9);
+		for (int i = 0; i < 200000; i++) {
+			StringBuilder tempBuilder = new StringBuilder();
+			if (tempStream.nextInt(2) == 0) {
+				tempBuilder.append('-');
+			} // Of if
+			int tempNumDigits = 1 + tempStream.nextInt(20);
+			int tempPoint = tempStream.nextInt(tempNumDigits + 1);
+			for (int j = 0; j < tempNumDigits; j++) {
+				if (j == tempPoint) {
+					tempBuilder.append('.');
+				} // Of if
+				tempBuilder.append((char) ('0' + tempStream.nextInt(10)));
+			} // Of for j
+			if (tempStream.nextInt(3) == 0) {
+				tempBuilder.append('e').append(tempStream.nextInt(61) - 30);
+			} // Of if
+
+			String tempString = tempBuilder.toString();
+			if (!sameAsParseDouble(tempString)) {
+				System.out.println("Different from parseDouble: \"" + tempString
+						+ "\"");
+				tempNumFailures++;
+			} // Of if
+		} // Of for i
+
+		boolean resultPassed = tempNumFailures == 0;
+		System.out.println("Number parsing, " + tempNumFailures
+				+ " failures, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testParseNumber
+
+	/**
+	 **********************************
+	 * Write the given content to a temporary file.
+	 *
+	 * @param paraContent
+	 *            The content.
+	 * @return The file.
+	 * @throws IOException
+	 *             If the temporary file cannot be written.
+	 **********************************
+	 */
+	static File writeTemporary(byte[] paraContent) throws IOException {
+		File resultFile = File.createTempFile("csvtest", ".csv");
+		FileOutputStream tempOutput = new FileOutputStream(resultFile);
+		try {
+			tempOutput.write(paraContent);
+		} finally {
+			tempOutput.close();
+		} // Of try
+
+		return resultFile;
+	}// Of writeTemporary
+
+	/**
+	 **********************************
+	 * Check the content against the expected names and rows.
+	 *
+	 * @param paraName
+	 *            The name of the case.
+	 * @param paraContent
+	 *            The content.
+	 * @param paraNames
+	 *            The expected names. Null for no header.
+	 * @param paraRows
+	 *            The expected rows, the output last. Null if the content
+	 *            should be rejected.
+	 * @return Passed?
+	 * @throws IOException
+	 *             If the temporary file cannot be used.
+	 **********************************
+	 */
+	static boolean checkContent(String paraName, byte[] paraContent,
+			String[] paraNames, double[][] paraRows) throws IOException {
+		File tempFile = writeTemporary(paraContent);
+		CsvReader tempReader = new CsvReader(tempFile.getPath());
+		Dataset tempData = null;
+		try {
+			tempData = tempReader.read();
+		} catch (IOException ee) {
+			// Rejected.
+		} finally {
+			tempFile.delete();
+		} // Of try
+
+		boolean resultPassed;
+		if (paraRows == null) {
+			resultPassed = (tempData == null);
+		} else if (tempData == null) {
+			resultPassed = false;
+		} else {
+			resultPassed = Arrays.equals(paraNames, tempReader.getColumnNames())
+					&& (tempData.getNumInstances() == paraRows.length);
+			for (int i = 0; resultPassed && (i < paraRows.length); i++) {
+				int tempLast = paraRows[i].length - 1;
+				resultPassed = (tempData.getNumColumns() == paraRows[i].length)
+						&& (tempData.getValue(i, 0) == 1)
+						&& (tempData.getOutput(i) == paraRows[i][tempLast]);
+				for (int j = 0; resultPassed && (j < tempLast); j++) {
+					resultPassed = (tempData.getValue(i, j + 1) == paraRows[i][j]);
+				} // Of for j
+			} // Of for i
+		} // Of if
+
+		System.out.println(paraName + ", passed: " + resultPassed);
+		return resultPassed;
+	}// Of checkContent
+
+	/**
+	 **********************************
+	 * Headers, quotes, line ends and malformed files.
+	 *
+	 * @return Passed?
+	 * @throws IOException
+	 *             If the temporary files cannot be used.
+	 **********************************
+	 */
+	public static boolean testFormats() throws IOException {
+		boolean resultPassed = true;
+		double[][] tempRows = { { 1, 2.5, -3 }, { 4, 5e-1, 6 } };
+
+		resultPassed &= checkContent("Plain header", "a,b,y\n1,2.5,-3\n4,5e-1,6\n"
+				.getBytes(UTF8), new String[] { "a", "b", "y" }, tempRows);
+		resultPassed &= checkContent("No header", "1,2.5,-3\n4,5e-1,6"
+				.getBytes(UTF8), null, tempRows);
+		resultPassed &= checkContent("Quoted header with commas and quotes",
+				"\"a,1\",\"say \"\"hi\"\"\", y \r\n1, 2.5 ,-3\r\n\r\n4,\"5e-1\",6\r\n"
+						.getBytes(UTF8), new String[] { "a,1", "say \"hi\"", "y" },
+				tempRows);
+		resultPassed &= checkContent("Quoted numeric header", "\"1\",\"2\",\"3\"\n1,2.5,-3\n4,5e-1,6\n"
+				.getBytes(UTF8), new String[] { "1", "2", "3" }, tempRows);
+
+		byte[] tempText = "\n  \nname,b,y\n1,2.5,-3\n\n4,5e-1,6\n\n".getBytes(UTF8);
+		byte[] tempBom = new byte[tempText.length + 3];
+		tempBom[0] = (byte) 0xEF;
+		tempBom[1] = (byte) 0xBB;
+		tempBom[2] = (byte) 0xBF;
+		System.arraycopy(tempText, 0, tempBom, 3, tempText.length);
+		resultPassed &= checkContent("BOM and blank lines", tempBom, new String[] {
+				"name", "b", "y" }, tempRows);
+
+		resultPassed &= checkContent("Too few fields", "a,b,y\n1,2.5\n".getBytes(UTF8),
+				null, null);
+		resultPassed &= checkContent("Too many fields", "a,b,y\n1,2.5,3,4\n"
+				.getBytes(UTF8), null, null);
+		resultPassed &= checkContent("Not a number", "a,b,y\n1,x,3\n".getBytes(UTF8),
+				null, null);
+		resultPassed &= checkContent("Unclosed quote", "a,b,y\n1,\"2,3\n"
+				.getBytes(UTF8), null, null);
+		resultPassed &= checkContent("Header only", "a,b,y\n".getBytes(UTF8),
+				new String[] { "a", "b", "y" }, new double[0][]);
+
+		// Lines across the read buffer.
+		StringBuilder tempBuilder = new StringBuilder("a,b,y\n");
+		double[][] tempLongRows = new double[10000][];
+		for (int i = 0; i < tempLongRows.length; i++) {
+			tempLongRows[i] = new double[] { i, i * 0.125, -i };
+			tempBuilder.append(i + "," + (i * 0.125) + "," + (-i) + "\n");
+		} // Of for i
+		resultPassed &= checkContent("Longer than the buffer", tempBuilder.toString()
+				.getBytes(UTF8), new String[] { "a", "b", "y" }, tempLongRows);
+
+		System.out.println("Formats, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testFormats
+
+	/**
+	 **********************************
+	 * For unit test.
+	 *
+	 * @param args
+	 *            Not used now.
+	 * @throws IOException
+	 *             If the temporary files cannot be used.
+	 **********************************
+	 */
+	public static void main(String args[]) throws IOException {
+		boolean tempPassed = testParseNumber();
+		tempPassed &= testFormats();
+		System.out.println("All passed: " + tempPassed);
+	}// Of main
+}// Of class CsvReader
@@ -0,0 +1,317 @@
+package common;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import weka.core.Instances;
+
+/**
+ * A numeric dataset stored in one contiguous row-major array. The first input
+ * column is always 1 for the bias, and the output is stored separately.
+ * Compared with double[][], rows are adjacent in memory and there is no
+ * object header for each row.<br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Date Created: August 17, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class Dataset extends Object {
+
+	/**
+	 * The source of the identifiers.
+	 */
+	static final AtomicLong nextId = new AtomicLong();
+
+	/**
+	 * The identifier, unique among the datasets of this run. Caches key on it
+	 * instead of holding the dataset.
+	 */
+	final long id = nextId.getAndIncrement();
+
+	/**
+	 * The number of instances.
+	 */
+	int numInstances;
+
+	/**
+	 * The number of input columns, including the bias column. It is also the
+	 * stride of the input array.
+	 */
+	int numColumns;
+
+	/**
+	 * The input data. The value of instance i and column j is at i *
+	 * numColumns + j.
+	 */
+	double[] inputs;
+
+	/**
+	 * The output data.
+	 */
+	double[] outputs;
+
+	/**
+	 **********************************
+	 * The first constructor. All inputs are 0 except the bias column.
+	 *
+	 * @param paraNumInstances
+	 *            The number of instances.
+	 * @param paraNumColumns
+	 *            The number of input columns, including the bias column.
+	 **********************************
+	 */
+	public Dataset(int paraNumInstances, int paraNumColumns) {
+		numInstances = paraNumInstances;
+		numColumns = paraNumColumns;
+		inputs = new double[paraNumInstances * paraNumColumns];
+		outputs = new double[paraNumInstances];
+		for (int i = 0; i < paraNumInstances; i++) {
+			inputs[i * paraNumColumns] = 1;
+		} // Of for i
+	}// Of the first constructor
+
+	/**
+	 **********************************
+	 * The second constructor. The last attribute is the output, and a bias
+	 * column is inserted before the others.
+	 *
+	 * @param paraData
+	 *            The Weka data.
+	 **********************************
+	 */
+	public Dataset(Instances paraData) {
+		this(paraData.numInstances(), paraData.numAttributes());
+
+		int tempNumAttributes = paraData.numAttributes();
+		for (int i = 0; i < numInstances; i++) {
+			int tempOffset = i * numColumns;
+			outputs[i] = paraData.instance(i).value(tempNumAttributes - 1);
+			for (int j = 0; j < tempNumAttributes - 1; j++) {
+				inputs[tempOffset + j + 1] = paraData.instance(i).value(j);
+			} // Of for j
+		} // Of for i
+	}// Of the second constructor
+
+	/**
+	 **********************************
+	 * The third constructor. The data are copied as they are, i.e., paraX
+	 * should already contain the bias column.
+	 *
+	 * @param paraX
+	 *            The input data.
+	 * @param paraY
+	 *            The output data with one column.
+	 **********************************
+	 */
+	public Dataset(double[][] paraX, double[][] paraY) {
+		numInstances = paraX.length;
+		numColumns = paraX[0].length;
+		inputs = new double[numInstances * numColumns];
+		outputs = new double[numInstances];
+		for (int i = 0; i < numInstances; i++) {
+			System.arraycopy(paraX[i], 0, inputs, i * numColumns, numColumns);
+			outputs[i] = paraY[i][0];
+		} // Of for i
+	}// Of the third constructor
+
+	/**
+	 **********************************
+	 * Getter.
+	 *
+	 * @return The identifier, unique among the datasets of this run.
+	 **********************************
+	 */
+	public long getId() {
+		return id;
+	}// Of getId
+
+	/**
+	 **********************************
+	 * Getter.
+	 *
+	 * @return The number of instances.
+	 **********************************
+	 */
+	public int getNumInstances() {
+		return numInstances;
+	}// Of getNumInstances
+
+	/**
+	 **********************************
+	 * Getter.
+	 *
+	 * @return The number of input columns, including the bias column.
+	 **********************************
+	 */
+	public int getNumColumns() {
+		return numColumns;
+	}// Of getNumColumns
+
+	/**
+	 **********************************
+	 * Getter. The array is shared for fast access in inner loops.
+	 *
+	 * @return The row-major input array.
+	 **********************************
+	 */
+	public double[] getInputs() {
+		return inputs;
+	}// Of getInputs
+
+	/**
+	 **********************************
+	 * Getter. The array is shared for fast access in inner loops.
+	 *
+	 * @return The output array.
+	 **********************************
+	 */
+	public double[] getOutputs() {
+		return outputs;
+	}// Of getOutputs
+
+	/**
+	 **********************************
+	 * Getter.
+	 *
+	 * @param paraInstance
+	 *            The instance index.
+	 * @param paraColumn
+	 *            The column index.
+	 * @return The input value.
+	 **********************************
+	 */
+	public double getValue(int paraInstance, int paraColumn) {
+		return inputs[paraInstance * numColumns + paraColumn];
+	}// Of getValue
+
+	/**
+	 **********************************
+	 * Getter.
+	 *
+	 * @param paraInstance
+	 *            The instance index.
+	 * @return The output value.
+	 **********************************
+	 */
+	public double getOutput(int paraInstance) {
+		return outputs[paraInstance];
+	}// Of getOutput
+
+	/**
+	 **********************************
+	 * The inner product of an instance and the weights.
+	 *
+	 * @param paraWeights
+	 *            The weights.
+	 * @param paraInstance
+	 *            The instance index.
+	 * @return The prediction.
+	 **********************************
+	 */
+	public double predict(double[] paraWeights, int paraInstance) {
+		int tempOffset = paraInstance * numColumns;
+		double resultValue = 0;
+		for (int j = 0; j < numColumns; j++) {
+			resultValue += paraWeights[j] * inputs[tempOffset + j];
+		} // Of for j
+
+		return resultValue;
+	}// Of predict
+
+	/**
+	 **********************************
+	 * The inner products of the given instances and the weights. Four rows
+	 * are processed together so that each weight is loaded once for them,
+	 * while each row is still summed in column order, hence the values equal
+	 * those of predict(double[], int).
+	 *
+	 * @param paraWeights
+	 *            The weights.
+	 * @param paraView
+	 *            The instances.
+	 * @param paraResults
+	 *            The predictions, indexed by positions in the view. No shorter
+	 *            than the view.
+	 **********************************
+	 */
+	public void predict(double[] paraWeights, IndexView paraView,
+			double[] paraResults) {
+		int tempSize = paraView.size();
+		int i = 0;
+		for (; i + 3 < tempSize; i += 4) {
+			int tempOffset0 = paraView.get(i) * numColumns;
+			int tempOffset1 = paraView.get(i + 1) * numColumns;
+			int tempOffset2 = paraView.get(i + 2) * numColumns;
+			int tempOffset3 = paraView.get(i + 3) * numColumns;
+			double tempSum0 = 0;
+			double tempSum1 = 0;
+			double tempSum2 = 0;
+			double tempSum3 = 0;
+			for (int j = 0; j < numColumns; j++) {
+				double tempWeight = paraWeights[j];
+				tempSum0 += tempWeight * inputs[tempOffset0 + j];
+				tempSum1 += tempWeight * inputs[tempOffset1 + j];
+				tempSum2 += tempWeight * inputs[tempOffset2 + j];
+				tempSum3 += tempWeight * inputs[tempOffset3 + j];
+			} // Of for j
+			paraResults[i] = tempSum0;
+			paraResults[i + 1] = tempSum1;
+			paraResults[i + 2] = tempSum2;
+			paraResults[i + 3] = tempSum3;
+		} // Of for i
+
+		for (; i < tempSize; i++) {
+			paraResults[i] = predict(paraWeights, paraView.get(i));
+		} // Of for i
+	}// Of predict
+
+	/**
+	 **********************************
+	 * Copy the inputs of the given instances to a jagged array, for code
+	 * working on double[][].
+	 *
+	 * @param paraView
+	 *            The instances.
+	 * @return The input data.
+	 **********************************
+	 */
+	public double[][] copyInputs(IndexView paraView) {
+		double[][] resultX = new double[paraView.size()][numColumns];
+		for (int i = 0; i < resultX.length; i++) {
+			System.arraycopy(inputs, paraView.get(i) * numColumns, resultX[i], 0, numColumns);
+		} // Of for i
+
+		return resultX;
+	}// Of copyInputs
+
+	/**
+	 **********************************
+	 * Copy the outputs of the given instances to an array with one column.
+	 *
+	 * @param paraView
+	 *            The instances.
+	 * @return The output data.
+	 **********************************
+	 */
+	public double[][] copyOutputs(IndexView paraView) {
+		double[][] resultY = new double[paraView.size()][1];
+		for (int i = 0; i < resultY.length; i++) {
+			resultY[i][0] = outputs[paraView.get(i)];
+		} // Of for i
+
+		return resultY;
+	}// Of copyOutputs
+
+	/**
+	 **********************************
+	 * Show the size.
+	 **********************************
+	 */
+	public String toString() {
+		return "Dataset with " + numInstances + " instances and " + numColumns
+				+ " input columns (including the bias).";
+	}// Of toString
+}// Of class Dataset
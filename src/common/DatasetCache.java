@@ -0,0 +1,568 @@
+package common;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import weka.core.Instances;
+
+/**
+ * A binary cache of datasets. The first load of a file parses it, with
+ * CsvReader for CSV files and with Weka otherwise, and writes the primitive
+ * arrays to a cache file next to it. Later loads read the cache file and copy
+ * it into the arrays directly. The cache is keyed by the length, the
+ * modification time and the CRC32 of the source file. If only the
+ * modification time differs, e.g., the file is copied, the CRC32 decides.<br>
+ * The cache file layout (little endian): magic, version, source length,
+ * source modification time, source CRC32, number of instances, number of
+ * columns, inputs in row-major order, outputs.<br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Date Created: August 18, 2020.<br>
+ *         Last modified: August 27, 2020.
+ * @version 1.0
+ */
+public class DatasetCache extends Object {
+
+	/**
+	 * The suffix of cache files.
+	 */
+	public static final String CACHE_SUFFIX = ".cache";
+
+	/**
+	 * The magic number, "SPDC" in ASCII.
+	 */
+	static final int MAGIC = 0x53504443;
+
+	/**
+	 * The format version. Change it whenever the layout or the conversion
+	 * from Weka changes.
+	 */
+	static final int VERSION = 1;
+
+	/**
+	 * The header size in bytes. It is a multiple of 8 so that the doubles are
+	 * aligned.
+	 */
+	static final int HEADER_SIZE = 40;
+
+	/**
+	 * The position of the modification time in the header.
+	 */
+	static final int MODIFIED_POSITION = 16;
+
+	/**
+	 * The buffer size for hashing and writing.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Use the cache? If false, files are always parsed by Weka.
+	 */
+	public static boolean enabled = true;
+
+	/**
+	 **********************************
+	 * Load a dataset. The cache is used if it is up to date, otherwise the
+	 * file is parsed and the cache is rewritten.
+	 *
+	 * @param paraFilename
+	 *            The source filename.
+	 * @return The dataset with the bias column.
+	 * @throws IOException
+	 *             If the source file cannot be read.
+	 **********************************
+	 */
+	public static Dataset load(String paraFilename) throws IOException {
+		File tempSource = new File(paraFilename);
+		File tempCache = new File(paraFilename + CACHE_SUFFIX);
+		if (!enabled) {
+			return parse(tempSource);
+		} // Of if
+
+		// Step 1. Try the cache.
+		long tempLength = tempSource.length();
+		long tempModified = tempSource.lastModified();
+		if (tempCache.isFile()) {
+			try {
+				Dataset resultDataset = read(tempCache, tempSource, tempLength,
+						tempModified);
+				if (resultDataset != null) {
+					return resultDataset;
+				} // Of if
+			} catch (IOException ee) {
+				// A broken cache is simply rewritten.
+				System.out.println("Ignoring the cache " + tempCache + ": " + ee);
+			} // Of try
+		} // Of if
+
+		// Step 2. Parse the source.
+		long tempChecksum = checksum(tempSource);
+		Dataset resultDataset = parse(tempSource);
+
+		// Step 3. Write the cache. A failure only costs the next parse.
+		try {
+			write(tempCache, resultDataset, tempLength, tempModified, tempChecksum);
+		} catch (IOException ee) {
+			System.out.println("Cannot write the cache " + tempCache + ": " + ee);
+		} // Of try
+
+		return resultDataset;
+	}// Of load
+
+	/**
+	 **********************************
+	 * Parse the file. CSV files are read by CsvReader, and others by Weka.
+	 *
+	 * @param paraSource
+	 *            The source file.
+	 * @return The dataset.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 **********************************
+	 */
+	static Dataset parse(File paraSource) throws IOException {
+		if (paraSource.getName().toLowerCase().endsWith(".csv")) {
+			return CsvReader.load(paraSource.getPath());
+		} // Of if
+
+		FileReader tempFileReader = new FileReader(paraSource);
+		try {
+			return new Dataset(new Instances(tempFileReader));
+		} finally {
+			tempFileReader.close();
+		} // Of try
+	}// Of parse
+
+	/**
+	 **********************************
+	 * Read the cache if it matches the source.
+	 *
+	 * @param paraCache
+	 *            The cache file.
+	 * @param paraSource
+	 *            The source file.
+	 * @param paraLength
+	 *            The length of the source.
+	 * @param paraModified
+	 *            The modification time of the source.
+	 * @return The dataset, or null if the cache is out of date.
+	 * @throws IOException
+	 *             If the cache is broken.
+	 **********************************
+	 */
+	static Dataset read(File paraCache, File paraSource, long paraLength,
+			long paraModified) throws IOException {
+		// The cache is read into heap buffers rather than mapped, since a
+		// mapping stays open until garbage collected, and a mapped file cannot
+		// be replaced on Windows.
+		RandomAccessFile tempFile = new RandomAccessFile(paraCache, "r");
+		try {
+			FileChannel tempChannel = tempFile.getChannel();
+			ByteBuffer tempBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+			tempBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			// Step 1. Check the header.
+			if (tempChannel.size() < HEADER_SIZE) {
+				return null;
+			} // Of if
+			tempBuffer.limit(HEADER_SIZE);
+			readFully(tempChannel, tempBuffer);
+			if ((tempBuffer.getInt(0) != MAGIC) || (tempBuffer.getInt(4) != VERSION)
+					|| (tempBuffer.getLong(8) != paraLength)) {
+				return null;
+			} // Of if
+
+			int tempNumInstances = tempBuffer.getInt(32);
+			int tempNumColumns = tempBuffer.getInt(36);
+			long tempExpectedSize = HEADER_SIZE + 8L * tempNumInstances
+					* (tempNumColumns + 1);
+			if ((tempNumInstances <= 0) || (tempNumColumns <= 0)
+					|| (tempChannel.size() != tempExpectedSize)) {
+				throw new IOException("Unexpected cache size " + tempChannel.size());
+			} // Of if
+
+			// Step 2. A different modification time with the same content is
+			// accepted, and the time is refreshed.
+			boolean tempRefresh = false;
+			if (tempBuffer.getLong(MODIFIED_POSITION) != paraModified) {
+				if (tempBuffer.getLong(24) != checksum(paraSource)) {
+					return null;
+				} // Of if
+				tempRefresh = true;
+			} // Of if
+
+			// Step 3. Copy the arrays.
+			Dataset resultDataset = new Dataset(tempNumInstances, tempNumColumns);
+			tempBuffer.clear();
+			tempBuffer.limit(0);
+			readDoubles(tempChannel, tempBuffer, resultDataset.getInputs());
+			readDoubles(tempChannel, tempBuffer, resultDataset.getOutputs());
+
+			if (tempRefresh) {
+				refreshModified(paraCache, paraModified);
+			} // Of if
+
+			return resultDataset;
+		} finally {
+			tempFile.close();
+		} // Of try
+	}// Of read
+
+	/**
+	 **********************************
+	 * Fill the buffer from its position to its limit.
+	 *
+	 * @param paraChannel
+	 *            The channel.
+	 * @param paraBuffer
+	 *            The buffer. It is flipped for reading afterwards.
+	 * @throws IOException
+	 *             If the channel ends early.
+	 **********************************
+	 */
+	static void readFully(FileChannel paraChannel, ByteBuffer paraBuffer)
+			throws IOException {
+		while (paraBuffer.hasRemaining()) {
+			if (paraChannel.read(paraBuffer) < 0) {
+				throw new IOException("Unexpected end of the cache.");
+			} // Of if
+		} // Of while
+		paraBuffer.flip();
+	}// Of readFully
+
+	/**
+	 **********************************
+	 * Read doubles through the buffer, refilling it whenever exhausted.
+	 *
+	 * @param paraChannel
+	 *            The channel.
+	 * @param paraBuffer
+	 *            The buffer in reading mode, possibly with remaining bytes.
+	 * @param paraValues
+	 *            The values to fill.
+	 * @throws IOException
+	 *             If the channel ends early.
+	 **********************************
+	 */
+	static void readDoubles(FileChannel paraChannel, ByteBuffer paraBuffer,
+			double[] paraValues) throws IOException {
+		int tempPosition = 0;
+		while (tempPosition < paraValues.length) {
+			if (paraBuffer.remaining() < 8) {
+				// The payload is a whole number of doubles, hence nothing is
+				// left here.
+				paraBuffer.clear();
+				long tempLeft = 8L * (paraValues.length - tempPosition);
+				if (tempLeft < paraBuffer.capacity()) {
+					paraBuffer.limit((int) tempLeft);
+				} // Of if
+				readFully(paraChannel, paraBuffer);
+			} // Of if
+
+			int tempCount = Math.min(paraBuffer.remaining() / 8,
+					paraValues.length - tempPosition);
+			paraBuffer.asDoubleBuffer().get(paraValues, tempPosition, tempCount);
+			paraBuffer.position(paraBuffer.position() + tempCount * 8);
+			tempPosition += tempCount;
+		} // Of while
+	}// Of readDoubles
+
+	/**
+	 **********************************
+	 * Write the cache. A temporary file is written and then moved, so that
+	 * readers never see a partial cache.
+	 *
+	 * @param paraCache
+	 *            The cache file.
+	 * @param paraDataset
+	 *            The dataset.
+	 * @param paraLength
+	 *            The length of the source.
+	 * @param paraModified
+	 *            The modification time of the source.
+	 * @param paraChecksum
+	 *            The CRC32 of the source.
+	 * @throws IOException
+	 *             If the cache cannot be written.
+	 **********************************
+	 */
+	static void write(File paraCache, Dataset paraDataset, long paraLength,
+			long paraModified, long paraChecksum) throws IOException {
+		File tempDirectory = paraCache.getAbsoluteFile().getParentFile();
+		File tempTemporary = File.createTempFile(paraCache.getName(), ".tmp",
+				tempDirectory);
+		RandomAccessFile tempFile = new RandomAccessFile(tempTemporary, "rw");
+		try {
+			FileChannel tempChannel = tempFile.getChannel();
+			ByteBuffer tempBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			tempBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			// Step 1. The header.
+			tempBuffer.putInt(MAGIC);
+			tempBuffer.putInt(VERSION);
+			tempBuffer.putLong(paraLength);
+			tempBuffer.putLong(paraModified);
+			tempBuffer.putLong(paraChecksum);
+			tempBuffer.putInt(paraDataset.getNumInstances());
+			tempBuffer.putInt(paraDataset.getNumColumns());
+
+			// Step 2. The arrays.
+			writeDoubles(tempChannel, tempBuffer, paraDataset.getInputs());
+			writeDoubles(tempChannel, tempBuffer, paraDataset.getOutputs());
+			tempBuffer.flip();
+			while (tempBuffer.hasRemaining()) {
+				tempChannel.write(tempBuffer);
+			} // Of while
+		} finally {
+			tempFile.close();
+		} // Of try
+
+		// Step 3. Replace the old cache.
+		try {
+			try {
+				Files.move(tempTemporary.toPath(), paraCache.toPath(),
+						StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException ee) {
+				Files.move(tempTemporary.toPath(), paraCache.toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			} // Of try
+		} catch (IOException ee) {
+			tempTemporary.delete();
+			throw ee;
+		} // Of try
+	}// Of write
+
+	/**
+	 **********************************
+	 * Write doubles through the buffer, flushing it whenever full.
+	 *
+	 * @param paraChannel
+	 *            The channel.
+	 * @param paraBuffer
+	 *            The buffer in writing mode.
+	 * @param paraValues
+	 *            The values.
+	 * @throws IOException
+	 *             If the channel cannot be written.
+	 **********************************
+	 */
+	static void writeDoubles(FileChannel paraChannel, ByteBuffer paraBuffer,
+			double[] paraValues) throws IOException {
+		int tempPosition = 0;
+		while (tempPosition < paraValues.length) {
+			if (paraBuffer.remaining() < 8) {
+				paraBuffer.flip();
+				while (paraBuffer.hasRemaining()) {
+					paraChannel.write(paraBuffer);
+				} // Of while
+				paraBuffer.clear();
+			} // Of if
+
+			int tempCount = Math.min(paraBuffer.remaining() / 8,
+					paraValues.length - tempPosition);
+			paraBuffer.asDoubleBuffer().put(paraValues, tempPosition, tempCount);
+			paraBuffer.position(paraBuffer.position() + tempCount * 8);
+			tempPosition += tempCount;
+		} // Of while
+	}// Of writeDoubles
+
+	/**
+	 **********************************
+	 * Refresh the modification time stored in the cache.
+	 *
+	 * @param paraCache
+	 *            The cache file.
+	 * @param paraModified
+	 *            The new modification time.
+	 **********************************
+	 */
+	static void refreshModified(File paraCache, long paraModified) {
+		try {
+			RandomAccessFile tempFile = new RandomAccessFile(paraCache, "rw");
+			try {
+				ByteBuffer tempBuffer = ByteBuffer.allocate(8);
+				tempBuffer.order(ByteOrder.LITTLE_ENDIAN);
+				tempBuffer.putLong(paraModified);
+				tempBuffer.flip();
+				tempFile.getChannel().write(tempBuffer, MODIFIED_POSITION);
+			} finally {
+				tempFile.close();
+			} // Of try
+		} catch (IOException ee) {
+			// The content is still checked next time.
+		} // Of try
+	}// Of refreshModified
+
+	/**
+	 **********************************
+	 * Compute the CRC32 of a file.
+	 *
+	 * @param paraFile
+	 *            The file.
+	 * @return The checksum.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 **********************************
+	 */
+	static long checksum(File paraFile) throws IOException {
+		CRC32 tempCrc = new CRC32();
+		byte[] tempBytes = new byte[BUFFER_SIZE];
+		FileInputStream tempStream = new FileInputStream(paraFile);
+		try {
+			int tempRead;
+			while ((tempRead = tempStream.read(tempBytes)) > 0) {
+				tempCrc.update(tempBytes, 0, tempRead);
+			} // Of while
+		} finally {
+			tempStream.close();
+		} // Of try
+
+		return tempCrc.getValue();
+	}// Of checksum
+
+	/**
+	 **********************************
+	 * Write a CSV file of the given number of rows.
+	 *
+	 * @param paraFile
+	 *            The file.
+	 * @param paraNumRows
+	 *            The number of rows.
+	 * @param paraOffset
+	 *            Added to all values, for changing the content.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 **********************************
+	 */
+	static void writeTestCsv(File paraFile, int paraNumRows, int paraOffset)
+			throws IOException {
+		FileWriter tempWriter = new FileWriter(paraFile);
+		try {
+			tempWriter.write("a,b,c,d,y\n");
+			for (int i = 0; i < paraNumRows; i++) {
+				tempWriter.write((i + paraOffset) + "," + (i * 0.5) + ",-" + i
+						+ ".25,1e-3," + (i % 7 + paraOffset) + "\n");
+			} // Of for i
+		} finally {
+			tempWriter.close();
+		} // Of try
+	}// Of writeTestCsv
+
+	/**
+	 **********************************
+	 * Are the datasets the same?
+	 *
+	 * @param paraFirst
+	 *            The first dataset.
+	 * @param paraSecond
+	 *            The second dataset.
+	 * @return True if the same.
+	 **********************************
+	 */
+	static boolean sameDataset(Dataset paraFirst, Dataset paraSecond) {
+		return (paraFirst.getNumColumns() == paraSecond.getNumColumns())
+				&& Arrays.equals(paraFirst.getInputs(), paraSecond.getInputs())
+				&& Arrays.equals(paraFirst.getOutputs(), paraSecond.getOutputs());
+	}// Of sameDataset
+
+	/**
+	 **********************************
+	 * Round trips, touched sources, changed sources and broken caches. The
+	 * payload is larger than the buffer.
+	 *
+	 * @return Passed?
+	 * @throws IOException
+	 *             If the temporary files cannot be used.
+	 **********************************
+	 */
+	public static boolean testCache() throws IOException {
+		File tempDirectory = Files.createTempDirectory("cache").toFile();
+		File tempSource = new File(tempDirectory, "test.csv");
+		File tempCache = new File(tempSource.getPath() + CACHE_SUFFIX);
+		writeTestCsv(tempSource, 3000, 0);
+		tempSource.setLastModified(1000000000000L);
+
+		// Step 1. The first load writes the cache, and the second reads it.
+		Dataset tempParsed = load(tempSource.getPath());
+		Dataset tempCached = read(tempCache, tempSource, tempSource.length(),
+				tempSource.lastModified());
+		boolean tempRoundTrip = (tempCached != null) && sameDataset(tempParsed, tempCached)
+				&& sameDataset(tempParsed, load(tempSource.getPath()));
+		System.out.println("Round trip: " + tempRoundTrip);
+
+		// Step 2. A touched source is accepted through its checksum, and the
+		// time is refreshed.
+		tempSource.setLastModified(1000000002000L);
+		boolean tempTouched = sameDataset(tempParsed, load(tempSource.getPath()));
+		RandomAccessFile tempHeader = new RandomAccessFile(tempCache, "r");
+		tempHeader.seek(MODIFIED_POSITION);
+		tempTouched = tempTouched
+				&& (Long.reverseBytes(tempHeader.readLong()) == tempSource.lastModified());
+		tempHeader.close();
+		System.out.println("Touched source: " + tempTouched);
+
+		// Step 3. A changed source rewrites the stale cache.
+		writeTestCsv(tempSource, 3000, 1);
+		tempSource.setLastModified(1000000004000L);
+		Dataset tempChanged = load(tempSource.getPath());
+		boolean tempRewritten = !sameDataset(tempParsed, tempChanged)
+				&& (tempChanged.getOutputs()[0] == 1)
+				&& (read(tempCache, tempSource, tempSource.length(),
+						tempSource.lastModified()) != null);
+		System.out.println("Changed source rewrites the cache: " + tempRewritten);
+
+		// Step 4. A truncated cache is rejected and rewritten.
+		RandomAccessFile tempFile = new RandomAccessFile(tempCache, "rw");
+		tempFile.setLength(tempFile.length() - 8);
+		tempFile.close();
+		boolean tempBroken = false;
+		try {
+			read(tempCache, tempSource, tempSource.length(), tempSource.lastModified());
+		} catch (IOException ee) {
+			tempBroken = true;
+		} // Of try
+		tempBroken = tempBroken && sameDataset(tempChanged, load(tempSource.getPath()))
+				&& (read(tempCache, tempSource, tempSource.length(),
+						tempSource.lastModified()) != null);
+		System.out.println("Truncated cache is rewritten: " + tempBroken);
+
+		tempCache.delete();
+		tempSource.delete();
+		tempDirectory.delete();
+
+		boolean resultPassed = tempRoundTrip && tempTouched && tempRewritten
+				&& tempBroken;
+		System.out.println("Dataset cache, passed: " + resultPassed);
+		return resultPassed;
+	}// Of testCache
+
+	/**
+	 **********************************
+	 * For unit test.
+	 *
+	 * @param args
+	 *            Not used now.
+	 * @throws IOException
+	 *             If the temporary files cannot be used.
+	 **********************************
+	 */
+	public static void main(String args[]) throws IOException {
+		testCache();
+	}// Of main
+}// Of class DatasetCache
@@ -0,0 +1,143 @@
+package common;
+
+/**
+ * Sort indices according to double keys without boxing. Ties are broken by
+ * the indices, so the result is deterministic.<br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Date Created: August 16, 2020.<br>
+ *         Last modified: August 16, 2020.
+ * @version 1.0
+ */
+public class IndexSorter extends Object {
+
+	/**
+	 * Segments shorter than this are sorted by insertion.
+	 */
+	static final int INSERTION_SORT_THRESHOLD = 16;
+
+	/**
+	 **********************************
+	 * Sort the indices in ascending order of their keys. Merge sort is employed.
+	 *
+	 * @param paraKeys
+	 *            The keys, accessed by the indices.
+	 * @param paraIndices
+	 *            The indices to be sorted in place.
+	 * @param paraFrom
+	 *            The first position (inclusive).
+	 * @param paraTo
+	 *            The last position (exclusive).
+	 * @param paraBuffer
+	 *            A buffer no shorter than paraTo. Null for allocating a new
+	 *            one.
+	 **********************************
+	 */
+	public static void sortByKeys(double[] paraKeys, int[] paraIndices, int paraFrom,
+			int paraTo, int[] paraBuffer) {
+		if (paraBuffer == null) {
+			paraBuffer = new int[paraTo];
+		} // Of if
+		mergeSort(paraKeys, paraIndices, paraFrom, paraTo, paraBuffer);
+	}// Of sortByKeys
+
+	/**
+	 **********************************
+	 * Merge sort in [paraFrom, paraTo).
+	 *
+	 * @param paraKeys
+	 *            The keys.
+	 * @param paraIndices
+	 *            The indices.
+	 * @param paraFrom
+	 *            The first position (inclusive).
+	 * @param paraTo
+	 *            The last position (exclusive).
+	 * @param paraBuffer
+	 *            The buffer.
+	 **********************************
+	 */
+	static void mergeSort(double[] paraKeys, int[] paraIndices, int paraFrom, int paraTo,
+			int[] paraBuffer) {
+		if (paraTo - paraFrom <= INSERTION_SORT_THRESHOLD) {
+			insertionSort(paraKeys, paraIndices, paraFrom, paraTo);
+			return;
+		} // Of if
+
+		int tempMiddle = (paraFrom + paraTo) >>> 1;
+		mergeSort(paraKeys, paraIndices, paraFrom, tempMiddle, paraBuffer);
+		mergeSort(paraKeys, paraIndices, tempMiddle, paraTo, paraBuffer);
+
+		// Already in order.
+		if (!less(paraKeys, paraIndices[tempMiddle], paraIndices[tempMiddle - 1])) {
+			return;
+		} // Of if
+
+		System.arraycopy(paraIndices, paraFrom, paraBuffer, paraFrom, paraTo - paraFrom);
+		int tempLeft = paraFrom;
+		int tempRight = tempMiddle;
+		for (int i = paraFrom; i < paraTo; i++) {
+			if (tempLeft >= tempMiddle) {
+				paraIndices[i] = paraBuffer[tempRight++];
+			} else if (tempRight >= paraTo) {
+				paraIndices[i] = paraBuffer[tempLeft++];
+			} else if (less(paraKeys, paraBuffer[tempRight], paraBuffer[tempLeft])) {
+				paraIndices[i] = paraBuffer[tempRight++];
+			} else {
+				paraIndices[i] = paraBuffer[tempLeft++];
+			} // Of if
+		} // Of for i
+	}// Of mergeSort
+
+	/**
+	 **********************************
+	 * Insertion sort in [paraFrom, paraTo).
+	 *
+	 * @param paraKeys
+	 *            The keys.
+	 * @param paraIndices
+	 *            The indices.
+	 * @param paraFrom
+	 *            The first position (inclusive).
+	 * @param paraTo
+	 *            The last position (exclusive).
+	 **********************************
+	 */
+	static void insertionSort(double[] paraKeys, int[] paraIndices, int paraFrom, int paraTo) {
+		for (int i = paraFrom + 1; i < paraTo; i++) {
+			int tempIndex = paraIndices[i];
+			int j = i - 1;
+			while ((j >= paraFrom) && less(paraKeys, tempIndex, paraIndices[j])) {
+				paraIndices[j + 1] = paraIndices[j];
+				j--;
+			} // Of while
+			paraIndices[j + 1] = tempIndex;
+		} // Of for i
+	}// Of insertionSort
+
+	/**
+	 **********************************
+	 * Is the first index before the second one?
+	 *
+	 * @param paraKeys
+	 *            The keys.
+	 * @param paraFirst
+	 *            The first index.
+	 * @param paraSecond
+	 *            The second index.
+	 * @return True if the key is smaller, or the keys are equal and the index
+	 *         is smaller.
+	 **********************************
+	 */
+	static boolean less(double[] paraKeys, int paraFirst, int paraSecond) {
+		double tempFirstKey = paraKeys[paraFirst];
+		double tempSecondKey = paraKeys[paraSecond];
+		if (tempFirstKey != tempSecondKey) {
+			return tempFirstKey < tempSecondKey;
+		} // Of if
+		return paraFirst < paraSecond;
+	}// Of less
+}// Of class IndexSorter
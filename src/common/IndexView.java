@@ -0,0 +1,151 @@
+package common;
+
+/**
+ * A view of a subset of instances, i.e., a segment of an index array. Views
+ * on the same array share it, so subsets such as training and testing sets
+ * are formed without copying data.<br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Date Created: August 17, 2020.<br>
+ *         Last modified: August 17, 2020.
+ * @version 1.0
+ */
+public class IndexView extends Object {
+
+	/**
+	 * The underlying index array.
+	 */
+	int[] indices;
+
+	/**
+	 * The first position of the view in the array.
+	 */
+	int offset;
+
+	/**
+	 * The number of indices in the view.
+	 */
+	int size;
+
+	/**
+	 **********************************
+	 * The first constructor. The whole array is viewed.
+	 *
+	 * @param paraIndices
+	 *            The index array.
+	 **********************************
+	 */
+	public IndexView(int[] paraIndices) {
+		this(paraIndices, 0, paraIndices.length);
+	}// Of the first constructor
+
+	/**
+	 **********************************
+	 * The second constructor.
+	 *
+	 * @param paraIndices
+	 *            The index array.
+	 * @param paraOffset
+	 *            The first position.
+	 * @param paraSize
+	 *            The number of indices.
+	 **********************************
+	 */
+	public IndexView(int[] paraIndices, int paraOffset, int paraSize) {
+		indices = paraIndices;
+		offset = paraOffset;
+		size = paraSize;
+	}// Of the second constructor
+
+	/**
+	 **********************************
+	 * A view of 0, 1, ..., n - 1.
+	 *
+	 * @param paraLength
+	 *            The length n.
+	 * @return The view.
+	 **********************************
+	 */
+	public static IndexView range(int paraLength) {
+		int[] tempIndices = new int[paraLength];
+		for (int i = 0; i < paraLength; i++) {
+			tempIndices[i] = i;
+		} // Of for i
+
+		return new IndexView(tempIndices);
+	}// Of range
+
+	/**
+	 **********************************
+	 * Getter.
+	 *
+	 * @param paraPosition
+	 *            The position in the view.
+	 * @return The index.
+	 **********************************
+	 */
+	public int get(int paraPosition) {
+		return indices[offset + paraPosition];
+	}// Of get
+
+	/**
+	 **********************************
+	 * Getter.
+	 *
+	 * @return The number of indices.
+	 **********************************
+	 */
+	public int size() {
+		return size;
+	}// Of size
+
+	/**
+	 **********************************
+	 * Setter. The view grows or shrinks in its array, so that a buffer can be
+	 * reused as different subsets.
+	 *
+	 * @param paraSize
+	 *            The number of indices.
+	 **********************************
+	 */
+	public void setSize(int paraSize) {
+		size = paraSize;
+	}// Of setSize
+
+	/**
+	 **********************************
+	 * Let this view be a subset of another view. The indices are written into
+	 * the array of this view, which should be long enough.
+	 *
+	 * @param paraBase
+	 *            The base view.
+	 * @param paraPositions
+	 *            The positions in the base view.
+	 * @param paraNumPositions
+	 *            The number of valid positions.
+	 **********************************
+	 */
+	public void selectFrom(IndexView paraBase, int[] paraPositions,
+			int paraNumPositions) {
+		for (int i = 0; i < paraNumPositions; i++) {
+			indices[offset + i] = paraBase.get(paraPositions[i]);
+		} // Of for i
+		size = paraNumPositions;
+	}// Of selectFrom
+
+	/**
+	 **********************************
+	 * Copy the indices to a new array.
+	 *
+	 * @return The indices.
+	 **********************************
+	 */
+	public int[] toArray() {
+		int[] resultArray = new int[size];
+		System.arraycopy(indices, offset, resultArray, 0, size);
+		return resultArray;
+	}// Of toArray
+}// Of class IndexView
@@ -0,0 +1,190 @@
+package common;
+
+/**
+ * A seedable and splittable random stream (SplitMix64). Each trial, fold or
+ * bootstrap owns its stream, so there is no contention as with a shared
+ * java.util.Random, and the results are reproducible regardless of threads.
+ * A stream is not thread-safe; split it instead of sharing it.<br>
+ * Project: Self-paced learning.<br>
+ *
+ * @author Fan Min<br>
+ *         www.fansmale.com, github.com/fansmale/MFSelfPaced.<br>
+ *         Email: minfan@swpu.edu.cn, minfanphd@163.com.<br>
+ *         Date Created: August 19, 2020.<br>
+ *         Last modified: August 19, 2020.
+ * @version 1.0
+ */
+public class RandomStream extends Object {
+
+	/**
+	 * The default increment, the odd integer closest to 2^64 / golden ratio.
+	 */
+	static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The current state.
+	 */
+	long seed;
+
+	/**
+	 * The increment of the state. Always odd.
+	 */
+	long gamma;
+
+	/**
+	 **********************************
+	 * The first constructor.
+	 *
+	 * @param paraSeed
+	 *            The seed.
+	 **********************************
+	 */
+	public RandomStream(long paraSeed) {
+		this(paraSeed, GOLDEN_GAMMA);
+	}// Of the first constructor
+
+	/**
+	 **********************************
+	 * The second constructor.
+	 *
+	 * @param paraSeed
+	 *            The seed.
+	 * @param paraGamma
+	 *            The increment, which must be odd.
+	 **********************************
+	 */
+	RandomStream(long paraSeed, long paraGamma) {
+		seed = paraSeed;
+		gamma = paraGamma;
+	}// Of the second constructor
+
+	/**
+	 **********************************
+	 * Split off a new stream. The two streams are statistically independent.
+	 *
+	 * @return The new stream.
+	 **********************************
+	 */
+	public RandomStream split() {
+		return new RandomStream(nextLong(), mixGamma(nextSeed()));
+	}// Of split
+
+	/**
+	 **********************************
+	 * The next 64 random bits.
+	 *
+	 * @return The value.
+	 **********************************
+	 */
+	public long nextLong() {
+		return mix64(nextSeed());
+	}// Of nextLong
+
+	/**
+	 **********************************
+	 * The next integer in [0, paraBound), without bias.
+	 *
+	 * @param paraBound
+	 *            The bound, which must be positive.
+	 * @return The value.
+	 **********************************
+	 */
+	public int nextInt(int paraBound) {
+		if (paraBound <= 0) {
+			throw new IllegalArgumentException("The bound must be positive: "
+					+ paraBound);
+		} // Of if
+
+		int tempMask = paraBound - 1;
+		int tempBits = (int) (nextLong() >>> 33);
+		if ((paraBound & tempMask) == 0) {
+			// A power of 2.
+			return tempBits & tempMask;
+		} // Of if
+
+		// Reject values in the incomplete last block, where the sum
+		// overflows.
+		int resultValue = tempBits % paraBound;
+		while (tempBits - resultValue + tempMask < 0) {
+			tempBits = (int) (nextLong() >>> 33);
+			resultValue = tempBits % paraBound;
+		} // Of while
+
+		return resultValue;
+	}// Of nextInt
+
+	/**
+	 **********************************
+	 * The next double in [0, 1).
+	 *
+	 * @return The value.
+	 **********************************
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}// Of nextDouble
+
+	/**
+	 **********************************
+	 * Shuffle the array in one pass (Fisher-Yates).
+	 *
+	 * @param paraArray
+	 *            The array.
+	 **********************************
+	 */
+	public void shuffle(int[] paraArray) {
+		for (int i = paraArray.length - 1; i > 0; i--) {
+			int j = nextInt(i + 1);
+			int tempValue = paraArray[i];
+			paraArray[i] = paraArray[j];
+			paraArray[j] = tempValue;
+		} // Of for i
+	}// Of shuffle
+
+	/**
+	 **********************************
+	 * Advance the state.
+	 *
+	 * @return The new state.
+	 **********************************
+	 */
+	long nextSeed() {
+		seed += gamma;
+		return seed;
+	}// Of nextSeed
+
+	/**
+	 **********************************
+	 * The finalizer of MurmurHash3 with the constants of Stafford's variant
+	 * 13.
+	 *
+	 * @param paraValue
+	 *            The value.
+	 * @return The mixed value.
+	 **********************************
+	 */
+	public static long mix64(long paraValue) {
+		paraValue = (paraValue ^ (paraValue >>> 30)) * 0xbf58476d1ce4e5b9L;
+		paraValue = (paraValue ^ (paraValue >>> 27)) * 0x94d049bb133111ebL;
+		return paraValue ^ (paraValue >>> 31);
+	}// Of mix64
+
+	/**
+	 **********************************
+	 * Compute an increment for a split stream. It is odd and has enough bit
+	 * transitions.
+	 *
+	 * @param paraValue
+	 *            The value.
+	 * @return The increment.
+	 **********************************
+	 */
+	static long mixGamma(long paraValue) {
+		paraValue = (paraValue ^ (paraValue >>> 33)) * 0xff51afd7ed558ccdL;
+		paraValue = (paraValue ^ (paraValue >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		paraValue = (paraValue ^ (paraValue >>> 33)) | 1L;
+		int tempTransitions = Long.bitCount(paraValue ^ (paraValue >>> 1));
+		return (tempTransitions < 24) ? paraValue ^ 0xaaaaaaaaaaaaaaaaL
+				: paraValue;
+	}// Of mixGamma
+}// Of class RandomStream
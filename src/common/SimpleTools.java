@@ -127,6 +127,78 @@ public class SimpleTools extends Object {
 		} // Of for i
 	}//Of normalize
 
+	/**
+	 ************************************** 
+	 * Perform min-max normalization on a dataset in contiguous storage. The same
+	 * as normalize(Instances): every attribute, including the output, is
+	 * normalized to [0, 1], while the bias column is untouched. The data are
+	 * changed directly.
+	 * 
+	 * @param paraData : the data set.
+	 * 
+	 ************************************** 
+	 */
+	public static void normalize(Dataset paraData) {
+		normalizeInputs(paraData);
+
+		int tempNumInstances = paraData.getNumInstances();
+		double[] tempOutputs = paraData.getOutputs();
+
+		// The output.
+		double max = Double.MIN_VALUE;
+		double min = Double.MAX_VALUE;
+		for (int j = 0; j < tempNumInstances; j++) {
+			if (max < tempOutputs[j]) {
+				max = tempOutputs[j];
+			} // Of if
+
+			if (min > tempOutputs[j]) {
+				min = tempOutputs[j];
+			} // Of if
+		} // Of for j
+
+		for (int j = 0; j < tempNumInstances; j++) {
+			tempOutputs[j] = (tempOutputs[j] - min) / (max - min);
+		} // Of for j
+	}//Of normalize
+
+	/**
+	 ************************************** 
+	 * Perform min-max normalization on the inputs of a dataset in contiguous
+	 * storage, e.g., when the output is a class index. The bias column is
+	 * untouched. The data are changed directly.
+	 * 
+	 * @param paraData : the data set.
+	 * 
+	 ************************************** 
+	 */
+	public static void normalizeInputs(Dataset paraData) {
+		int tempNumInstances = paraData.getNumInstances();
+		int tempNumColumns = paraData.getNumColumns();
+		double[] tempInputs = paraData.getInputs();
+
+		// Column 0 is the bias.
+		for (int i = 1; i < tempNumColumns; i++) {
+			double max = Double.MIN_VALUE;
+			double min = Double.MAX_VALUE;
+			for (int j = 0; j < tempNumInstances; j++) {
+				double tempValue = tempInputs[j * tempNumColumns + i];
+				if (max < tempValue) {
+					max = tempValue;
+				} // Of if
+
+				if (min > tempValue) {
+					min = tempValue;
+				} // Of if
+			} // Of for j
+
+			for (int j = 0; j < tempNumInstances; j++) {
+				tempInputs[j * tempNumColumns + i] = (tempInputs[j * tempNumColumns + i] - min)
+						/ (max - min);
+			} // Of for j
+		} // Of for i
+	}//Of normalizeInputs
+
 	/**
 	 ********************************** 
 	 * Console output.
@@ -2697,23 +2769,32 @@ public class SimpleTools extends Object {
 	 ********************************** 
 	 */
 	public static int[] getRandomOrder(int paraLength) {
+		// Only the seed is drawn from the shared object.
+		return getRandomOrder(paraLength, new RandomStream(random.nextLong()));
+	}// Of getRandomOrder
+
+	/**
+	 ********************************** 
+	 * Get a random order index array with the given stream, so that
+	 * concurrent experiments do not share one random object. The array is
+	 * shuffled in one pass.
+	 * 
+	 * @param paraLength
+	 *            The length of the array.
+	 * @param paraStream
+	 *            The random stream.
+	 * @return A random order.
+	 ********************************** 
+	 */
+	public static int[] getRandomOrder(int paraLength, RandomStream paraStream) {
 		// Step 1. Initialize
 		int[] resultArray = new int[paraLength];
 		for (int i = 0; i < paraLength; i++) {
 			resultArray[i] = i;
 		} // Of for i
 
-		// Step 2. Swap many times
-		int tempFirst, tempSecond;
-		int tempValue;
-		for (int i = 0; i < paraLength * 10; i++) {
-			tempFirst = random.nextInt(paraLength);
-			tempSecond = random.nextInt(paraLength);
-
-			tempValue = resultArray[tempFirst];
-			resultArray[tempFirst] = resultArray[tempSecond];
-			resultArray[tempSecond] = tempValue;
-		} // Of for i
+		// Step 2. Fisher-Yates shuffle
+		paraStream.shuffle(resultArray);
 
 		return resultArray;
 	}// Of getRandomOrder